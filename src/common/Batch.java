@@ -0,0 +1,212 @@
+package common;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs every selected day/part as a task on a work-stealing ForkJoinPool
+ * in one JVM, then prints a per-task timing table and a critical-path
+ * summary.  Each task creates and parses its own Solver, so parts never
+ * share a model across threads; parse time is reported separately.
+ * 
+ * Usage: Batch [-threads n] [-part 1|2]... [-log level] [-metrics path] [-snapshots dir] [name...]
+ * 
+ * With no names every day is run, leaving out the optIn entries (see
+ * Solvers), so the batch is bounded by its slowest default day.
+ * Solver logging is off unless -log is given, as concurrent tasks would
+ * interleave it.  -snapshots loads parsed models from Snapshots where
+ * it can, as in Runner.
+ * 
+ * A task that fails with an exception is reported in its row, and the
+ * batch then exits with status 1 once every task is done.  An
+ * OutOfMemoryError (or any other Error but a StackOverflowError, which
+ * only unwinds its own thread) leaves the shared heap in no state to
+ * trust the other tasks' results, so it aborts the batch instead.
+ * 
+ * Allocation is per thread, so work a solver hands off to other threads
+ * (e.g. parallel streams) is not counted against its task.
+ */
+public class Batch {
+	
+	static class Task extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final Solvers.Entry entry;
+		final int part;
+		
+		String threadName;
+		long startNanos;
+		long endNanos;
+		PhaseStats parseStats;
+		PhaseStats partStats;
+		Object answer;
+		String error;
+		boolean failed;
+		
+		Task(Solvers.Entry entry, int part) {
+			this.entry = entry;
+			this.part = part;
+		}
+		
+		protected void compute() {
+			threadName = Thread.currentThread().getName();
+			startNanos = System.nanoTime();
+			try {
+				Solver solver = entry.create();
+				Metrics.Scope scope = Metrics.start(entry.name + ".parse");
+				Snapshot.parse(solver, entry.getDefaultInput());
+				parseStats = scope.stop();
+				
+				scope = Metrics.start(getLabel());
+				answer = part == 1 ? solver.part1() : solver.part2();
+				partStats = scope.stop();
+			}
+			catch(UnsupportedOperationException e) {
+				error = "skipped (" + e.getMessage() + ")";
+			}
+			catch(Exception | StackOverflowError e) {
+				error = e.toString();
+				failed = true;
+			}
+			endNanos = System.nanoTime();
+		}
+		
+		String getLabel() {
+			return entry.name + ".part" + part;
+		}
+		
+		long getNanos() {
+			return endNanos - startNanos;
+		}
+		
+	}
+	
+	int threads = Runtime.getRuntime().availableProcessors();
+	
+	public Batch setThreads(int threads) {
+		this.threads = threads;
+		return this;
+	}
+	
+	public List<Task> run(List<Solvers.Entry> entries, List<Integer> parts) {
+		List<Task> tasks = new ArrayList<>();
+		for (Solvers.Entry entry : entries) {
+			for (int part : parts)
+				tasks.add(new Task(entry, part));
+		}
+		
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			long t0 = System.nanoTime();
+			for (Task task : tasks)
+				pool.execute(task);
+			//join() rethrows an Error from any task, which ends the batch:
+			for (Task task : tasks)
+				task.join();
+			long wallNanos = System.nanoTime() - t0;
+			
+			System.out.println(printResults(tasks, wallNanos, threads));
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return tasks;
+	}
+	
+	public static String printResults(List<Task> tasks, long wallNanos, int threads) {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format("%-20s %-28s %12s %12s %12s %12s  %s%n",
+				"Task", "Thread", "parse(ms)", "solve(ms)", "total(ms)", "alloc", "answer"));
+		
+		long serialNanos = 0;
+		Task slowest = null;
+		for (Task task : tasks) {
+			serialNanos += task.getNanos();
+			if (slowest == null || task.getNanos() > slowest.getNanos())
+				slowest = task;
+			
+			s.append(String.format("%-20s %-28s %12s %12s %12.3f %12s  %s%n",
+					task.getLabel(), task.threadName,
+					task.parseStats == null ? "-" : String.format("%.3f", task.parseStats.getMillis()),
+					task.partStats == null ? "-" : String.format("%.3f", task.partStats.getMillis()),
+					task.getNanos() / 1e6,
+					task.partStats == null ? "-" : PhaseStats.formatBytes(task.parseStats.allocatedBytes + task.partStats.allocatedBytes),
+					task.error != null ? task.error : task.answer));
+		}
+		
+		//slowest tasks first, as these bound the batch:
+		List<Task> sorted = new ArrayList<>(tasks);
+		Collections.sort(sorted, new Comparator<Task>() {
+			public int compare(Task a, Task b) {
+				return Long.compare(b.getNanos(), a.getNanos());
+			}
+		});
+		
+		s.append(String.format("%n%d tasks on %d threads%n", tasks.size(), threads));
+		s.append(String.format("  wall time:      %12.3f ms%n", wallNanos / 1e6));
+		s.append(String.format("  sum of tasks:   %12.3f ms (speedup %.2fx)%n",
+				serialNanos / 1e6, serialNanos / (double)Math.max(1, wallNanos)));
+		if (slowest != null) {
+			s.append(String.format("  critical path:  %12.3f ms (%s, %.0f%% of wall time)%n",
+					slowest.getNanos() / 1e6, slowest.getLabel(), 100.0 * slowest.getNanos() / Math.max(1, wallNanos)));
+			s.append(String.format("  lower bound:    %12.3f ms (max of critical path and sum / threads)%n",
+					Math.max(slowest.getNanos(), serialNanos / threads) / 1e6));
+		}
+		s.append("  slowest:");
+		for (int i=0; i<Math.min(5, sorted.size()); i++)
+			s.append(String.format(" %s=%.0fms", sorted.get(i).getLabel(), sorted.get(i).getNanos() / 1e6));
+		s.append(String.format("%n"));
+		return s.toString();
+	}
+	
+	public static void main(String [] args) {
+		try {
+			Batch batch = new Batch();
+			Log.setLevel(Log.Level.OFF);
+			List<Integer> parts = new ArrayList<>();
+			List<String> names = new ArrayList<>();
+			
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-threads"))
+					batch.setThreads(Integer.parseInt(args[++i]));
+				else if (arg.equals("-part")) {
+					int part = Integer.parseInt(args[++i]);
+					if (part != 1 && part != 2)
+						throw new IllegalArgumentException("Invalid part: " + part);
+					parts.add(part);
+				}
+				else if (arg.equals("-log"))
+					Log.setLevel(Log.parseLevel(args[++i]));
+				else if (arg.equals("-metrics"))
+					Metrics.setOutput(Paths.get(args[++i]));
+				else if (arg.equals("-snapshots"))
+					Snapshot.setDirectory(Paths.get(args[++i]));
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else
+					names.add(arg);
+			}
+			if (parts.isEmpty())
+				parts = List.of(1, 2);
+			
+			boolean failed = false;
+			for (Task task : batch.run(Solvers.select(names), parts))
+				failed |= task.failed;
+			Metrics.flush();
+			if (failed)
+				System.exit(1);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+	
+}
@@ -0,0 +1,168 @@
+package common;
+
+import java.util.Arrays;
+
+import common.geometry.LongIntMap;
+
+/**
+ * Finds where a step-by-step simulation starts repeating and uses that
+ * to jump to a step count far beyond what could be simulated, such as
+ * the height of a tower after 10^12 rocks.
+ *
+ * The simulation supplies a fingerprint of its state after each step.
+ * When a fingerprint is seen again, the steps since its first sighting
+ * are taken as the period, and the metric is assumed to grow by the
+ * same amount every period from then on.  Fingerprints may be hashes
+ * (or approximations of the state, like the top of a tower), so before
+ * a cycle is accepted it is run once more and every fingerprint and
+ * metric increment is checked against the previous period.
+ *
+ * Usage:
+ *
+ *   CycleDetector detector = new CycleDetector();
+ *   long height = detector.extrapolate(simulation, 1_000_000_000_000L);
+ */
+public class CycleDetector {
+
+	/**
+	 * A deterministic simulation that can be advanced one step at a time
+	 */
+	public static interface Simulation {
+
+		public void step();
+
+		/**
+		 * Returns a value that is equal for states that go on to behave
+		 * the same
+		 */
+		public long getFingerprint();
+
+		/**
+		 * Returns the value being extrapolated, which should grow by the
+		 * same amount each period once the simulation cycles
+		 */
+		public long getMetric();
+
+	}
+
+	int maxSteps;
+
+	//per step, starting with the state before the first step:
+	long [] fingerprints = new long[1024];
+	long [] metrics = new long[1024];
+	int stepCount;
+
+	int offset = -1;
+	int period = -1;
+
+	public CycleDetector() {
+		this(10_000_000);
+	}
+	/**
+	 * Gives up if no cycle is found within maxSteps steps
+	 */
+	public CycleDetector(int maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
+	/**
+	 * Returns the step at which the cycle starts, or -1 if none was found
+	 */
+	public int getOffset() {
+		return offset;
+	}
+	/**
+	 * Returns the length of the cycle, or -1 if none was found
+	 */
+	public int getPeriod() {
+		return period;
+	}
+	/**
+	 * Returns the number of steps actually simulated
+	 */
+	public int getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * Returns the metric after the target number of steps, simulating
+	 * only until a cycle is confirmed (or the target is reached)
+	 */
+	public long extrapolate(Simulation simulation, long targetSteps) {
+		stepCount = 0;
+		offset = -1;
+		period = -1;
+		record(simulation, 0);
+
+		//first step at which each fingerprint was seen:
+		LongIntMap firstSeen = new LongIntMap(1024);
+		firstSeen.put(fingerprints[0], 0);
+
+		//a possible cycle, waiting until it has run twice to be checked:
+		int candidateStart = -1;
+		int candidatePeriod = -1;
+
+		while (stepCount < targetSteps) {
+			if (stepCount >= maxSteps)
+				throw new IllegalStateException("No cycle found within " + maxSteps + " steps");
+
+			simulation.step();
+			record(simulation, ++stepCount);
+
+			long fingerprint = fingerprints[stepCount];
+			int seen = firstSeen.get(fingerprint, -1);
+			if (seen < 0)
+				firstSeen.put(fingerprint, stepCount);
+			else if (candidateStart < 0) {
+				candidateStart = seen;
+				candidatePeriod = stepCount - seen;
+			}
+
+			if (candidateStart >= 0 && stepCount == candidateStart + 2 * candidatePeriod) {
+				if (isCycle(candidateStart, candidatePeriod)) {
+					offset = candidateStart;
+					period = candidatePeriod;
+					break;
+				}
+				//the match was a coincidence, or came before the cycle
+				//began, so compare against the later sighting from now on:
+				int later = candidateStart + candidatePeriod;
+				firstSeen.put(fingerprints[later], later);
+				candidateStart = -1;
+			}
+		}
+
+		if (targetSteps <= stepCount)
+			return metrics[(int)targetSteps];
+
+		long cycles = (targetSteps - offset) / period;
+		int remainder = (int)((targetSteps - offset) % period);
+		long growth = metrics[offset + period] - metrics[offset];
+		return metrics[offset + remainder] + cycles * growth;
+	}
+
+	/**
+	 * Returns true if the steps from start repeat exactly after period
+	 * steps, both in fingerprint and in how much the metric changes
+	 */
+	boolean isCycle(int start, int period) {
+		long growth = metrics[start + period] - metrics[start];
+		for (int i=start; i<=start + period; i++) {
+			if (fingerprints[i] != fingerprints[i + period])
+				return false;
+			if (metrics[i + period] - metrics[i] != growth)
+				return false;
+		}
+		return true;
+	}
+
+	void record(Simulation simulation, int step) {
+		if (step >= fingerprints.length) {
+			fingerprints = Arrays.copyOf(fingerprints, fingerprints.length * 2);
+			metrics = Arrays.copyOf(metrics, metrics.length * 2);
+		}
+		fingerprints[step] = simulation.getFingerprint();
+		metrics[step] = simulation.getMetric();
+	}
+
+}
@@ -32,5 +32,16 @@ public class FileUtil {
 		}
 		return lines;
 	}
-	
+
+	/**
+	 * Visits each line of the file through a memory-mapped, zero-copy
+	 * LineView.  Use this in place of readLinesFromFile() for large
+	 * inputs so that heap use does not grow with the file size.
+	 */
+	public static void forEachLine(File file, MappedLineReader.LineVisitor visitor) throws IOException {
+		try (MappedLineReader reader = MappedLineReader.open(file)) {
+			reader.forEachLine(visitor);
+		}
+	}
+
 }
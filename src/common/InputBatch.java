@@ -0,0 +1,369 @@
+package common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Solves one day for many inputs in a single JVM, such as one input per
+ * account, so the JIT stays warm and startup is paid once rather than
+ * per input.
+ *
+ * Inputs are the files in each directory given (sorted by name), files
+ * given directly, and the files listed in any -manifest (one path per
+ * line, relative to the manifest, with blank lines and lines starting
+ * with # ignored).  Each input is one task on a fixed pool of -threads
+ * threads, which caps how many are solved at once: the task creates a
+ * Solver, parses the input and solves the selected parts.  Results are
+ * written to the sink as tasks finish, not in input order, and flushed
+ * one at a time, so a long batch can be followed (or resumed) as it goes.
+ *
+ * The sink is CSV by default, or JSON lines with -format jsonl, with a
+ * record per input:
+ *
+ *   input,parseMillis,part1,part1Millis,part2,part2Millis,allocatedBytes,error
+ *
+ * Parts that weren't selected or aren't solved are left empty.
+ *
+ * Usage: InputBatch [-threads n] [-part 1|2]... [-manifest path]... [-out path] [-format csv|jsonl]
+ *                   [-log level] [-metrics path] [-snapshots dir] name [dir|file]...
+ *
+ * Without -out, results go to standard output and the summary to
+ * standard error.  Solver logging is off unless -log is given.  Exits
+ * with status 1 if any input failed.
+ */
+public class InputBatch {
+
+	/**
+	 * The outcome for one input
+	 */
+	public static class Result {
+
+		public final Path input;
+		public PhaseStats parseStats;
+		public final Object [] answers = new Object[3];
+		public final PhaseStats [] partStats = new PhaseStats[3];
+		public String error;
+
+		public Result(Path input) {
+			this.input = input;
+		}
+
+		public long getAllocatedBytes() {
+			long bytes = parseStats == null ? 0 : parseStats.allocatedBytes;
+			for (PhaseStats stats : partStats) {
+				if (stats != null)
+					bytes += stats.allocatedBytes;
+			}
+			return bytes;
+		}
+
+	}
+
+	/**
+	 * Receives results as they finish, always on the same thread
+	 */
+	public static interface Sink {
+
+		public void write(Result result) throws IOException;
+
+		/**
+		 * Flushes the results, closing the output unless it's shared
+		 * (such as standard output)
+		 */
+		public void close() throws IOException;
+
+	}
+
+	public static class CsvSink implements Sink {
+
+		final PrintWriter out;
+		final boolean shared;
+
+		public CsvSink(PrintWriter out) {
+			this(out, false);
+		}
+		public CsvSink(PrintWriter out, boolean shared) {
+			this.out = out;
+			this.shared = shared;
+			out.println("input,parseMillis,part1,part1Millis,part2,part2Millis,allocatedBytes,error");
+			out.flush();
+		}
+
+		public void write(Result result) {
+			StringBuilder s = new StringBuilder();
+			s.append(quote(result.input.toString())).append(',');
+			s.append(formatMillis(result.parseStats));
+			for (int part=1; part<=2; part++) {
+				s.append(',').append(result.answers[part] == null ? "" : quote(result.answers[part].toString()));
+				s.append(',').append(formatMillis(result.partStats[part]));
+			}
+			s.append(',').append(result.getAllocatedBytes());
+			s.append(',').append(result.error == null ? "" : quote(result.error));
+			out.println(s);
+			out.flush();
+		}
+
+		public void close() {
+			if (shared)
+				out.flush();
+			else
+				out.close();
+		}
+
+		/**
+		 * Quotes a field if it has a comma, quote or line break in it
+		 */
+		static String quote(String text) {
+			for (int i=0; i<text.length(); i++) {
+				char ch = text.charAt(i);
+				if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r')
+					return '"' + text.replace("\"", "\"\"") + '"';
+			}
+			return text;
+		}
+
+	}
+
+	public static class JsonLinesSink implements Sink {
+
+		final PrintWriter out;
+		final boolean shared;
+
+		public JsonLinesSink(PrintWriter out) {
+			this(out, false);
+		}
+		public JsonLinesSink(PrintWriter out, boolean shared) {
+			this.out = out;
+			this.shared = shared;
+		}
+
+		public void write(Result result) {
+			StringBuilder s = new StringBuilder();
+			s.append("{\"input\":").append(Metrics.quote(result.input.toString()));
+			s.append(",\"parseMillis\":").append(formatMillis(result.parseStats, "null"));
+			for (int part=1; part<=2; part++) {
+				Object answer = result.answers[part];
+				s.append(",\"part").append(part).append("\":");
+				s.append(answer == null ? "null" : Metrics.quote(answer.toString()));
+				s.append(",\"part").append(part).append("Millis\":");
+				s.append(formatMillis(result.partStats[part], "null"));
+			}
+			s.append(",\"allocatedBytes\":").append(result.getAllocatedBytes());
+			s.append(",\"error\":").append(result.error == null ? "null" : Metrics.quote(result.error));
+			out.println(s.append('}'));
+			out.flush();
+		}
+
+		public void close() {
+			if (shared)
+				out.flush();
+			else
+				out.close();
+		}
+
+	}
+
+	static String formatMillis(PhaseStats stats) {
+		return formatMillis(stats, "");
+	}
+	static String formatMillis(PhaseStats stats, String missing) {
+		return stats == null ? missing : String.format(Locale.ROOT, "%.3f", stats.getMillis());
+	}
+
+	int threads = Runtime.getRuntime().availableProcessors();
+	List<Integer> parts = List.of(1, 2);
+
+	public InputBatch setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid thread count: " + threads);
+		this.threads = threads;
+		return this;
+	}
+	public InputBatch setParts(List<Integer> parts) {
+		for (int part : parts) {
+			if (part != 1 && part != 2)
+				throw new IllegalArgumentException("Invalid part: " + part);
+		}
+		this.parts = parts;
+		return this;
+	}
+
+	/**
+	 * Solves every input, writing each result to the sink as it finishes.
+	 * Returns the number of inputs that failed.
+	 */
+	public int run(final Solvers.Entry entry, List<Path> inputs, Sink sink) throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			CompletionService<Result> completion = new ExecutorCompletionService<>(pool);
+			for (final Path input : inputs) {
+				completion.submit(new Callable<Result>() {
+					public Result call() {
+						return solve(entry, input);
+					}
+				});
+			}
+
+			int failures = 0;
+			for (int i=0; i<inputs.size(); i++) {
+				Result result = completion.take().get();
+				if (result.error != null)
+					failures++;
+				sink.write(result);
+			}
+			return failures;
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	Result solve(Solvers.Entry entry, Path input) {
+		Result result = new Result(input);
+		try {
+			Solver solver = entry.create();
+			Metrics.Scope scope = Metrics.start(entry.name + ".parse");
+			Snapshot.parse(solver, input);
+			result.parseStats = scope.stop();
+
+			for (int part : parts) {
+				try {
+					scope = Metrics.start(entry.name + ".part" + part);
+					result.answers[part] = part == 1 ? solver.part1() : solver.part2();
+					result.partStats[part] = scope.stop();
+				}
+				catch(UnsupportedOperationException e) {
+					//not solved, so left empty
+				}
+			}
+		}
+		//other Errors (such as running out of memory with several inputs in
+		//flight) abort the batch rather than being recorded against one input:
+		catch(Exception | StackOverflowError e) {
+			result.error = e.toString();
+		}
+		Metrics.count("batch.inputs");
+		return result;
+	}
+
+	/**
+	 * Adds the files in a directory (sorted by name), or the file itself
+	 */
+	public static void addInputs(Path path, List<Path> inputs) throws IOException {
+		if (!Files.isDirectory(path)) {
+			inputs.add(path);
+			return;
+		}
+		List<Path> files = new ArrayList<>();
+		try (Stream<Path> list = Files.list(path)) {
+			list.filter(Files::isRegularFile).forEach(files::add);
+		}
+		Collections.sort(files);
+		inputs.addAll(files);
+	}
+
+	/**
+	 * Adds the files listed in a manifest, resolved against its directory
+	 */
+	public static void addManifest(Path manifest, List<Path> inputs) throws IOException {
+		Path dir = manifest.toAbsolutePath().getParent();
+		for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			inputs.add(dir.resolve(line).normalize());
+		}
+	}
+
+	public static void main(String [] args) {
+		try {
+			InputBatch batch = new InputBatch();
+			Log.setLevel(Log.Level.OFF);
+			List<Integer> parts = new ArrayList<>();
+			List<Path> inputs = new ArrayList<>();
+			String name = null;
+			Path outPath = null;
+			String format = "csv";
+
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-threads"))
+					batch.setThreads(Integer.parseInt(args[++i]));
+				else if (arg.equals("-part"))
+					parts.add(Integer.parseInt(args[++i]));
+				else if (arg.equals("-manifest"))
+					addManifest(Paths.get(args[++i]), inputs);
+				else if (arg.equals("-out"))
+					outPath = Paths.get(args[++i]);
+				else if (arg.equals("-format"))
+					format = args[++i];
+				else if (arg.equals("-log"))
+					Log.setLevel(Log.parseLevel(args[++i]));
+				else if (arg.equals("-metrics"))
+					Metrics.setOutput(Paths.get(args[++i]));
+				else if (arg.equals("-snapshots"))
+					Snapshot.setDirectory(Paths.get(args[++i]));
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else if (name == null)
+					name = arg;
+				else
+					addInputs(Paths.get(arg), inputs);
+			}
+			if (name == null)
+				throw new IllegalArgumentException("No solver name given");
+			if (!parts.isEmpty())
+				batch.setParts(parts);
+			Solvers.Entry entry = Solvers.select(List.of(name)).get(0);
+
+			PrintWriter out = outPath == null ?
+					new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) :
+					new PrintWriter(new BufferedWriter(Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)));
+			Sink sink;
+			if (format.equals("csv"))
+				sink = new CsvSink(out, outPath == null);
+			else if (format.equals("jsonl"))
+				sink = new JsonLinesSink(out, outPath == null);
+			else
+				throw new IllegalArgumentException("Unknown format: " + format);
+
+			long t0 = System.nanoTime();
+			int failures;
+			try {
+				failures = batch.run(entry, inputs, sink);
+			}
+			finally {
+				sink.close();
+			}
+			long wallNanos = System.nanoTime() - t0;
+
+			System.err.println(String.format("%s: %d inputs (%d failed) on %d threads in %.3f ms, %.3f ms per input",
+					entry.name, inputs.size(), failures, batch.threads, wallNanos / 1e6,
+					wallNanos / 1e6 / Math.max(1, inputs.size())));
+			Metrics.flush();
+			if (failures > 0)
+				System.exit(1);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package common;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+/**
+ * Writes a valid puzzle input for one day.  At scale 1 the output is
+ * roughly the size of the real input; larger scales grow it (about
+ * linearly in bytes) so the solvers can be stressed.  All randomness
+ * comes from the given Random, so a fixed seed gives the same file.
+ * 
+ * Generators are registered in common.bench.Generators.
+ */
+public interface InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out);
+	
+}
@@ -0,0 +1,314 @@
+package common;
+
+import java.util.Arrays;
+
+/**
+ * A set of longs stored as sorted, disjoint closed intervals [start, end].
+ * Intervals that overlap or touch are merged as they're added, so the
+ * set is always in its simplest form: each interval is separated from
+ * the next by at least one value that isn't in the set.
+ *
+ * The intervals live in two parallel long arrays, so lookups are binary
+ * searches and nothing is allocated per interval.  Adding or removing a
+ * single interval finds its place in O(log n) and then shifts the tail
+ * of the arrays with one arraycopy.  To add many intervals at once, use
+ * build(), which sorts and merges them in O(n log n).
+ *
+ * Usage:
+ *
+ *   IntervalSet set = new IntervalSet();
+ *   set.build(starts, ends, count);
+ *   long gap = set.firstGap(0, 4000000);
+ *   if (gap != IntervalSet.NONE)
+ *       ...
+ */
+public class IntervalSet {
+
+	/**
+	 * Returned by firstGap() when there is no gap
+	 */
+	public static final long NONE = Long.MIN_VALUE;
+
+	long [] starts;
+	long [] ends;
+	int size;
+	long length;
+
+	public IntervalSet() {
+		this(16);
+	}
+	public IntervalSet(int capacity) {
+		capacity = Math.max(capacity, 4);
+		this.starts = new long[capacity];
+		this.ends = new long[capacity];
+	}
+
+	/**
+	 * Returns the number of intervals
+	 */
+	public int size() {
+		return size;
+	}
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public long getStart(int index) {
+		return starts[index];
+	}
+	public long getEnd(int index) {
+		return ends[index];
+	}
+
+	/**
+	 * Returns the number of values in the set, the total length of the
+	 * union of everything added
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	public void clear() {
+		size = 0;
+		length = 0;
+	}
+
+	// --- Queries ------------------------------------------------------------
+
+	public boolean contains(long value) {
+		int i = firstEndingFrom(value);
+		return i < size && starts[i] <= value;
+	}
+
+	/**
+	 * Returns true if every value from start to end is in the set
+	 */
+	public boolean contains(long start, long end) {
+		int i = firstEndingFrom(start);
+		return i < size && starts[i] <= start && ends[i] >= end;
+	}
+
+	/**
+	 * Returns true if any value from start to end is in the set
+	 */
+	public boolean overlaps(long start, long end) {
+		int i = firstEndingFrom(start);
+		return i < size && starts[i] <= end;
+	}
+
+	/**
+	 * Returns how many of the values from start to end are in the set
+	 */
+	public long countCovered(long start, long end) {
+		long count = 0;
+		for (int i=firstEndingFrom(start); i<size && starts[i] <= end; i++)
+			count += Math.min(end, ends[i]) - Math.max(start, starts[i]) + 1;
+		return count;
+	}
+
+	/**
+	 * Returns the first value from start to end that isn't in the set, or
+	 * NONE if they all are
+	 */
+	public long firstGap(long start, long end) {
+		int i = firstEndingFrom(start);
+		if (i == size || starts[i] > start)
+			return start;
+		//the value after an interval is never in the next one:
+		return ends[i] >= end ? NONE : ends[i] + 1;
+	}
+
+	// --- Updates ------------------------------------------------------------
+
+	/**
+	 * Adds the values from start to end, merging with any intervals they
+	 * overlap or touch
+	 */
+	public void add(long start, long end) {
+		checkInterval(start, end);
+		int lo = firstEndingFrom(start == Long.MIN_VALUE ? start : start - 1);
+		int hi = firstStartingAfter(end == Long.MAX_VALUE ? end : end + 1) - 1;
+		if (lo <= hi) {
+			start = Math.min(start, starts[lo]);
+			end = Math.max(end, ends[hi]);
+		}
+		splice(lo, hi, 1);
+		starts[lo] = start;
+		ends[lo] = end;
+		length += end - start + 1;
+	}
+
+	/**
+	 * Removes the values from start to end, returning true if any were
+	 * in the set
+	 */
+	public boolean remove(long start, long end) {
+		checkInterval(start, end);
+		int lo = firstEndingFrom(start);
+		int hi = firstStartingAfter(end) - 1;
+		if (lo > hi)
+			return false;
+
+		long leftStart = starts[lo];
+		long rightEnd = ends[hi];
+		boolean left = leftStart < start;
+		boolean right = rightEnd > end;
+		int index = splice(lo, hi, (left ? 1 : 0) + (right ? 1 : 0));
+		if (left) {
+			starts[index] = leftStart;
+			ends[index] = start - 1;
+			length += start - leftStart;
+			index++;
+		}
+		if (right) {
+			starts[index] = end + 1;
+			ends[index] = rightEnd;
+			length += rightEnd - end;
+		}
+		return true;
+	}
+
+	/**
+	 * Replaces the contents with the union of the first count intervals in
+	 * the arrays, which may be in any order and may overlap.  The arrays
+	 * are sorted in place (starts and ends separately, which is enough to
+	 * find the union) so they can be reused as scratch space.
+	 */
+	public void build(long [] starts, long [] ends, int count) {
+		for (int i=0; i<count; i++)
+			checkInterval(starts[i], ends[i]);
+		Arrays.sort(starts, 0, count);
+		Arrays.sort(ends, 0, count);
+
+		clear();
+		//with both sorted, the union only breaks where the next start
+		//comes after the end that many intervals in:
+		int first = 0;
+		for (int i=0; i<count; i++) {
+			if (i + 1 < count && touches(ends[i], starts[i + 1]))
+				continue;
+			append(starts[first], ends[i]);
+			first = i + 1;
+		}
+	}
+
+	public IntervalSet copy() {
+		IntervalSet copy = new IntervalSet(size);
+		System.arraycopy(starts, 0, copy.starts, 0, size);
+		System.arraycopy(ends, 0, copy.ends, 0, size);
+		copy.size = size;
+		copy.length = length;
+		return copy;
+	}
+
+	// --- Single intervals ---------------------------------------------------
+
+	/**
+	 * Returns true if [start, end] lies entirely within [outerStart, outerEnd]
+	 */
+	public static boolean contains(long outerStart, long outerEnd, long start, long end) {
+		return start >= outerStart && end <= outerEnd;
+	}
+
+	/**
+	 * Returns true if the closed intervals have any value in common
+	 */
+	public static boolean overlaps(long start1, long end1, long start2, long end2) {
+		return start1 <= end2 && start2 <= end1;
+	}
+
+	// --- Internals ----------------------------------------------------------
+
+	static void checkInterval(long start, long end) {
+		if (start > end)
+			throw new IllegalArgumentException("Invalid interval: [" + start + ", " + end + "]");
+	}
+
+	/**
+	 * Returns true if an interval ending at end merges with one starting
+	 * at start, written so as not to overflow
+	 */
+	static boolean touches(long end, long start) {
+		return start <= end || start - 1 == end;
+	}
+
+	/**
+	 * Returns the index of the first interval that ends at or after the
+	 * value, or size if there is none
+	 */
+	int firstEndingFrom(long value) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] < value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Returns the index of the first interval that starts after the value,
+	 * or size if there is none
+	 */
+	int firstStartingAfter(long value) {
+		int lo = 0;
+		int hi = size;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (starts[mid] <= value)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Replaces the intervals from lo to hi (inclusive, and empty if hi is
+	 * lo - 1) with count unset slots, returning the index of the first
+	 */
+	int splice(int lo, int hi, int count) {
+		for (int i=lo; i<=hi; i++)
+			length -= ends[i] - starts[i] + 1;
+
+		int removed = hi - lo + 1;
+		int newSize = size - removed + count;
+		if (newSize > starts.length) {
+			int capacity = Math.max(newSize, starts.length * 2);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+		}
+		int tail = size - (hi + 1);
+		if (tail > 0 && removed != count) {
+			System.arraycopy(starts, hi + 1, starts, lo + count, tail);
+			System.arraycopy(ends, hi + 1, ends, lo + count, tail);
+		}
+		size = newSize;
+		return lo;
+	}
+
+	void append(long start, long end) {
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		size++;
+		length += end - start + 1;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder("[");
+		for (int i=0; i<size; i++) {
+			if (i > 0)
+				s.append(", ");
+			s.append(starts[i]).append('-').append(ends[i]);
+		}
+		return s.append(']').toString();
+	}
+
+}
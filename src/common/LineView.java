@@ -0,0 +1,102 @@
+package common;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable, zero-copy view of a single line within a ByteBuffer.
+ * Characters are assumed to be single-byte (ASCII), which holds for
+ * all of the puzzle inputs.  The view is repositioned in place by
+ * MappedLineReader, so it is only valid until the next line is read.
+ * Call toString() if the text needs to be kept.
+ */
+public class LineView implements CharSequence {
+
+	ByteBuffer buffer;
+	int start;
+	int end;
+
+	public LineView(ByteBuffer buffer, int start, int end) {
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+	}
+
+	void set(ByteBuffer buffer, int start, int end) {
+		this.buffer = buffer;
+		this.start = start;
+		this.end = end;
+	}
+
+	public ByteBuffer buffer() {
+		return buffer;
+	}
+	/**
+	 * Absolute offset of the first character in the underlying buffer
+	 */
+	public int start() {
+		return start;
+	}
+	/**
+	 * Absolute offset just past the last character in the underlying buffer
+	 */
+	public int end() {
+		return end;
+	}
+
+	@Override
+	public int length() {
+		return end - start;
+	}
+
+	public boolean isEmpty() {
+		return end == start;
+	}
+
+	@Override
+	public char charAt(int index) {
+		return (char)(buffer.get(start + index) & 0xFF);
+	}
+
+	/**
+	 * Narrows this view to exclude leading and trailing whitespace.  Unlike
+	 * String.trim() this modifies the view in place and returns it.
+	 */
+	public LineView trim() {
+		while (start < end && buffer.get(start) <= ' ')
+			start++;
+		while (end > start && buffer.get(end-1) <= ' ')
+			end--;
+		return this;
+	}
+
+	public boolean contentEquals(CharSequence text) {
+		int len = length();
+		if (text.length() != len)
+			return false;
+		for (int i=0; i<len; i++) {
+			if (charAt(i) != text.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a new (independent) view of the given range.  Unlike
+	 * the line views handed out by MappedLineReader, this is not reused.
+	 */
+	@Override
+	public LineView subSequence(int start, int end) {
+		if (start < 0 || end > length() || start > end)
+			throw new IndexOutOfBoundsException("Invalid range: " + start + " - " + end);
+		return new LineView(buffer, this.start + start, this.start + end);
+	}
+
+	@Override
+	public String toString() {
+		char [] chars = new char[length()];
+		for (int i=0; i<chars.length; i++)
+			chars[i] = charAt(i);
+		return new String(chars);
+	}
+
+}
@@ -0,0 +1,96 @@
+package common;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Leveled diagnostic output for the solvers.  Messages go to a buffered
+ * sink on stdout that is flushed by Runner after each phase (and on
+ * exit), so printing in a loop no longer costs a console write per line.
+ * Warnings and errors go straight to stderr.
+ *
+ * The level defaults to INFO and can be set with -Dlog.level=debug or
+ * setLevel().  In hot loops, guard the call so a disabled message costs
+ * only a field read and its text is never built:
+ *
+ *   if (Log.isTraceEnabled())
+ *       Log.trace("Moving from " + from + " to " + to);
+ *
+ * Benchmarks and Batch run with the level OFF.
+ */
+public class Log {
+
+	public static enum Level {TRACE, DEBUG, INFO, WARN, ERROR, OFF};
+
+	static int level = parseLevel(System.getProperty("log.level", "info")).ordinal();
+
+	static final PrintWriter out = new PrintWriter(new BufferedWriter(
+			new OutputStreamWriter(System.out), 1 << 16), false);
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	public static Level parseLevel(String text) {
+		return Level.valueOf(text.trim().toUpperCase());
+	}
+
+	public static Level getLevel() {
+		return Level.values()[level];
+	}
+	public static void setLevel(Level level) {
+		flush();
+		Log.level = level.ordinal();
+	}
+
+	public static boolean isEnabled(Level level) {
+		return level.ordinal() >= Log.level;
+	}
+	public static boolean isTraceEnabled() {
+		return level <= 0;
+	}
+	public static boolean isDebugEnabled() {
+		return level <= 1;
+	}
+
+	public static void trace(String message) {
+		log(Level.TRACE, message);
+	}
+	public static void debug(String message) {
+		log(Level.DEBUG, message);
+	}
+	public static void info(String message) {
+		log(Level.INFO, message);
+	}
+	public static void warn(String message) {
+		log(Level.WARN, "WARNING: " + message);
+	}
+	public static void error(String message) {
+		log(Level.ERROR, "ERROR: " + message);
+	}
+
+	public static void log(Level level, String message) {
+		if (level.ordinal() < Log.level)
+			return;
+		if (level.ordinal() >= Level.WARN.ordinal()) {
+			flush();
+			System.err.println(message);
+		} else {
+			out.println(message);
+		}
+	}
+
+	/**
+	 * Writes buffered messages to stdout.  Call before printing directly
+	 * to System.out so output stays in order.
+	 */
+	public static void flush() {
+		out.flush();
+	}
+
+}
@@ -0,0 +1,123 @@
+package common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads lines from a memory-mapped file without copying them into
+ * Strings.  Lines are handed out as a single LineView that is moved
+ * along the file as we iterate, so nothing is allocated per line and
+ * the file is never held on the heap.  Both '\n' and "\r\n" line
+ * endings are supported.
+ *
+ * Usage:
+ *
+ *   try (MappedLineReader reader = MappedLineReader.open(file)) {
+ *       for (LineView line : reader)
+ *           ...
+ *   }
+ */
+public class MappedLineReader implements Iterable<LineView>, Closeable {
+
+	/**
+	 * Callback for visiting lines.  Return false to stop reading.
+	 */
+	public static interface LineVisitor {
+
+		public boolean visit(LineView line);
+
+	}
+
+	FileChannel channel;
+	MappedByteBuffer buffer;
+
+	public MappedLineReader(File file) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File too large to map: " + file + " (" + size + " bytes)");
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public static MappedLineReader open(File file) throws IOException {
+		return new MappedLineReader(file);
+	}
+
+	public MappedByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	/**
+	 * Returns a lazy iterator over the lines of the file.  The same
+	 * LineView instance is returned by each call to next().
+	 */
+	public Iterator<LineView> iterator() {
+		return new LineIterator();
+	}
+
+	/**
+	 * Visits each line in the file until the visitor returns false
+	 */
+	public void forEachLine(LineVisitor visitor) {
+		for (LineView line : this) {
+			if (!visitor.visit(line))
+				break;
+		}
+	}
+
+	/**
+	 * Counts the lines in the file without visiting them
+	 */
+	public int countLines() {
+		int count = 0;
+		for (Iterator<LineView> it = iterator(); it.hasNext(); it.next())
+			count++;
+		return count;
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	class LineIterator implements Iterator<LineView> {
+
+		LineView line = new LineView(buffer, 0, 0);
+		int position = 0;
+		int limit = buffer.limit();
+
+		public boolean hasNext() {
+			return position < limit;
+		}
+
+		public LineView next() {
+			if (position >= limit)
+				throw new NoSuchElementException();
+
+			int start = position;
+			int end = start;
+			while (end < limit && buffer.get(end) != '\n')
+				end++;
+
+			position = end + 1;
+			if (end > start && buffer.get(end-1) == '\r')
+				end--;
+
+			line.set(buffer, start, end);
+			return line;
+		}
+
+	}
+
+}
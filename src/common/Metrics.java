@@ -0,0 +1,318 @@
+package common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+/**
+ * Named timers and counters for seeing where time and memory go.
+ *
+ * A timer is a scope around a block of work.  When it stops, its
+ * PhaseStats (wall time, bytes allocated by the thread, and GC count
+ * and pause time) are added to the totals for its name:
+ *
+ *   Metrics.Scope scope = Metrics.start("day16.build");
+ *   try {
+ *       ...
+ *   }
+ *   finally {
+ *       scope.stop();
+ *   }
+ *
+ * (A try-with-resources block works too, but javac -Xlint:try warns
+ * about a resource that the body never uses.)
+ *
+ * Counters are totals that any thread can add to:
+ *
+ *   Metrics.count("search.nodes", nodes);
+ *
+ * The totals are published over JMX as "common:type=Metrics".  If an
+ * output file is set (-Dmetrics.out=path, or -metrics in Runner and
+ * Batch), each closed scope is also appended to it as a JSON line, and
+ * flush() appends the counters.  Runner times every parse and part as
+ * "dayNN.parse", "dayNN.part1" and "dayNN.part2".
+ */
+public class Metrics {
+
+	/**
+	 * A timed block of work on one thread
+	 */
+	public static class Scope implements AutoCloseable {
+
+		final String name;
+		final PhaseStats stats;
+		boolean stopped;
+
+		Scope(String name) {
+			this.name = name;
+			this.stats = PhaseStats.start();
+		}
+
+		/**
+		 * Stops the timer and records it, returning what was measured.
+		 * Only the first call records anything.
+		 */
+		public PhaseStats stop() {
+			if (!stopped) {
+				stopped = true;
+				stats.stop();
+				record(name, stats);
+			}
+			return stats;
+		}
+
+		public void close() {
+			stop();
+		}
+
+	}
+
+	/**
+	 * Totals for all scopes with the same name
+	 */
+	public static class Timer {
+
+		long count;
+		long nanos;
+		long maxNanos;
+		long allocatedBytes;
+		long gcCount;
+		long gcMillis;
+
+		synchronized void add(PhaseStats stats) {
+			count++;
+			nanos += stats.nanos;
+			maxNanos = Math.max(maxNanos, stats.nanos);
+			allocatedBytes += stats.allocatedBytes;
+			gcCount += stats.gcCount;
+			gcMillis += stats.gcMillis;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+		public synchronized double getMillis() {
+			return nanos / 1e6;
+		}
+		public synchronized double getMaxMillis() {
+			return maxNanos / 1e6;
+		}
+		public synchronized long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+		public synchronized long getGcCount() {
+			return gcCount;
+		}
+		public synchronized long getGcMillis() {
+			return gcMillis;
+		}
+
+	}
+
+	static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	static PrintWriter out;
+	//each counter's total as last written by flush():
+	static final Map<String, Long> written = new HashMap<>();
+
+	static {
+		String path = System.getProperty("metrics.out");
+		if (path != null) {
+			try {
+				setOutput(Paths.get(path));
+			}
+			catch(IOException e) {
+				Log.warn("Unable to write metrics to " + path + ": " + e);
+			}
+		}
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(),
+					new ObjectName("common:type=Metrics"));
+		}
+		catch(Exception e) {
+			Log.warn("Unable to register metrics with JMX: " + e);
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	public static Scope start(String name) {
+		return new Scope(name);
+	}
+
+	public static void count(String name) {
+		count(name, 1);
+	}
+	public static void count(String name, long delta) {
+		LongAdder counter = counters.get(name);
+		if (counter == null) {
+			LongAdder existing = counters.putIfAbsent(name, counter = new LongAdder());
+			if (existing != null)
+				counter = existing;
+		}
+		counter.add(delta);
+	}
+
+	public static long getCount(String name) {
+		LongAdder counter = counters.get(name);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	/**
+	 * Returns the totals for the named timer, or null if it never ran
+	 */
+	public static Timer getTimer(String name) {
+		return timers.get(name);
+	}
+
+	public static synchronized void reset() {
+		timers.clear();
+		counters.clear();
+		written.clear();
+	}
+
+	/**
+	 * Appends JSON lines to the given file from now on
+	 */
+	public static synchronized void setOutput(Path path) throws IOException {
+		if (out != null)
+			out.close();
+		BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		out = new PrintWriter(writer, false);
+	}
+
+	static void record(String name, PhaseStats stats) {
+		Timer timer = timers.get(name);
+		if (timer == null) {
+			Timer existing = timers.putIfAbsent(name, timer = new Timer());
+			if (existing != null)
+				timer = existing;
+		}
+		timer.add(stats);
+
+		synchronized (Metrics.class) {
+			if (out != null) {
+				out.println(String.format(Locale.ROOT, "{\"time\":%d,\"type\":\"timer\",\"name\":%s,\"thread\":%s," +
+						"\"nanos\":%d,\"allocatedBytes\":%d,\"gcCount\":%d,\"gcMillis\":%d}",
+						System.currentTimeMillis(), quote(name), quote(Thread.currentThread().getName()),
+						stats.nanos, stats.allocatedBytes, stats.gcCount, stats.gcMillis));
+			}
+		}
+	}
+
+	/**
+	 * Appends the counter totals to the output, if there is one, and
+	 * writes out anything buffered.  Only counters that changed since
+	 * they were last written are appended, so flushing again (as the
+	 * shutdown hook does after Runner's flush) doesn't repeat them.  The
+	 * value is the running total, so a counter's last line is its total.
+	 */
+	public static synchronized void flush() {
+		if (out == null)
+			return;
+		long time = System.currentTimeMillis();
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+			long value = entry.getValue().sum();
+			Long previous = written.put(entry.getKey(), value);
+			if (previous != null && previous == value)
+				continue;
+			out.println(String.format(Locale.ROOT, "{\"time\":%d,\"type\":\"counter\",\"name\":%s,\"value\":%d}",
+					time, quote(entry.getKey()), value));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Appends a line, such as a JSON event of some other type, to the
+	 * output and flushes it.  Returns false if there is no output.
+	 */
+	public static synchronized boolean writeLine(String line) {
+		if (out == null)
+			return false;
+		out.println(line);
+		out.flush();
+		return true;
+	}
+
+	/**
+	 * Returns the text as a JSON string literal
+	 */
+	public static String quote(String text) {
+		StringBuilder s = new StringBuilder(text.length() + 2);
+		s.append('"');
+		for (int i=0; i<text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ch == '"' || ch == '\\')
+				s.append('\\').append(ch);
+			else if (ch < ' ')
+				s.append(String.format("\\u%04x", (int)ch));
+			else
+				s.append(ch);
+		}
+		return s.append('"').toString();
+	}
+
+	static class Bean implements MetricsMXBean {
+
+		public Map<String, Long> getCounters() {
+			Map<String, Long> map = new TreeMap<>();
+			for (Map.Entry<String, LongAdder> entry : counters.entrySet())
+				map.put(entry.getKey(), entry.getValue().sum());
+			return map;
+		}
+
+		public Map<String, Long> getTimerCounts() {
+			Map<String, Long> map = new TreeMap<>();
+			for (Map.Entry<String, Timer> entry : timers.entrySet())
+				map.put(entry.getKey(), entry.getValue().getCount());
+			return map;
+		}
+
+		public Map<String, Double> getTimerMillis() {
+			Map<String, Double> map = new TreeMap<>();
+			for (Map.Entry<String, Timer> entry : timers.entrySet())
+				map.put(entry.getKey(), entry.getValue().getMillis());
+			return map;
+		}
+
+		public Map<String, Long> getTimerAllocatedBytes() {
+			Map<String, Long> map = new TreeMap<>();
+			for (Map.Entry<String, Timer> entry : timers.entrySet())
+				map.put(entry.getKey(), entry.getValue().getAllocatedBytes());
+			return map;
+		}
+
+		public Map<String, Long> getTimerGcMillis() {
+			Map<String, Long> map = new TreeMap<>();
+			for (Map.Entry<String, Timer> entry : timers.entrySet())
+				map.put(entry.getKey(), entry.getValue().getGcMillis());
+			return map;
+		}
+
+		public void reset() {
+			Metrics.reset();
+		}
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package common;
+
+import java.util.Map;
+
+/**
+ * JMX view of Metrics, registered as "common:type=Metrics".  Open it in
+ * JConsole or VisualVM (MBeans tab) while the solvers run.
+ */
+public interface MetricsMXBean {
+
+	public Map<String, Long> getCounters();
+
+	public Map<String, Long> getTimerCounts();
+
+	public Map<String, Double> getTimerMillis();
+
+	public Map<String, Long> getTimerAllocatedBytes();
+
+	public Map<String, Long> getTimerGcMillis();
+
+	public void reset();
+
+}
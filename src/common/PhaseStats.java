@@ -0,0 +1,100 @@
+package common;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures one phase of work on the current thread: wall-clock time,
+ * bytes allocated by the thread, and the number and duration of garbage
+ * collections (JVM-wide) while it ran.
+ * 
+ * Usage:
+ * 
+ *   PhaseStats stats = PhaseStats.start();
+ *   ...
+ *   stats.stop();
+ */
+public class PhaseStats {
+	
+	static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+	
+	static {
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+	}
+	
+	long threadId;
+	long startNanos;
+	long startBytes;
+	long startGcCount;
+	long startGcMillis;
+	
+	public long nanos;
+	public long allocatedBytes;
+	public long gcCount;
+	public long gcMillis;
+	
+	public static PhaseStats start() {
+		PhaseStats stats = new PhaseStats();
+		stats.threadId = Thread.currentThread().getId();
+		stats.startGcCount = getGcCount();
+		stats.startGcMillis = getGcMillis();
+		stats.startBytes = THREADS.getThreadAllocatedBytes(stats.threadId);
+		stats.startNanos = System.nanoTime();
+		return stats;
+	}
+	
+	public PhaseStats stop() {
+		long endNanos = System.nanoTime();
+		long endBytes = THREADS.getThreadAllocatedBytes(threadId);
+		this.nanos += endNanos - startNanos;
+		this.allocatedBytes += endBytes - startBytes;
+		this.gcCount += getGcCount() - startGcCount;
+		this.gcMillis += getGcMillis() - startGcMillis;
+		return this;
+	}
+	
+	public void add(PhaseStats stats) {
+		this.nanos += stats.nanos;
+		this.allocatedBytes += stats.allocatedBytes;
+		this.gcCount += stats.gcCount;
+		this.gcMillis += stats.gcMillis;
+	}
+	
+	public double getMillis() {
+		return nanos / 1e6;
+	}
+	
+	public static long getThreadAllocatedBytes() {
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	public static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+	public static long getGcMillis() {
+		long millis = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, gc.getCollectionTime());
+		return millis;
+	}
+	
+	public static String formatBytes(long bytes) {
+		if (bytes < 1024)
+			return bytes + " B";
+		if (bytes < 1024 * 1024)
+			return String.format("%.1f KB", bytes / 1024.0);
+		if (bytes < 1024L * 1024 * 1024)
+			return String.format("%.1f MB", bytes / (1024.0 * 1024));
+		return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+	}
+	
+	public String toString() {
+		return String.format("%10.3f ms %10s  gc=%d (%d ms)",
+				getMillis(), formatBytes(allocatedBytes), gcCount, gcMillis);
+	}
+	
+}
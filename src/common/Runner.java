@@ -0,0 +1,141 @@
+package common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single entry point for running any day's Solver.  For each phase
+ * (parse, part 1, part 2) we print the answer, wall-clock time, bytes
+ * allocated by the running thread, and garbage collections while it ran.
+ * 
+ * Usage: Runner [-part 1|2]... [-input path] [-log level] [-metrics path] [-snapshots dir] [name...]
+ * 
+ * Names are registry names from Solvers ("day14", "day16.Main2", or
+ * just "14"); with no names every day is run, leaving out the optIn
+ * entries (see Solvers).  A day that fails is reported as failed and
+ * the rest are still run; the exit status is then 1.  With no -part both parts
+ * are run.  -input overrides files/dayNN/input.txt, so it only makes
+ * sense with a single name.  -log sets the Log level (default info).
+ * -metrics appends each phase's Metrics to the file as JSON lines.
+ * -snapshots keeps Snapshots of parsed models in the directory, so
+ * later runs on the same input skip parsing where a day supports it.
+ */
+public class Runner {
+	
+	List<Integer> parts = new ArrayList<>();
+	Path input;
+	
+	public Runner setParts(List<Integer> parts) {
+		this.parts = parts;
+		return this;
+	}
+	public Runner setInput(Path input) {
+		this.input = input;
+		return this;
+	}
+	
+	public void run(Solvers.Entry entry) throws Exception {
+		Path file = input != null ? input : entry.getDefaultInput();
+		System.out.println(entry.name + " [" + file + "]");
+		
+		Solver solver = entry.create();
+		Metrics.Scope scope = Metrics.start(entry.name + ".parse");
+		boolean fromSnapshot = Snapshot.parse(solver, file);
+		print(fromSnapshot ? "load" : "parse", null, scope.stop());
+		
+		for (int part : parts.isEmpty() ? List.of(1, 2) : parts) {
+			try {
+				scope = Metrics.start(entry.name + ".part" + part);
+				Object answer = part == 1 ? solver.part1() : solver.part2();
+				print("part" + part, answer, scope.stop());
+			}
+			catch(UnsupportedOperationException e) {
+				Log.flush();
+				System.out.println(String.format("  %-6s skipped (%s)", "part" + part, e.getMessage()));
+			}
+		}
+	}
+	
+	static void print(String phase, Object answer, PhaseStats stats) {
+		Log.flush();
+		System.out.println(String.format("  %-6s %s%s", phase, stats,
+				answer == null ? "" : "  answer=" + answer));
+	}
+	
+	public static Runner parseArgs(String [] args, List<String> names) throws IOException {
+		Runner runner = new Runner();
+		List<Integer> parts = new ArrayList<>();
+		
+		for (int i=0; i<args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-part")) {
+				int part = Integer.parseInt(args[++i]);
+				if (part != 1 && part != 2)
+					throw new IllegalArgumentException("Invalid part: " + part);
+				parts.add(part);
+			}
+			else if (arg.equals("-input"))
+				runner.setInput(Paths.get(args[++i]));
+			else if (arg.equals("-log"))
+				Log.setLevel(Log.parseLevel(args[++i]));
+			else if (arg.equals("-metrics"))
+				Metrics.setOutput(Paths.get(args[++i]));
+			else if (arg.equals("-snapshots"))
+				Snapshot.setDirectory(Paths.get(args[++i]));
+			else if (arg.startsWith("-"))
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			else
+				names.add(arg);
+		}
+		return runner.setParts(parts);
+	}
+	
+	/**
+	 * Runs a single day, taking -part and -input from the given args.
+	 * This is what each dayNN.Main delegates to.  Exits with status 1 if
+	 * the day fails.
+	 */
+	public static void runDay(String name, String [] args) {
+		try {
+			List<String> names = new ArrayList<>();
+			Runner runner = parseArgs(args, names);
+			runner.run(Solvers.get(name));
+			Metrics.flush();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+	
+	public static void main(String [] args) {
+		boolean failed = false;
+		try {
+			List<String> names = new ArrayList<>();
+			Runner runner = parseArgs(args, names);
+			for (Solvers.Entry entry : Solvers.select(names)) {
+				//days run one at a time, so after an OutOfMemoryError the
+				//failed day's heap is garbage and the next day can start clean:
+				try {
+					runner.run(entry);
+				}
+				catch(Exception | OutOfMemoryError | StackOverflowError e) {
+					Log.flush();
+					System.out.println(String.format("  %-6s %s", "failed", e));
+					failed = true;
+				}
+			}
+			Metrics.flush();
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			failed = true;
+		}
+		if (failed)
+			System.exit(1);
+	}
+	
+}
@@ -0,0 +1,225 @@
+package common;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Binary snapshots of parsed models, so repeated runs on the same input
+ * can skip parsing the text.
+ *
+ * A Solver opts in by implementing Snapshot.Model.  When snapshots are
+ * enabled (-snapshots dir in Runner, Batch and Benchmarks, or
+ * -Dsnapshots.dir=dir), parse(solver, input) looks for a snapshot of
+ * that solver and input.  If there is one, and the SHA-256 of the input
+ * and the model's version both match what it was written with, it is
+ * memory-mapped and handed to readSnapshot().  Otherwise the input is
+ * parsed as usual and a new snapshot is written for next time.
+ *
+ * Snapshots are big-endian, as written by DataOutput and read by a
+ * ByteBuffer.  The file starts with a header:
+ *
+ *   int     magic ("SNAP")
+ *   int     format version
+ *   string  model class name
+ *   int     model version
+ *   long    input length
+ *   byte[]  input SHA-256 (32 bytes)
+ *
+ * followed by whatever the model writes.  Strings are an int length and
+ * that many UTF-8 bytes (see writeString() and readString()).
+ */
+public class Snapshot {
+
+	/**
+	 * A Solver whose parsed model can be saved and restored
+	 */
+	public static interface Model {
+
+		/**
+		 * Returns the version of the snapshot layout.  Bump it whenever
+		 * writeSnapshot() changes, so that old snapshots are ignored.
+		 */
+		public int getSnapshotVersion();
+
+		public void writeSnapshot(DataOutput out) throws IOException;
+
+		/**
+		 * Restores the model from what writeSnapshot() wrote, in place of
+		 * Solver.parse()
+		 */
+		public void readSnapshot(ByteBuffer in) throws IOException;
+
+	}
+
+	static final int MAGIC = 0x534E4150;
+	static final int FORMAT = 1;
+	static final int HASH_LENGTH = 32;
+
+	static volatile Path directory;
+
+	static {
+		String dir = System.getProperty("snapshots.dir");
+		if (dir != null)
+			directory = Paths.get(dir);
+	}
+
+	/**
+	 * Sets the directory snapshots are kept in, or null (the default) to
+	 * always parse
+	 */
+	public static void setDirectory(Path dir) {
+		directory = dir;
+	}
+	public static Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Parses the input into the solver, from a snapshot if possible.
+	 * Returns true if a snapshot was used.
+	 */
+	public static boolean parse(Solver solver, Path input) throws Exception {
+		Path dir = directory;
+		if (dir == null || !(solver instanceof Model)) {
+			solver.parse(input);
+			return false;
+		}
+
+		Model model = (Model)solver;
+		Path file = getSnapshotFile(dir, solver, input);
+		byte [] hash = hash(input);
+		long length = Files.size(input);
+		if (Files.exists(file)) {
+			try {
+				if (read(model, file, hash, length))
+					return true;
+			}
+			catch(IOException | BufferUnderflowException e) {
+				Log.warn("Ignoring unreadable snapshot " + file + ": " + e);
+			}
+		}
+
+		solver.parse(input);
+		write(model, file, hash, length);
+		return false;
+	}
+
+	/**
+	 * Returns the snapshot file for the solver's class and the input path
+	 */
+	public static Path getSnapshotFile(Path dir, Solver solver, Path input) {
+		Path name = input.getFileName();
+		int pathHash = input.toAbsolutePath().normalize().toString().hashCode();
+		return dir.resolve(solver.getClass().getName() + "-" + name + "-" +
+				Integer.toHexString(pathHash) + ".snap");
+	}
+
+	/**
+	 * Returns the SHA-256 of the file's contents
+	 */
+	public static byte [] hash(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			for (long position=0; position<size; position+=Integer.MAX_VALUE) {
+				long length = Math.min(Integer.MAX_VALUE, size - position);
+				digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+			}
+		}
+		return digest.digest();
+	}
+
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch(NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/**
+	 * Restores the model from the file if its header matches, returning
+	 * false if it doesn't
+	 */
+	static boolean read(Model model, Path file, byte [] hash, long length) throws IOException {
+		MappedByteBuffer in;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (in.getInt() != MAGIC || in.getInt() != FORMAT)
+			return false;
+		if (!readString(in).equals(model.getClass().getName()) || in.getInt() != model.getSnapshotVersion())
+			return false;
+		if (in.getLong() != length)
+			return false;
+		byte [] stored = new byte[HASH_LENGTH];
+		in.get(stored);
+		if (!Arrays.equals(stored, hash))
+			return false;
+
+		model.readSnapshot(in);
+		return true;
+	}
+
+	/**
+	 * Writes the snapshot to a temporary file and then moves it into
+	 * place, so concurrent runs never see half a snapshot
+	 */
+	static void write(Model model, Path file, byte [] hash, long length) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temp))) {
+				DataOutputStream out = new DataOutputStream(stream);
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT);
+				writeString(out, model.getClass().getName());
+				out.writeInt(model.getSnapshotVersion());
+				out.writeLong(length);
+				out.write(hash);
+				model.writeSnapshot(out);
+				out.flush();
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	// --- Helpers for models -------------------------------------------------
+
+	public static void writeString(DataOutput out, String text) throws IOException {
+		byte [] bytes = text.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	public static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0 || length > in.remaining())
+			throw new BufferUnderflowException();
+		byte [] bytes = new byte[length];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,22 @@
+package common;
+
+import java.nio.file.Path;
+
+/**
+ * A puzzle solution split into phases.  parse() is called once per
+ * instance, after which part1() and part2() may each be called once,
+ * in either order.  Neither part may depend on changes the other makes
+ * to the parsed model.  Parts return their answers rather than printing
+ * them, and throw UnsupportedOperationException if they are not solved.
+ * 
+ * Solutions are registered in Solvers and run with Runner.
+ */
+public interface Solver {
+	
+	public void parse(Path input) throws Exception;
+	
+	public Object part1() throws Exception;
+	
+	public Object part2() throws Exception;
+	
+}
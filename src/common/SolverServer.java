@@ -0,0 +1,476 @@
+package common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP service that solves inputs posted to it, so callers that
+ * solve repeatedly pay for JVM startup and JIT warm-up once instead of
+ * on every run.
+ *
+ *   POST /solve/day14          both parts of the input in the body
+ *   POST /solve/14?part=1      just part 1
+ *   GET  /stats                request queue and cache statistics
+ *   GET  /solvers              registry names
+ *
+ * Answers are returned as a JSON object:
+ *
+ *   {"name":"day14","input":"<sha-256>","cached":false,"parseMillis":1.234,
+ *    "part1":"858","part1Millis":0.567,"part2":"26845","part2Millis":8.901}
+ *
+ * A part that isn't solved has a null answer, and one that fails has a
+ * "part1Error" as well.  An input that fails to parse is a 400, an
+ * unknown name a 404.
+ *
+ * Parsed Solvers are kept in an LRU cache keyed by name and the SHA-256
+ * of the input, along with the answers of the parts solved so far, so
+ * posting the same input again costs a hash and a lookup.  Each part is
+ * solved at most once per cached Solver, as Solver requires, and two
+ * requests for the same input at once parse it only once.
+ *
+ * Requests are handled on a fixed pool of -threads threads with a
+ * bounded queue of -queue requests waiting for them.  When the queue is
+ * full, requests are turned away at once with a 503 rather than piling
+ * up.  Time spent queued, rejections and cache hits are counted in
+ * Metrics (as server.*) and reported by /stats.
+ *
+ * Usage: SolverServer [-port n] [-threads n] [-queue n] [-cache n] [-max-input bytes]
+ *                     [-log level] [-metrics path]
+ *
+ * The server listens on localhost only.  Solver logging is off unless
+ * -log is given.
+ */
+public class SolverServer {
+
+	/**
+	 * A parsed Solver and what has been solved with it so far
+	 */
+	static class CacheEntry {
+
+		final String name;
+		final String hash;
+		Solver solver;
+		PhaseStats parseStats;
+		String parseError;
+		final Object [] answers = new Object[3];
+		final PhaseStats [] partStats = new PhaseStats[3];
+		final String [] errors = new String[3];
+		final boolean [] done = new boolean[3];
+
+		CacheEntry(String name, String hash) {
+			this.name = name;
+			this.hash = hash;
+		}
+
+	}
+
+	int port = 8080;
+	int threads = Runtime.getRuntime().availableProcessors();
+	int queueCapacity = 64;
+	int cacheCapacity = 64;
+	int maxInputBytes = 16 << 20;
+
+	HttpServer server;
+	ThreadPoolExecutor executor;
+	Map<String, CacheEntry> cache;
+
+	final LongAdder rejected = new LongAdder();
+	final LongAdder waitNanos = new LongAdder();
+	final LongAdder waitCount = new LongAdder();
+	volatile long maxWaitNanos;
+	final LongAdder cacheHits = new LongAdder();
+	final LongAdder cacheMisses = new LongAdder();
+	final LongAdder cacheEvictions = new LongAdder();
+
+	//set while a rejected request runs on the dispatcher, so it only gets a 503:
+	static final ThreadLocal<Boolean> overloaded = new ThreadLocal<>();
+
+	public SolverServer setPort(int port) {
+		this.port = port;
+		return this;
+	}
+	public SolverServer setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Invalid thread count: " + threads);
+		this.threads = threads;
+		return this;
+	}
+	public SolverServer setQueueCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Invalid queue capacity: " + capacity);
+		this.queueCapacity = capacity;
+		return this;
+	}
+	/**
+	 * Sets how many parsed inputs are kept
+	 */
+	public SolverServer setCacheCapacity(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Invalid cache capacity: " + capacity);
+		this.cacheCapacity = capacity;
+		return this;
+	}
+	public SolverServer setMaxInputBytes(int bytes) {
+		this.maxInputBytes = bytes;
+		return this;
+	}
+
+	public void start() throws IOException {
+		cache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+				if (size() <= cacheCapacity)
+					return false;
+				cacheEvictions.increment();
+				Metrics.count("server.cache.evictions");
+				return true;
+			}
+		};
+
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), new RejectedExecutionHandler() {
+			public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+				overloaded.set(Boolean.TRUE);
+				try {
+					task.run();
+				}
+				finally {
+					overloaded.remove();
+				}
+			}
+		}) {
+			public void execute(final Runnable task) {
+				final long queued = System.nanoTime();
+				super.execute(new Runnable() {
+					public void run() {
+						if (overloaded.get() == null)
+							recordWait(System.nanoTime() - queued);
+						task.run();
+					}
+				});
+			}
+		};
+
+		server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+		server.createContext("/solve/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				handleSolve(exchange);
+			}
+		});
+		server.createContext("/stats", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				send(exchange, 200, getStats());
+			}
+		});
+		server.createContext("/solvers", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				StringBuilder s = new StringBuilder("[");
+				for (Solvers.Entry entry : Solvers.ALL) {
+					if (s.length() > 1)
+						s.append(',');
+					s.append(Metrics.quote(entry.name));
+				}
+				send(exchange, 200, s.append(']').toString());
+			}
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	public void stop() {
+		server.stop(1);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Returns the port actually listened on, which is useful after
+	 * starting on port 0
+	 */
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	void recordWait(long nanos) {
+		waitNanos.add(nanos);
+		waitCount.increment();
+		Metrics.count("server.queueWaitNanos", nanos);
+		if (nanos > maxWaitNanos)
+			maxWaitNanos = nanos;
+	}
+
+	// --- Solving ------------------------------------------------------------
+
+	void handleSolve(HttpExchange exchange) throws IOException {
+		if (overloaded.get() != null) {
+			rejected.increment();
+			Metrics.count("server.rejected");
+			exchange.getResponseHeaders().set("Retry-After", "1");
+			sendError(exchange, 503, "Too many requests queued");
+			return;
+		}
+		if (!exchange.getRequestMethod().equals("POST")) {
+			exchange.getResponseHeaders().set("Allow", "POST");
+			sendError(exchange, 405, "Use POST with the input as the body");
+			return;
+		}
+
+		Metrics.count("server.requests");
+		Metrics.Scope scope = Metrics.start("server.solve");
+		try {
+			URI uri = exchange.getRequestURI();
+			String name = uri.getPath().substring("/solve/".length());
+			Solvers.Entry solverEntry;
+			List<Integer> parts;
+			try {
+				solverEntry = Solvers.select(List.of(name)).get(0);
+			}
+			catch(IllegalArgumentException | IndexOutOfBoundsException e) {
+				sendError(exchange, 404, "Unknown solver: " + name);
+				return;
+			}
+			try {
+				parts = parseParts(uri.getQuery());
+			}
+			catch(IllegalArgumentException e) {
+				sendError(exchange, 400, e.getMessage());
+				return;
+			}
+
+			byte [] input = readBody(exchange.getRequestBody());
+			if (input == null) {
+				sendError(exchange, 413, "Input is over " + maxInputBytes + " bytes");
+				return;
+			}
+
+			CacheEntry entry = getEntry(solverEntry.name, hash(input));
+			boolean cached = solve(entry, solverEntry, input, parts);
+			if (entry.parseError != null) {
+				sendError(exchange, 400, entry.parseError);
+				return;
+			}
+			send(exchange, 200, toJson(entry, parts, cached));
+		}
+		finally {
+			scope.stop();
+		}
+	}
+
+	static List<Integer> parseParts(String query) {
+		if (query == null || query.isEmpty())
+			return List.of(1, 2);
+		if (query.equals("part=1"))
+			return List.of(1);
+		if (query.equals("part=2"))
+			return List.of(2);
+		throw new IllegalArgumentException("Invalid query: " + query);
+	}
+
+	/**
+	 * Returns the cached entry for the input, adding an empty one if
+	 * there isn't one
+	 */
+	CacheEntry getEntry(String name, String hash) {
+		String key = name + "/" + hash;
+		synchronized (cache) {
+			CacheEntry entry = cache.get(key);
+			if (entry == null) {
+				cache.put(key, entry = new CacheEntry(name, hash));
+				cacheMisses.increment();
+				Metrics.count("server.cache.misses");
+			} else {
+				cacheHits.increment();
+				Metrics.count("server.cache.hits");
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * Parses the input if the entry hasn't been and solves any parts it
+	 * hasn't yet, returning true if there was nothing to do
+	 */
+	boolean solve(CacheEntry entry, Solvers.Entry solverEntry, byte [] input, List<Integer> parts) throws IOException {
+		synchronized (entry) {
+			boolean cached = true;
+			if (entry.solver == null && entry.parseError == null) {
+				cached = false;
+				Path file = Files.createTempFile("solver-input-", ".txt");
+				try {
+					Files.write(file, input);
+					Solver solver = solverEntry.create();
+					Metrics.Scope scope = Metrics.start(entry.name + ".parse");
+					solver.parse(file);
+					entry.parseStats = scope.stop();
+					entry.solver = solver;
+				}
+				catch(Exception | Error e) {
+					entry.parseError = e.toString();
+				}
+				finally {
+					Files.deleteIfExists(file);
+				}
+			}
+			if (entry.solver == null)
+				return cached;
+
+			for (int part : parts) {
+				if (entry.done[part])
+					continue;
+				cached = false;
+				entry.done[part] = true;
+				try {
+					Metrics.Scope scope = Metrics.start(entry.name + ".part" + part);
+					entry.answers[part] = part == 1 ? entry.solver.part1() : entry.solver.part2();
+					entry.partStats[part] = scope.stop();
+				}
+				catch(UnsupportedOperationException e) {
+					//not solved, so left null
+				}
+				catch(Exception | Error e) {
+					entry.errors[part] = e.toString();
+				}
+			}
+			return cached;
+		}
+	}
+
+	String toJson(CacheEntry entry, List<Integer> parts, boolean cached) {
+		StringBuilder s = new StringBuilder();
+		s.append("{\"name\":").append(Metrics.quote(entry.name));
+		s.append(",\"input\":").append(Metrics.quote(entry.hash));
+		s.append(",\"cached\":").append(cached);
+		s.append(",\"parseMillis\":").append(formatMillis(entry.parseStats));
+		for (int part : parts) {
+			Object answer = entry.answers[part];
+			s.append(",\"part").append(part).append("\":");
+			s.append(answer == null ? "null" : Metrics.quote(answer.toString()));
+			s.append(",\"part").append(part).append("Millis\":").append(formatMillis(entry.partStats[part]));
+			if (entry.errors[part] != null)
+				s.append(",\"part").append(part).append("Error\":").append(Metrics.quote(entry.errors[part]));
+		}
+		return s.append('}').toString();
+	}
+
+	static String formatMillis(PhaseStats stats) {
+		return stats == null ? "null" : String.format(Locale.ROOT, "%.3f", stats.getMillis());
+	}
+
+	/**
+	 * Returns the queue and cache statistics as a JSON object
+	 */
+	public String getStats() {
+		int cacheSize;
+		synchronized (cache) {
+			cacheSize = cache.size();
+		}
+		long waits = waitCount.sum();
+		return String.format(Locale.ROOT, "{\"threads\":%d,\"active\":%d,\"queued\":%d,\"queueCapacity\":%d," +
+				"\"completed\":%d,\"rejected\":%d,\"meanWaitMillis\":%.3f,\"maxWaitMillis\":%.3f," +
+				"\"cacheSize\":%d,\"cacheCapacity\":%d,\"cacheHits\":%d,\"cacheMisses\":%d,\"cacheEvictions\":%d}",
+				threads, executor.getActiveCount(), executor.getQueue().size(), queueCapacity,
+				executor.getCompletedTaskCount(), rejected.sum(),
+				waits == 0 ? 0.0 : waitNanos.sum() / 1e6 / waits, maxWaitNanos / 1e6,
+				cacheSize, cacheCapacity, cacheHits.sum(), cacheMisses.sum(), cacheEvictions.sum());
+	}
+
+	// --- HTTP ---------------------------------------------------------------
+
+	/**
+	 * Reads the whole body, or returns null if it is over the limit
+	 */
+	byte [] readBody(InputStream in) throws IOException {
+		try (in) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte [] buffer = new byte[8192];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				if (body.size() + count > maxInputBytes)
+					return null;
+				body.write(buffer, 0, count);
+			}
+			return body.toByteArray();
+		}
+	}
+
+	static String hash(byte [] input) {
+		MessageDigest digest = Snapshot.newDigest();
+		StringBuilder s = new StringBuilder();
+		for (byte b : digest.digest(input))
+			s.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		return s.toString();
+	}
+
+	static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		send(exchange, status, "{\"error\":" + Metrics.quote(message) + "}");
+	}
+
+	static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte [] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	public static void main(String [] args) {
+		try {
+			final SolverServer server = new SolverServer();
+			Log.setLevel(Log.Level.OFF);
+
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-port"))
+					server.setPort(Integer.parseInt(args[++i]));
+				else if (arg.equals("-threads"))
+					server.setThreads(Integer.parseInt(args[++i]));
+				else if (arg.equals("-queue"))
+					server.setQueueCapacity(Integer.parseInt(args[++i]));
+				else if (arg.equals("-cache"))
+					server.setCacheCapacity(Integer.parseInt(args[++i]));
+				else if (arg.equals("-max-input"))
+					server.setMaxInputBytes(Integer.parseInt(args[++i]));
+				else if (arg.equals("-log"))
+					Log.setLevel(Log.parseLevel(args[++i]));
+				else if (arg.equals("-metrics"))
+					Metrics.setOutput(Paths.get(args[++i]));
+				else
+					throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+
+			server.start();
+			System.out.println("Listening on " + server.server.getAddress() + " with " + server.threads + " threads");
+			Runtime.getRuntime().addShutdownHook(new Thread() {
+				public void run() {
+					server.stop();
+				}
+			});
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+}
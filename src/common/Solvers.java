@@ -0,0 +1,118 @@
+package common;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Registry of every day's Solver.  Names are "dayNN", plus
+ * "day16.Main2" to "day16.Main4" for the alternate day 16 solutions.
+ * 
+ * Entries marked optIn are only run when named: the original day 16
+ * solutions (day16, Main2 and Main3) run out of memory or take minutes
+ * on the real input, so the default "every day" selection has day 16
+ * from Main4 alone.
+ */
+public class Solvers {
+	
+	public static class Entry {
+		
+		public final String name;
+		public final String dir;
+		public final boolean optIn;
+		final Supplier<? extends Solver> factory;
+		
+		public Entry(String name, String dir, Supplier<? extends Solver> factory) {
+			this(name, dir, factory, false);
+		}
+		public Entry(String name, String dir, Supplier<? extends Solver> factory, boolean optIn) {
+			this.name = name;
+			this.dir = dir;
+			this.factory = factory;
+			this.optIn = optIn;
+		}
+		
+		public Solver create() {
+			return factory.get();
+		}
+		
+		/**
+		 * The real puzzle input: files/dayNN/input.txt
+		 */
+		public Path getDefaultInput() {
+			return Paths.get("files", dir, "input.txt");
+		}
+		
+	}
+	
+	public static final List<Entry> ALL = Arrays.asList(
+			new Entry("day01", "day01", day01.Solution::new),
+			new Entry("day02", "day02", day02.Solution::new),
+			new Entry("day03", "day03", day03.Solution::new),
+			new Entry("day04", "day04", day04.Solution::new),
+			new Entry("day05", "day05", day05.Solution::new),
+			new Entry("day06", "day06", day06.Solution::new),
+			new Entry("day07", "day07", day07.Solution::new),
+			new Entry("day08", "day08", day08.Solution::new),
+			new Entry("day09", "day09", day09.Solution::new),
+			new Entry("day10", "day10", day10.Solution::new),
+			new Entry("day11", "day11", day11.Solution::new),
+			new Entry("day12", "day12", day12.Solution::new),
+			new Entry("day13", "day13", day13.Solution::new),
+			new Entry("day14", "day14", day14.Solution::new),
+			new Entry("day15", "day15", day15.Solution::new),
+			new Entry("day16", "day16", day16.Solution::new, true),
+			new Entry("day16.Main2", "day16", day16.Solution2::new, true),
+			new Entry("day16.Main3", "day16", day16.Solution3::new, true),
+			new Entry("day16.Main4", "day16", day16.Solution4::new),
+			new Entry("day17", "day17", day17.Solution::new),
+			new Entry("day18", "day18", day18.Solution::new),
+			new Entry("day19", "day19", day19.Solution::new),
+			new Entry("day20", "day20", day20.Solution::new),
+			new Entry("day21", "day21", day21.Solution::new),
+			new Entry("day22", "day22", day22.Solution::new),
+			new Entry("day23", "day23", day23.Solution::new),
+			new Entry("day25", "day25", day25.Solution::new)
+		);
+	
+	public static Entry get(String name) {
+		for (Entry entry : ALL) {
+			if (entry.name.equals(name))
+				return entry;
+		}
+		throw new IllegalArgumentException("Unknown solver: " + name);
+	}
+	
+	/**
+	 * Returns the named entries (in the order named), or the default ones
+	 * if no names are given.  "16" is accepted as shorthand for "day16".
+	 */
+	public static List<Entry> select(List<String> names) {
+		if (names.isEmpty())
+			return getDefaults();
+		
+		List<Entry> selected = new ArrayList<>();
+		for (String name : names) {
+			if (Character.isDigit(name.charAt(0)))
+				name = (name.length() == 1 ? "day0" : "day") + name;
+			selected.add(get(name));
+		}
+		return selected;
+	}
+	
+	/**
+	 * Returns the entries that aren't optIn, in registry order
+	 */
+	public static List<Entry> getDefaults() {
+		List<Entry> defaults = new ArrayList<>();
+		for (Entry entry : ALL) {
+			if (!entry.optIn)
+				defaults.add(entry);
+		}
+		return defaults;
+	}
+	
+}
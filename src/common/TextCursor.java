@@ -0,0 +1,196 @@
+package common;
+
+/**
+ * Allocation-free scanner over a line of text.  Use it in place of
+ * split() / parseInt() in parsers:
+ *
+ *   //move 3 from 2 to 5
+ *   TextCursor cursor = new TextCursor();
+ *   for (String line : lines) {
+ *       cursor.reset(line);
+ *       int amount = cursor.nextInt();
+ *       int src = cursor.nextInt();
+ *       int dst = cursor.nextInt();
+ *   }
+ *
+ * The text can be any CharSequence, including the zero-copy LineView
+ * from MappedLineReader, so a file can be parsed without creating a
+ * String per line.  A cursor is reusable: reset() it for each line.
+ */
+public class TextCursor {
+
+	CharSequence text;
+	int pos;
+	int end;
+
+	public TextCursor() {
+		this("");
+	}
+	public TextCursor(CharSequence text) {
+		reset(text);
+	}
+
+	public TextCursor reset(CharSequence text) {
+		return reset(text, 0, text.length());
+	}
+	public TextCursor reset(CharSequence text, int start, int end) {
+		this.text = text;
+		this.pos = start;
+		this.end = end;
+		return this;
+	}
+
+	public int position() {
+		return pos;
+	}
+	public void setPosition(int pos) {
+		this.pos = pos;
+	}
+
+	public boolean hasMore() {
+		return pos < end;
+	}
+
+	/**
+	 * Returns the current character without consuming it, or 0 at the end
+	 */
+	public char peek() {
+		return pos < end ? text.charAt(pos) : 0;
+	}
+
+	public char nextChar() {
+		if (pos >= end)
+			throw error("Unexpected end of text");
+		return text.charAt(pos++);
+	}
+
+	public TextCursor skip(int count) {
+		pos = Math.min(end, pos + count);
+		return this;
+	}
+
+	public TextCursor skipWhitespace() {
+		while (pos < end && text.charAt(pos) <= ' ')
+			pos++;
+		return this;
+	}
+
+	/**
+	 * Moves to the start of the next (possibly negative) number.  Returns
+	 * false, leaving the cursor at the end, if there are no more numbers.
+	 */
+	public boolean skipUntilDigit() {
+		while (pos < end) {
+			char ch = text.charAt(pos);
+			if (isDigit(ch))
+				return true;
+			if (ch == '-' && pos + 1 < end && isDigit(text.charAt(pos + 1)))
+				return true;
+			pos++;
+		}
+		return false;
+	}
+
+	/**
+	 * Skips to and reads the next integer, ignoring whatever precedes it
+	 */
+	public int nextInt() {
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw error("Value out of range for int: " + value);
+		return (int)value;
+	}
+
+	/**
+	 * Skips to and reads the next long, ignoring whatever precedes it
+	 */
+	public long nextLong() {
+		if (!skipUntilDigit())
+			throw error("No more numbers");
+
+		boolean negative = text.charAt(pos) == '-';
+		if (negative)
+			pos++;
+
+		//accumulated as a negative number, whose range includes
+		//Long.MIN_VALUE, and checked before each digit so any number of
+		//leading zeros is fine:
+		long value = 0;
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		while (pos < end) {
+			char ch = text.charAt(pos);
+			if (!isDigit(ch))
+				break;
+			int digit = ch - '0';
+			if (value < (limit + digit) / 10)
+				throw error("Value out of range for long");
+			value = value * 10 - digit;
+			pos++;
+		}
+		return negative ? value : -value;
+	}
+
+	/**
+	 * Consumes the given literal, throwing if the text doesn't match
+	 */
+	public TextCursor expect(CharSequence literal) {
+		int len = literal.length();
+		if (end - pos < len)
+			throw error("Expected '" + literal + "'");
+		for (int i=0; i<len; i++) {
+			if (text.charAt(pos + i) != literal.charAt(i))
+				throw error("Expected '" + literal + "'");
+		}
+		pos += len;
+		return this;
+	}
+
+	/**
+	 * Consumes the given character, throwing if it isn't next
+	 */
+	public TextCursor expect(char ch) {
+		if (pos >= end || text.charAt(pos) != ch)
+			throw error("Expected '" + ch + "'");
+		pos++;
+		return this;
+	}
+
+	/**
+	 * Returns true (and consumes it) if the literal is next
+	 */
+	public boolean tryExpect(CharSequence literal) {
+		int len = literal.length();
+		if (end - pos < len)
+			return false;
+		for (int i=0; i<len; i++) {
+			if (text.charAt(pos + i) != literal.charAt(i))
+				return false;
+		}
+		pos += len;
+		return true;
+	}
+
+	/**
+	 * Reads the next run of letters and digits as a String.  This is
+	 * the one method that allocates, for identifiers that need keeping.
+	 */
+	public String nextWord() {
+		while (pos < end && !Character.isLetterOrDigit(text.charAt(pos)))
+			pos++;
+		int start = pos;
+		while (pos < end && Character.isLetterOrDigit(text.charAt(pos)))
+			pos++;
+		if (start == pos)
+			throw error("No more words");
+		return text.subSequence(start, pos).toString();
+	}
+
+	static boolean isDigit(char ch) {
+		return ch >= '0' && ch <= '9';
+	}
+
+	IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos + ": '" + text + "'");
+	}
+
+}
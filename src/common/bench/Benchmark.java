@@ -0,0 +1,160 @@
+package common.bench;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.PhaseStats;
+import common.Snapshot;
+import common.Solver;
+import common.Solvers;
+
+/**
+ * Minimal JMH-style harness.  Each phase of a Solver is run for a
+ * number of timed warm-up and measurement iterations.  Per operation we
+ * record wall-clock time and the bytes allocated by the benchmark thread
+ * (the equivalent of JMH's "-prof gc"), and per iteration the number of
+ * collections and collector time.
+ * 
+ * Only the phase being measured is timed: when measuring PART1 or PART2,
+ * a fresh Solver is created and parsed before each operation.  Time and
+ * allocation exclude that setup; collection counts cover the whole iteration.
+ */
+public class Benchmark {
+	
+	public static enum Phase {PARSE, PART1, PART2};
+	
+	int warmupIterations = 3;
+	int measureIterations = 5;
+	long iterationNanos = 1_000_000_000L;
+	
+	//results are written here so the JIT can't eliminate the work
+	static volatile int blackhole;
+	
+	public Benchmark setWarmupIterations(int count) {
+		this.warmupIterations = count;
+		return this;
+	}
+	public Benchmark setMeasureIterations(int count) {
+		this.measureIterations = count;
+		return this;
+	}
+	public Benchmark setIterationMillis(long millis) {
+		this.iterationNanos = millis * 1_000_000L;
+		return this;
+	}
+	
+	/**
+	 * Measurements for one (solver, input, phase) combination
+	 */
+	public static class Result {
+		
+		String name;
+		Path input;
+		Phase phase;
+		Object answer;
+		
+		long operations;
+		long nanos;
+		long allocatedBytes;
+		long gcCount;
+		long gcMillis;
+		
+		public double getOpsPerSecond() {
+			return operations / (nanos / 1e9);
+		}
+		public double getAvgMillis() {
+			return nanos / 1e6 / operations;
+		}
+		public double getAllocRateMBPerSecond() {
+			return allocatedBytes / (1024.0 * 1024.0) / (nanos / 1e9);
+		}
+		public double getBytesPerOp() {
+			return allocatedBytes / (double)operations;
+		}
+		
+		public String getLabel() {
+			return name + "." + phase.name().toLowerCase() + " [" + input.getFileName() + "]";
+		}
+		
+	}
+	
+	public Result run(Solvers.Entry entry, Path input, Phase phase) throws Exception {
+		for (int i=0; i<warmupIterations; i++)
+			runIteration(entry, input, phase);
+		
+		Result total = null;
+		for (int i=0; i<measureIterations; i++) {
+			Result result = runIteration(entry, input, phase);
+			if (total == null) {
+				total = result;
+			} else {
+				total.operations += result.operations;
+				total.nanos += result.nanos;
+				total.allocatedBytes += result.allocatedBytes;
+				total.gcCount += result.gcCount;
+				total.gcMillis += result.gcMillis;
+			}
+		}
+		return total;
+	}
+	
+	protected Result runIteration(Solvers.Entry entry, Path input, Phase phase) throws Exception {
+		Result result = new Result();
+		result.name = entry.name;
+		result.input = input;
+		result.phase = phase;
+		
+		long gcCount0 = PhaseStats.getGcCount();
+		long gcMillis0 = PhaseStats.getGcMillis();
+		
+		//always run at least one operation, even for slow phases:
+		do {
+			Solver solver = entry.create();
+			if (phase != Phase.PARSE)
+				Snapshot.parse(solver, input);
+			
+			PhaseStats stats = PhaseStats.start();
+			
+			Object answer;
+			switch(phase) {
+			case PARSE: Snapshot.parse(solver, input); answer = solver; break;
+			case PART1: answer = solver.part1(); break;
+			case PART2: answer = solver.part2(); break;
+			default: throw new IllegalStateException("Invalid phase: " + phase);
+			}
+			
+			stats.stop();
+			
+			blackhole ^= (answer == null ? 0 : answer.hashCode());
+			result.answer = answer;
+			result.operations++;
+			result.nanos += stats.nanos;
+			result.allocatedBytes += stats.allocatedBytes;
+		}
+		while (result.nanos < iterationNanos);
+		
+		result.gcCount = PhaseStats.getGcCount() - gcCount0;
+		result.gcMillis = PhaseStats.getGcMillis() - gcMillis0;
+		return result;
+	}
+	
+	public static String printResults(List<Result> results) {
+		StringBuilder s = new StringBuilder(printHeader());
+		for (Result r : results)
+			s.append(printRow(r));
+		return s.toString();
+	}
+	
+	public static String printHeader() {
+		return String.format("%-40s %6s %14s %12s %14s %14s %8s %8s%n",
+				"Benchmark", "Cnt", "thrpt(ops/s)", "avgt(ms/op)",
+				"alloc(MB/s)", "alloc(B/op)", "gc.count", "gc.ms");
+	}
+	
+	public static String printRow(Result r) {
+		return String.format("%-40s %6d %14.3f %12.3f %14.1f %14.0f %8d %8d%n",
+				r.getLabel(), r.operations, r.getOpsPerSecond(), r.getAvgMillis(),
+				r.getAllocRateMBPerSecond(), r.getBytesPerOp(), r.gcCount, r.gcMillis);
+	}
+	
+}
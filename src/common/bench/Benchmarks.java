@@ -0,0 +1,122 @@
+package common.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import common.Log;
+import common.Snapshot;
+import common.Solvers;
+import common.bench.Benchmark.Phase;
+import common.bench.Benchmark.Result;
+
+/**
+ * Runs the Benchmark harness over every Solver in the Solvers registry.  Each day is
+ * measured against files/dayNN/input.txt and, when -scaled is given,
+ * against every file in files/scaled/dayNN/.
+ * 
+ * Usage: Benchmarks [-wi n] [-i n] [-r millis] [-phase parse|part1|part2]... [-scaled] [-snapshots dir] [name...]
+ * 
+ * Names are matched by prefix, so "day16" selects day16 and day16.Main2
+ * to day16.Main4.  With no names every day is run, leaving out the optIn
+ * entries (see Solvers).  Each result is printed as soon as it is
+ * measured; a day that fails is reported on stderr and the rest are
+ * still run, and the exit status is then 1.  For stable numbers, run with a fixed heap (e.g. -Xms2g -Xmx2g).
+ * Solver logging is turned off so that console output isn't measured.
+ * With -snapshots, parsing goes through Snapshot, so the parse phase
+ * measures loading the snapshot for days that support one.
+ */
+public class Benchmarks {
+	
+	public static List<Path> getInputs(Solvers.Entry entry, boolean scaled) throws IOException {
+		List<Path> inputs = new ArrayList<>();
+		inputs.add(entry.getDefaultInput());
+		
+		Path dir = Paths.get("files", "scaled", entry.dir);
+		if (scaled && Files.isDirectory(dir)) {
+			try (Stream<Path> files = Files.list(dir)) {
+				inputs.addAll(files.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+			}
+		}
+		return inputs;
+	}
+	
+	public static void main(String [] args) {
+		boolean failed = false;
+		try {
+			Benchmark benchmark = new Benchmark();
+			Log.setLevel(Log.Level.OFF);
+			List<Phase> phases = new ArrayList<>();
+			List<String> names = new ArrayList<>();
+			boolean scaled = false;
+			
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-wi"))
+					benchmark.setWarmupIterations(Integer.parseInt(args[++i]));
+				else if (arg.equals("-i"))
+					benchmark.setMeasureIterations(Integer.parseInt(args[++i]));
+				else if (arg.equals("-r"))
+					benchmark.setIterationMillis(Long.parseLong(args[++i]));
+				else if (arg.equals("-phase"))
+					phases.add(Phase.valueOf(args[++i].toUpperCase()));
+				else if (arg.equals("-scaled"))
+					scaled = true;
+				else if (arg.equals("-snapshots"))
+					Snapshot.setDirectory(Paths.get(args[++i]));
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else
+					names.add(arg);
+			}
+			if (phases.isEmpty())
+				phases.addAll(Arrays.asList(Phase.values()));
+			
+			System.out.print(Benchmark.printHeader());
+			for (Solvers.Entry entry : names.isEmpty() ? Solvers.getDefaults() : Solvers.ALL) {
+				if (!matches(entry.name, names))
+					continue;
+				
+				for (Path input : getInputs(entry, scaled)) {
+					for (Phase phase : phases) {
+						String label = entry.name + "." + phase.name().toLowerCase();
+						//entries run one at a time, so a failed one's heap is garbage by the next:
+						try {
+							System.out.print(Benchmark.printRow(benchmark.run(entry, input, phase)));
+						}
+						catch(UnsupportedOperationException e) {
+							System.err.println(label + ": skipped (" + e.getMessage() + ")");
+						}
+						catch(Exception | OutOfMemoryError | StackOverflowError e) {
+							System.err.println(label + " [" + input + "]: failed (" + e + ")");
+							failed = true;
+						}
+					}
+				}
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			failed = true;
+		}
+		if (failed)
+			System.exit(1);
+	}
+	
+	static boolean matches(String name, List<String> names) {
+		if (names.isEmpty())
+			return true;
+		for (String prefix : names) {
+			if (name.startsWith(prefix))
+				return true;
+		}
+		return false;
+	}
+	
+}
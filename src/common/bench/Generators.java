@@ -0,0 +1,125 @@
+package common.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import common.InputGenerator;
+
+/**
+ * Writes synthetic inputs for each day to files/scaled/dayNN/xSCALE.txt,
+ * where Benchmarks -scaled picks them up (or pass one to Runner -input).
+ * 
+ * Usage: Generators [-seed n] [-scale n]... [name...]
+ * 
+ * Scales default to 1 and 100.  Each (day, scale) gets its own Random
+ * derived from the seed, so files are reproducible individually.
+ */
+public class Generators {
+	
+	static class Entry {
+		
+		String name;
+		Supplier<? extends InputGenerator> factory;
+		
+		public Entry(String name, Supplier<? extends InputGenerator> factory) {
+			this.name = name;
+			this.factory = factory;
+		}
+		
+	}
+	
+	static final List<Entry> ALL = Arrays.asList(
+			new Entry("day01", day01.Generator::new),
+			new Entry("day02", day02.Generator::new),
+			new Entry("day03", day03.Generator::new),
+			new Entry("day04", day04.Generator::new),
+			new Entry("day05", day05.Generator::new),
+			new Entry("day06", day06.Generator::new),
+			new Entry("day07", day07.Generator::new),
+			new Entry("day08", day08.Generator::new),
+			new Entry("day09", day09.Generator::new),
+			new Entry("day10", day10.Generator::new),
+			new Entry("day11", day11.Generator::new),
+			new Entry("day12", day12.Generator::new),
+			new Entry("day13", day13.Generator::new),
+			new Entry("day14", day14.Generator::new),
+			new Entry("day15", day15.Generator::new),
+			new Entry("day16", day16.Generator::new),
+			new Entry("day17", day17.Generator::new),
+			new Entry("day18", day18.Generator::new),
+			new Entry("day19", day19.Generator::new),
+			new Entry("day20", day20.Generator::new),
+			new Entry("day21", day21.Generator::new),
+			new Entry("day22", day22.Generator::new),
+			new Entry("day23", day23.Generator::new),
+			new Entry("day25", day25.Generator::new)
+		);
+	
+	public static Path getOutputFile(String name, int scale) {
+		return Paths.get("files", "scaled", name, "x" + scale + ".txt");
+	}
+	
+	/**
+	 * The Random behind the input for (name, scale, seed), so the same
+	 * input can also be generated in memory, as Verify does
+	 */
+	static Random createRandom(String name, int scale, long seed) {
+		return new Random(seed * 31 + name.hashCode() * 17L + scale);
+	}
+	
+	public static Path generate(Entry entry, int scale, long seed) throws IOException {
+		Path file = getOutputFile(entry.name, scale);
+		Files.createDirectories(file.getParent());
+		
+		Random random = createRandom(entry.name, scale, seed);
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(file), 1 << 16))) {
+			entry.factory.get().generate(scale, random, out);
+		}
+		return file;
+	}
+	
+	public static void main(String [] args) {
+		try {
+			long seed = 2022;
+			List<Integer> scales = new ArrayList<>();
+			List<String> names = new ArrayList<>();
+			
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-seed"))
+					seed = Long.parseLong(args[++i]);
+				else if (arg.equals("-scale"))
+					scales.add(Integer.parseInt(args[++i]));
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else
+					names.add(arg);
+			}
+			if (scales.isEmpty())
+				scales = List.of(1, 100);
+			
+			for (Entry entry : ALL) {
+				if (!Benchmarks.matches(entry.name, names))
+					continue;
+				for (int scale : scales) {
+					long t0 = System.nanoTime();
+					Path file = generate(entry, scale, seed);
+					System.out.println(String.format("%s: %,d bytes in %.1f ms", file, Files.size(file), (System.nanoTime() - t0) / 1e6));
+				}
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
+}
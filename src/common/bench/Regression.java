@@ -0,0 +1,342 @@
+package common.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import common.Log;
+import common.PhaseStats;
+import common.Solver;
+import common.Solvers;
+
+/**
+ * Checks the solvers against a stored baseline, so that a change which
+ * makes a day slower (or wrong) doesn't go unnoticed.
+ *
+ * Each day is run on files/dayNN/input.txt a few times to warm up, then
+ * a few more times measured: one run is a fresh Solver that is parsed and
+ * then asked for both parts.  The median time and allocation of each
+ * phase are compared with the baseline, and a phase is flagged if either
+ * is worse by more than the threshold, or if its answer has changed.
+ * Times below a millisecond and allocations below 64 KB are too noisy
+ * to compare, so such phases are only checked for answers.  A phase in
+ * the baseline that the run no longer produces (a part that stopped
+ * being solved) is flagged as missing.
+ *
+ * With -record, the results are written to the baseline instead,
+ * replacing all entries for the days that were run and keeping the rest.
+ * The baseline (files/baseline.txt by default) is a text file meant to be
+ * kept under version control, with a format version on its first line:
+ *
+ *   #regression-baseline 1
+ *   day01	part1	1234567	65536	71934
+ *
+ * The columns are name, phase, median nanos, median bytes and answer,
+ * separated by tabs, with tabs, newlines and backslashes in the answer
+ * escaped.
+ *
+ * Usage: Regression [-record] [-baseline path] [-wi n] [-i n] [-threshold percent] [name...]
+ *
+ * Names are matched by prefix, as in Benchmarks.  With no names every
+ * day is run, leaving out the optIn entries (see Solvers).  Exits with status 1 if
+ * anything regressed, so it can be used as a build step.
+ */
+public class Regression {
+
+	public static final String HEADER = "#regression-baseline 1";
+
+	public static final String [] PHASES = {"parse", "part1", "part2"};
+
+	int warmupRuns = 5;
+	int measureRuns = 10;
+	double threshold = 0.10;
+	long minNanos = 1_000_000L;
+	long minBytes = 64 * 1024L;
+
+	public Regression setWarmupRuns(int count) {
+		this.warmupRuns = count;
+		return this;
+	}
+	public Regression setMeasureRuns(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("Invalid run count: " + count);
+		this.measureRuns = count;
+		return this;
+	}
+	/**
+	 * Sets how much worse than the baseline (0.1 is 10%) a phase may be
+	 * before it is flagged
+	 */
+	public Regression setThreshold(double threshold) {
+		this.threshold = threshold;
+		return this;
+	}
+
+	/**
+	 * Median measurements for one phase of one solver
+	 */
+	public static class Entry {
+
+		public final String name;
+		public final String phase;
+		public final long nanos;
+		public final long allocatedBytes;
+		public final String answer;
+
+		public Entry(String name, String phase, long nanos, long allocatedBytes, String answer) {
+			this.name = name;
+			this.phase = phase;
+			this.nanos = nanos;
+			this.allocatedBytes = allocatedBytes;
+			this.answer = answer;
+		}
+
+		public String getKey() {
+			return name + "." + phase;
+		}
+
+	}
+
+	/**
+	 * Runs the solver and returns an Entry per phase, leaving out parts
+	 * that aren't solved
+	 */
+	public List<Entry> measure(Solvers.Entry solverEntry) throws Exception {
+		Path input = solverEntry.getDefaultInput();
+		String [] answers = new String[PHASES.length];
+		for (int i=0; i<warmupRuns; i++)
+			runOnce(solverEntry, input, answers);
+
+		long [][] nanos = new long[PHASES.length][measureRuns];
+		long [][] bytes = new long[PHASES.length][measureRuns];
+		for (int i=0; i<measureRuns; i++) {
+			PhaseStats [] stats = runOnce(solverEntry, input, answers);
+			for (int phase=0; phase<PHASES.length; phase++) {
+				if (stats[phase] == null)
+					continue;
+				nanos[phase][i] = stats[phase].nanos;
+				bytes[phase][i] = stats[phase].allocatedBytes;
+			}
+		}
+
+		List<Entry> entries = new ArrayList<>();
+		for (int phase=0; phase<PHASES.length; phase++) {
+			if (phase > 0 && answers[phase] == null)
+				continue;
+			entries.add(new Entry(solverEntry.name, PHASES[phase], median(nanos[phase]),
+					median(bytes[phase]), phase == 0 ? "-" : answers[phase]));
+		}
+		return entries;
+	}
+
+	/**
+	 * Parses the input into a fresh Solver and solves both parts,
+	 * returning the stats per phase and filling in the answers (both null
+	 * for parts that aren't solved)
+	 */
+	PhaseStats [] runOnce(Solvers.Entry solverEntry, Path input, String [] answers) throws Exception {
+		PhaseStats [] stats = new PhaseStats[PHASES.length];
+		Solver solver = solverEntry.create();
+		stats[0] = PhaseStats.start();
+		solver.parse(input);
+		stats[0].stop();
+
+		for (int part=1; part<=2; part++) {
+			answers[part] = null;
+			try {
+				PhaseStats phase = PhaseStats.start();
+				Object answer = part == 1 ? solver.part1() : solver.part2();
+				stats[part] = phase.stop();
+				answers[part] = String.valueOf(answer);
+			}
+			catch(UnsupportedOperationException e) {
+				//not solved, so nothing to measure
+			}
+		}
+		return stats;
+	}
+
+	static long median(long [] values) {
+		long [] sorted = values.clone();
+		Arrays.sort(sorted);
+		int mid = sorted.length / 2;
+		return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+	}
+
+	/**
+	 * Compares a measurement with its baseline, returning a description
+	 * of each problem (empty if there are none)
+	 */
+	public List<String> compare(Entry baseline, Entry current) {
+		List<String> problems = new ArrayList<>();
+		if (!baseline.answer.equals(current.answer))
+			problems.add("answer changed from " + escape(baseline.answer) + " to " + escape(current.answer));
+		if (Math.max(baseline.nanos, current.nanos) >= minNanos &&
+				current.nanos > baseline.nanos * (1 + threshold)) {
+			problems.add(String.format("time %.3f ms -> %.3f ms (%+.0f%%)",
+					baseline.nanos / 1e6, current.nanos / 1e6, getChange(baseline.nanos, current.nanos)));
+		}
+		if (Math.max(baseline.allocatedBytes, current.allocatedBytes) >= minBytes &&
+				current.allocatedBytes > baseline.allocatedBytes * (1 + threshold)) {
+			problems.add(String.format("allocation %s -> %s (%+.0f%%)",
+					PhaseStats.formatBytes(baseline.allocatedBytes), PhaseStats.formatBytes(current.allocatedBytes),
+					getChange(baseline.allocatedBytes, current.allocatedBytes)));
+		}
+		return problems;
+	}
+
+	static boolean contains(List<Entry> entries, String key) {
+		for (Entry entry : entries) {
+			if (entry.getKey().equals(key))
+				return true;
+		}
+		return false;
+	}
+
+	static double getChange(long before, long after) {
+		return before == 0 ? 100.0 : (after - before) * 100.0 / before;
+	}
+
+	// --- Baseline file ------------------------------------------------------
+
+	/**
+	 * Reads a baseline, keyed by "name.phase".  A missing file is an
+	 * empty baseline.
+	 */
+	public static Map<String, Entry> readBaseline(Path file) throws IOException {
+		Map<String, Entry> baseline = new TreeMap<>();
+		if (!Files.exists(file))
+			return baseline;
+
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		if (lines.isEmpty() || !lines.get(0).equals(HEADER))
+			throw new IOException("Not a version 1 baseline: " + file);
+		for (int i=1; i<lines.size(); i++) {
+			String line = lines.get(i);
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			String [] fields = line.split("\t", -1);
+			if (fields.length != 5)
+				throw new IOException("Invalid baseline line " + (i + 1) + " in " + file + ": " + line);
+			Entry entry = new Entry(fields[0], fields[1], Long.parseLong(fields[2]),
+					Long.parseLong(fields[3]), unescape(fields[4]));
+			baseline.put(entry.getKey(), entry);
+		}
+		return baseline;
+	}
+
+	public static void writeBaseline(Path file, Map<String, Entry> baseline) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add(HEADER);
+		for (Entry entry : baseline.values()) {
+			lines.add(entry.name + "\t" + entry.phase + "\t" + entry.nanos + "\t" +
+					entry.allocatedBytes + "\t" + escape(entry.answer));
+		}
+		Files.write(file, lines, StandardCharsets.UTF_8);
+	}
+
+	static String escape(String text) {
+		return text.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	static String unescape(String text) {
+		StringBuilder s = new StringBuilder(text.length());
+		for (int i=0; i<text.length(); i++) {
+			char ch = text.charAt(i);
+			if (ch == '\\' && i + 1 < text.length()) {
+				ch = text.charAt(++i);
+				s.append(ch == 't' ? '\t' : ch == 'n' ? '\n' : ch == 'r' ? '\r' : ch);
+			} else {
+				s.append(ch);
+			}
+		}
+		return s.toString();
+	}
+
+	public static void main(String [] args) {
+		try {
+			Regression regression = new Regression();
+			Log.setLevel(Log.Level.OFF);
+			Path file = Paths.get("files", "baseline.txt");
+			boolean record = false;
+			List<String> names = new ArrayList<>();
+
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-record"))
+					record = true;
+				else if (arg.equals("-baseline"))
+					file = Paths.get(args[++i]);
+				else if (arg.equals("-wi"))
+					regression.setWarmupRuns(Integer.parseInt(args[++i]));
+				else if (arg.equals("-i"))
+					regression.setMeasureRuns(Integer.parseInt(args[++i]));
+				else if (arg.equals("-threshold"))
+					regression.setThreshold(Double.parseDouble(args[++i]) / 100);
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else
+					names.add(arg);
+			}
+
+			Map<String, Entry> baseline = readBaseline(file);
+			int regressions = 0;
+			for (Solvers.Entry solverEntry : names.isEmpty() ? Solvers.getDefaults() : Solvers.ALL) {
+				if (!Benchmarks.matches(solverEntry.name, names))
+					continue;
+
+				List<Entry> entries = regression.measure(solverEntry);
+				for (Entry entry : entries) {
+					String label = String.format("%-20s %10.3f ms %10s", entry.getKey(),
+							entry.nanos / 1e6, PhaseStats.formatBytes(entry.allocatedBytes));
+					Entry previous = baseline.get(entry.getKey());
+					if (record) {
+						baseline.put(entry.getKey(), entry);
+						System.out.println(label + "  recorded");
+					} else if (previous == null) {
+						System.out.println(label + "  no baseline");
+					} else {
+						List<String> problems = regression.compare(previous, entry);
+						if (problems.isEmpty()) {
+							System.out.println(label + "  ok");
+						} else {
+							regressions++;
+							System.out.println(label + "  REGRESSED: " + String.join(", ", problems));
+						}
+					}
+				}
+				for (String phase : PHASES) {
+					String key = solverEntry.name + "." + phase;
+					if (!baseline.containsKey(key) || contains(entries, key))
+						continue;
+					if (record) {
+						baseline.remove(key);
+					} else {
+						regressions++;
+						System.out.println(String.format("%-20s %10s    %10s  MISSING: in the baseline but not solved", key, "-", "-"));
+					}
+				}
+			}
+
+			if (record) {
+				writeBaseline(file, baseline);
+				System.out.println("Wrote " + file);
+			} else if (regressions > 0) {
+				System.out.println(regressions + " regression(s) against " + file);
+				System.exit(1);
+			}
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(2);
+		}
+	}
+
+}
@@ -0,0 +1,300 @@
+package common.bench;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import common.Solver;
+
+/**
+ * Checks the optimized solvers against the slower reference solutions
+ * they replaced, so a fast path can be the only one that ships.
+ *
+ * For each pair, inputs are generated at random with the day's
+ * generator (see Generators) and both solvers are run on each.  The
+ * answers must be equal, and the optimized solver must not throw where
+ * the reference doesn't.  Inputs on which the reference itself fails
+ * are not held against the optimized solver.
+ *
+ * A mismatching input is then shrunk while it still mismatches: first
+ * by removing chunks of lines, from half the input down to single
+ * lines, then, if every line has the same length (a grid), by removing
+ * columns the same way.  Both keep the input well-formed for most days
+ * and stop at an input where removing any single line or column makes
+ * the solvers agree.  The shrunk input is written to
+ * files/verify/NAME-SEED.txt, and the original can be regenerated with
+ * Generators -seed SEED -scale SCALE NAME.
+ *
+ * Usage: Verify [-seed n] [-runs n] [-scale n] [name...]
+ *
+ * Run i uses seed + i.  Names are matched by prefix, as in Benchmarks.
+ * Exits with status 1 if any pair disagreed.
+ */
+public class Verify {
+
+	/**
+	 * A reference solver and the optimized one that must agree with it
+	 */
+	static class Pair {
+
+		String name;
+		Supplier<? extends Solver> reference;
+		Supplier<? extends Solver> optimized;
+
+		public Pair(String name, Supplier<? extends Solver> reference, Supplier<? extends Solver> optimized) {
+			this.name = name;
+			this.reference = reference;
+			this.optimized = optimized;
+		}
+
+	}
+
+	static final List<Pair> ALL = Arrays.asList(
+			new Pair("day07", day07.Reference::new, day07.Solution::new),
+			new Pair("day08", day08.Reference::new, day08.Solution::new)
+		);
+
+	/**
+	 * The answers of one solver on one input.  A part that isn't solved
+	 * has a null answer, and error is the first exception thrown, if any.
+	 */
+	static class Result {
+
+		final String [] answers = new String[2];
+		Throwable error;
+
+		public String toString() {
+			if (error != null)
+				return "threw " + error;
+			return "part1=" + answers[0] + " part2=" + answers[1];
+		}
+
+	}
+
+	long seed = 2022;
+	int runs = 20;
+	int scale = 1;
+	Path outputDir = Paths.get("files", "verify");
+
+	int tries;
+
+	public static Result run(Supplier<? extends Solver> factory, Path input) {
+		Result result = new Result();
+		try {
+			Solver solver = factory.get();
+			solver.parse(input);
+			for (int part=1; part<=2; part++) {
+				try {
+					Object answer = part == 1 ? solver.part1() : solver.part2();
+					result.answers[part - 1] = String.valueOf(answer);
+				}
+				catch(UnsupportedOperationException e) {
+					//not solved
+				}
+			}
+		}
+		catch(Exception | StackOverflowError e) {
+			result.error = e;
+		}
+		return result;
+	}
+
+	public static boolean isMismatch(Result reference, Result optimized) {
+		if (reference.error != null)
+			return false;
+		return optimized.error != null || !Arrays.equals(reference.answers, optimized.answers);
+	}
+
+	/**
+	 * Runs the pair on the given number of random inputs, stopping at the
+	 * first mismatch, which is shrunk and reported.  Returns true if they
+	 * agreed on every input.
+	 */
+	public boolean verify(Pair pair, Generators.Entry generator) throws Exception {
+		Path file = Files.createTempFile("verify-" + pair.name, ".txt");
+		try {
+			int skipped = 0;
+			for (int i=0; i<runs; i++) {
+				long runSeed = seed + i;
+				List<String> lines = generate(generator, runSeed);
+				write(file, lines);
+				Result reference = run(pair.reference, file);
+				Result optimized = run(pair.optimized, file);
+				if (reference.error != null) {
+					skipped++;
+					continue;
+				}
+				if (isMismatch(reference, optimized)) {
+					report(pair, runSeed, lines, reference, optimized, file);
+					return false;
+				}
+			}
+			System.out.println(String.format("%s: %d inputs agree (scale %d, seeds %d to %d%s)",
+					pair.name, runs - skipped, scale, seed, seed + runs - 1,
+					skipped > 0 ? ", " + skipped + " skipped as the reference failed" : ""));
+			return true;
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	List<String> generate(Generators.Entry generator, long runSeed) {
+		StringWriter text = new StringWriter();
+		try (PrintWriter out = new PrintWriter(text)) {
+			generator.factory.get().generate(scale, Generators.createRandom(generator.name, scale, runSeed), out);
+		}
+		return new ArrayList<>(Arrays.asList(text.toString().split("\r?\n")));
+	}
+
+	void report(Pair pair, long runSeed, List<String> lines, Result reference, Result optimized, Path file) throws Exception {
+		System.out.println(pair.name + ": MISMATCH on seed " + runSeed + " (scale " + scale + ", " + lines.size() + " lines)");
+		System.out.println("  reference: " + reference);
+		System.out.println("  optimized: " + optimized);
+
+		long t0 = System.nanoTime();
+		tries = 0;
+		List<String> shrunk = shrink(pair, lines, file);
+		write(file, shrunk);
+		reference = run(pair.reference, file);
+		optimized = run(pair.optimized, file);
+
+		Path output = outputDir.resolve(pair.name + "-" + runSeed + ".txt");
+		Files.createDirectories(outputDir);
+		write(output, shrunk);
+		System.out.println(String.format("  shrunk to %d lines in %d tries (%.1f ms): %s",
+				shrunk.size(), tries, (System.nanoTime() - t0) / 1e6, output));
+		System.out.println("  reference: " + reference);
+		System.out.println("  optimized: " + optimized);
+		if (shrunk.size() <= 20) {
+			for (String line : shrunk)
+				System.out.println("    " + line);
+		}
+	}
+
+	/**
+	 * Returns the smallest input found, by removing lines and then
+	 * columns, on which the pair still disagrees
+	 */
+	List<String> shrink(Pair pair, List<String> lines, Path file) throws Exception {
+		while (true) {
+			int size = lines.size();
+			int width = getSize(lines, true);
+			lines = shrink(pair, lines, file, false);
+			if (isRectangular(lines))
+				lines = shrink(pair, lines, file, true);
+			if (lines.size() == size && getSize(lines, true) == width)
+				return lines;
+		}
+	}
+
+	/**
+	 * One pass of removing chunks of lines (or columns), halving the
+	 * chunk size from half the input down to 1
+	 */
+	List<String> shrink(Pair pair, List<String> lines, Path file, boolean columns) throws Exception {
+		for (int chunk=Math.max(1, getSize(lines, columns) / 2); chunk>=1; chunk/=2) {
+			int start = 0;
+			while (start < getSize(lines, columns)) {
+				List<String> candidate = remove(lines, start, chunk, columns);
+				if (getSize(candidate, columns) > 0 && isFailing(pair, candidate, file))
+					lines = candidate;
+				else
+					start += chunk;
+			}
+		}
+		return lines;
+	}
+
+	boolean isFailing(Pair pair, List<String> lines, Path file) throws Exception {
+		tries++;
+		write(file, lines);
+		return isMismatch(run(pair.reference, file), run(pair.optimized, file));
+	}
+
+	static int getSize(List<String> lines, boolean columns) {
+		if (!columns)
+			return lines.size();
+		return lines.isEmpty() ? 0 : lines.get(0).length();
+	}
+
+	/**
+	 * Returns a copy of the lines without count lines (or columns) from
+	 * start
+	 */
+	static List<String> remove(List<String> lines, int start, int count, boolean columns) {
+		List<String> result = new ArrayList<>();
+		if (!columns) {
+			result.addAll(lines.subList(0, start));
+			result.addAll(lines.subList(Math.min(lines.size(), start + count), lines.size()));
+			return result;
+		}
+		for (String line : lines) {
+			int end = Math.min(line.length(), start + count);
+			result.add(line.substring(0, start) + line.substring(end));
+		}
+		return result;
+	}
+
+	static boolean isRectangular(List<String> lines) {
+		if (lines.isEmpty() || lines.get(0).isEmpty())
+			return false;
+		for (String line : lines) {
+			if (line.length() != lines.get(0).length())
+				return false;
+		}
+		return true;
+	}
+
+	static void write(Path file, List<String> lines) throws Exception {
+		Files.write(file, lines);
+	}
+
+	public static void main(String [] args) {
+		try {
+			Verify verify = new Verify();
+			List<String> names = new ArrayList<>();
+
+			for (int i=0; i<args.length; i++) {
+				String arg = args[i];
+				if (arg.equals("-seed"))
+					verify.seed = Long.parseLong(args[++i]);
+				else if (arg.equals("-runs"))
+					verify.runs = Integer.parseInt(args[++i]);
+				else if (arg.equals("-scale"))
+					verify.scale = Integer.parseInt(args[++i]);
+				else if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				else
+					names.add(arg);
+			}
+
+			boolean agreed = true;
+			for (Pair pair : ALL) {
+				if (!Benchmarks.matches(pair.name, names))
+					continue;
+				Generators.Entry generator = null;
+				for (Generators.Entry entry : Generators.ALL) {
+					if (entry.name.equals(pair.name))
+						generator = entry;
+				}
+				if (generator == null)
+					throw new IllegalStateException("No generator for " + pair.name);
+				agreed &= verify.verify(pair, generator);
+			}
+			if (!agreed)
+				System.exit(1);
+		}
+		catch(Exception e) {
+			e.printStackTrace();
+			System.exit(2);
+		}
+	}
+
+}
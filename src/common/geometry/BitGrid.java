@@ -0,0 +1,301 @@
+package common.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A grid of on/off cells stored as bits, one or more longs per row, so
+ * a whole row (64 cells per word) can be tested or updated at once.
+ * Cell (x, y) is bit x % 64 of word x / 64 of row y.  Bits past the
+ * width are always 0.
+ *
+ * Rows are exposed as long arrays for bitwise work on whole rows:
+ *
+ *   long [] west = new long[grid.words];
+ *   BitGrid.shift(grid.getRow(y), 1, west);    //bit x is cell (x-1, y)
+ *
+ * Shapes of up to 64 columns are given as masks, one long per row from
+ * the bottom, with bit 0 the shape's left column.  collides() tests a
+ * shape at (x, y) against the grid, and or() and andNot() draw or
+ * erase it.
+ *
+ * The height grows as needed (see ensureHeight()); rows outside the
+ * grid read as empty.
+ */
+public class BitGrid {
+
+	public final int width;
+	public final int words;
+
+	long [][] rows;
+	int height;
+	final long [] emptyRow;
+	final long lastMask;
+
+	public BitGrid(int width, int height) {
+		if (width < 1)
+			throw new IllegalArgumentException("Invalid width: " + width);
+		this.width = width;
+		this.words = (width + 63) >>> 6;
+		this.emptyRow = new long[words];
+		this.lastMask = (width & 63) == 0 ? -1L : (1L << (width & 63)) - 1;
+		this.rows = new long[Math.max(height, 1)][];
+		for (int y=0; y<height; y++)
+			rows[y] = new long[words];
+		this.height = height;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Adds empty rows at the top until there are at least the given
+	 * number
+	 */
+	public void ensureHeight(int height) {
+		if (height <= this.height)
+			return;
+		if (height > rows.length)
+			rows = Arrays.copyOf(rows, Math.max(height, rows.length * 2));
+		for (int y=this.height; y<height; y++)
+			rows[y] = new long[words];
+		this.height = height;
+	}
+
+	// --- Cells --------------------------------------------------------------
+
+	public boolean get(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height)
+			return false;
+		return (rows[y][x >>> 6] & (1L << x)) != 0;
+	}
+
+	public void set(int x, int y) {
+		checkX(x);
+		rows[y][x >>> 6] |= 1L << x;
+	}
+	public void clear(int x, int y) {
+		checkX(x);
+		rows[y][x >>> 6] &= ~(1L << x);
+	}
+	public void set(int x, int y, boolean value) {
+		if (value)
+			set(x, y);
+		else
+			clear(x, y);
+	}
+
+	void checkX(int x) {
+		if (x < 0 || x >= width)
+			throw new IndexOutOfBoundsException("x out of range: " + x);
+	}
+
+	// --- Rows ---------------------------------------------------------------
+
+	/**
+	 * Returns the words of the row, which may be changed in place as long
+	 * as the bits past the width are left 0.  Rows outside the grid are a
+	 * shared array of zeros that must not be changed.
+	 */
+	public long [] getRow(int y) {
+		return y < 0 || y >= height ? emptyRow : rows[y];
+	}
+
+	/**
+	 * Returns 64 cells of the row starting at column x, cell x in bit 0.
+	 * Cells past the width (or outside the grid) are 0.
+	 */
+	public long getBits(int x, int y) {
+		if (y < 0 || y >= height || x >= width)
+			return 0;
+		long [] row = rows[y];
+		int word = x >> 6;
+		int offset = x & 63;
+		if (x < 0) {
+			//only the first word can reach back into view:
+			return -x < 64 ? row[0] << -x : 0;
+		}
+		long bits = row[word] >>> offset;
+		if (offset != 0 && word + 1 < words)
+			bits |= row[word + 1] << (64 - offset);
+		return bits;
+	}
+
+	/**
+	 * Returns true if the row has no cells set
+	 */
+	public boolean isRowEmpty(int y) {
+		long [] row = getRow(y);
+		for (long word : row) {
+			if (word != 0)
+				return false;
+		}
+		return true;
+	}
+
+	public int countRow(int y) {
+		int count = 0;
+		for (long word : getRow(y))
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	/**
+	 * Sets out to the row moved by dx columns (to higher x if positive),
+	 * so bit x of out is cell x - dx.  Cells moved past either edge are
+	 * dropped.  |dx| must be less than 64.
+	 */
+	public static void shift(long [] row, int dx, long [] out) {
+		int n = row.length;
+		if (dx > 0) {
+			for (int i=n-1; i>=0; i--)
+				out[i] = (row[i] << dx) | (i > 0 ? row[i - 1] >>> (64 - dx) : 0);
+		} else if (dx < 0) {
+			int s = -dx;
+			for (int i=0; i<n; i++)
+				out[i] = (row[i] >>> s) | (i + 1 < n ? row[i + 1] << (64 - s) : 0);
+		} else if (out != row) {
+			System.arraycopy(row, 0, out, 0, n);
+		}
+	}
+
+	/**
+	 * Clears any bits past the width in a row built with shift() or
+	 * other row operations
+	 */
+	public void trim(long [] row) {
+		row[words - 1] &= lastMask;
+	}
+
+	/**
+	 * Sets out, a row of bit planes, to how many of each cell's 8
+	 * neighbors are set, for one word of row y: bit b of word out[p] is
+	 * bit p of the count for the cell at bit b.  out needs 4 planes.
+	 * The counting is a carry-save adder over the 8 neighbor words, so
+	 * all 64 cells are counted at once.
+	 */
+	public void countNeighbors(int y, int word, long [] out) {
+		long c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+		for (int dy=-1; dy<=1; dy++) {
+			long [] row = getRow(y + dy);
+			long center = row[word];
+			long west = (center << 1) | (word > 0 ? row[word - 1] >>> 63 : 0);
+			long east = (center >>> 1) | (word + 1 < words ? row[word + 1] << 63 : 0);
+			for (int i=0; i<3; i++) {
+				if (dy == 0 && i == 1)
+					continue;
+				long bits = i == 0 ? west : i == 1 ? center : east;
+				long carry0 = c0 & bits;
+				c0 ^= bits;
+				long carry1 = c1 & carry0;
+				c1 ^= carry0;
+				long carry2 = c2 & carry1;
+				c2 ^= carry1;
+				c3 |= carry2;
+			}
+		}
+		out[0] = c0;
+		out[1] = c1;
+		out[2] = c2;
+		out[3] = c3;
+	}
+
+	// --- Shapes -------------------------------------------------------------
+
+	/**
+	 * Returns true if any cell of the shape, with its bottom left at
+	 * (x, y), is already set.  Parts of the shape outside the grid don't
+	 * collide.
+	 */
+	public boolean collides(long [] shape, int x, int y) {
+		for (int i=0; i<shape.length; i++) {
+			if ((getBits(x, y + i) & shape[i]) != 0)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sets the cells of the shape with its bottom left at (x, y), growing
+	 * the grid upward if needed.  The shape must lie within the width,
+	 * and y can't be negative.
+	 */
+	public void or(long [] shape, int x, int y) {
+		ensureHeight(y + shape.length);
+		for (int i=0; i<shape.length; i++)
+			apply(shape[i], x, rows[y + i], false);
+	}
+
+	/**
+	 * Clears the cells of the shape with its bottom left at (x, y)
+	 */
+	public void andNot(long [] shape, int x, int y) {
+		for (int i=Math.max(0, -y); i<shape.length && y + i < height; i++)
+			apply(shape[i], x, rows[y + i], true);
+	}
+
+	void apply(long bits, int x, long [] row, boolean clear) {
+		if (bits == 0)
+			return;
+		if (x < 0 || x + 64 - Long.numberOfLeadingZeros(bits) > width)
+			throw new IndexOutOfBoundsException("Shape out of range at x = " + x);
+		int word = x >>> 6;
+		int offset = x & 63;
+		long low = bits << offset;
+		long high = offset == 0 ? 0 : bits >>> (64 - offset);
+		if (clear) {
+			row[word] &= ~low;
+			if (high != 0)
+				row[word + 1] &= ~high;
+		} else {
+			row[word] |= low;
+			if (high != 0)
+				row[word + 1] |= high;
+		}
+	}
+
+	// --- Whole grid ---------------------------------------------------------
+
+	public int countSet() {
+		int count = 0;
+		for (int y=0; y<height; y++)
+			count += countRow(y);
+		return count;
+	}
+
+	public void clear() {
+		for (int y=0; y<height; y++)
+			Arrays.fill(rows[y], 0);
+	}
+
+	public BitGrid copy() {
+		BitGrid copy = new BitGrid(width, height);
+		for (int y=0; y<height; y++)
+			System.arraycopy(rows[y], 0, copy.rows[y], 0, words);
+		return copy;
+	}
+
+	/**
+	 * Returns a copy of the grid with margin empty cells added on every
+	 * side, so cell (x, y) moves to (x + margin, y + margin)
+	 */
+	public BitGrid grow(int margin) {
+		BitGrid grown = new BitGrid(width + 2 * margin, height + 2 * margin);
+		for (int y=0; y<height; y++) {
+			for (int x=0; x<width; x+=64)
+				grown.apply(getBits(x, y), x + margin, grown.rows[y + margin], false);
+		}
+		return grown;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int y=0; y<height; y++) {
+			for (int x=0; x<width; x++)
+				s.append(get(x, y) ? '#' : '.');
+			s.append('\n');
+		}
+		return s.toString();
+	}
+
+}
@@ -0,0 +1,240 @@
+package common.geometry;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import common.LineView;
+import common.MappedLineReader;
+
+/**
+ * A rectangular grid of single-byte cells stored row-major in one flat
+ * array.  The grid is surrounded by a one-cell border holding a
+ * sentinel value, so a walk can step to any 4- or 8-neighbor without
+ * checking bounds and simply stop when it reaches the sentinel.
+ *
+ * Cells are addressed either by (row, col), where both start at 0, or
+ * by their index in cells[].  Neighbors are found by adding an offset:
+ *
+ *   int index = grid.index(row, col);
+ *   for (int offset : grid.neighbors4) {
+ *       int next = index + offset;
+ *       if (grid.cells[next] != border)
+ *           ...
+ *   }
+ */
+public class Grid2D {
+
+	//offsets are in clockwise order starting from up
+	public static final int UP = 0;
+	public static final int RIGHT = 1;
+	public static final int DOWN = 2;
+	public static final int LEFT = 3;
+
+	public final int height;
+	public final int width;
+	public final int stride;
+	public final byte border;
+	public final byte [] cells;
+
+	/**
+	 * Offsets to the up, right, down and left neighbors
+	 */
+	public final int [] neighbors4;
+	/**
+	 * Offsets to the up, up-right, right, down-right, down, down-left,
+	 * left and up-left neighbors
+	 */
+	public final int [] neighbors8;
+
+	/**
+	 * Creates a grid with every cell, including the border, set to the
+	 * border value
+	 */
+	public Grid2D(int height, int width, char border) {
+		this.height = height;
+		this.width = width;
+		this.stride = width + 2;
+		this.border = (byte)border;
+		this.cells = new byte[(height + 2) * stride];
+		Arrays.fill(cells, this.border);
+
+		this.neighbors4 = new int[] {-stride, 1, stride, -1};
+		this.neighbors8 = new int[] {-stride, -stride+1, 1, stride+1, stride, stride-1, -1, -stride-1};
+	}
+
+	public int index(int row, int col) {
+		return (row + 1) * stride + col + 1;
+	}
+	public int getRow(int index) {
+		return index / stride - 1;
+	}
+	public int getCol(int index) {
+		return index % stride - 1;
+	}
+
+	/**
+	 * Returns the index offset for a step of (dRow, dCol)
+	 */
+	public int offset(int dRow, int dCol) {
+		return dRow * stride + dCol;
+	}
+
+	public boolean contains(int row, int col) {
+		return row >= 0 && row < height && col >= 0 && col < width;
+	}
+	public boolean isBorder(int index) {
+		int row = getRow(index);
+		int col = getCol(index);
+		return !contains(row, col);
+	}
+
+	/**
+	 * Rows and columns from -1 to height or width may be read, which
+	 * returns the border value
+	 */
+	public char get(int row, int col) {
+		return (char)(cells[index(row, col)] & 0xFF);
+	}
+	public char get(int index) {
+		return (char)(cells[index] & 0xFF);
+	}
+
+	public void set(int row, int col, char value) {
+		cells[index(row, col)] = (byte)value;
+	}
+	public void set(int index, char value) {
+		cells[index] = (byte)value;
+	}
+
+	/**
+	 * Sets every cell inside the border to the given value
+	 */
+	public void fill(char value) {
+		for (int row=0; row<height; row++) {
+			int start = index(row, 0);
+			Arrays.fill(cells, start, start + width, (byte)value);
+		}
+	}
+
+	/**
+	 * Returns the index of the first cell with the given value, scanning
+	 * row by row, or -1 if there is none
+	 */
+	public int find(char value) {
+		byte b = (byte)value;
+		for (int row=0; row<height; row++) {
+			int start = index(row, 0);
+			for (int i=start; i<start+width; i++) {
+				if (cells[i] == b)
+					return i;
+			}
+		}
+		return -1;
+	}
+
+	public int count(char value) {
+		byte b = (byte)value;
+		int count = 0;
+		for (int row=0; row<height; row++) {
+			int start = index(row, 0);
+			for (int i=start; i<start+width; i++) {
+				if (cells[i] == b)
+					count++;
+			}
+		}
+		return count;
+	}
+
+	public Grid2D copy() {
+		Grid2D copy = new Grid2D(height, width, (char)(border & 0xFF));
+		System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+		return copy;
+	}
+
+	/**
+	 * Writes the size, border value and cells (border included), for
+	 * read() to restore
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(height);
+		out.writeInt(width);
+		out.writeByte(border);
+		out.write(cells);
+	}
+
+	public static Grid2D read(ByteBuffer in) {
+		int height = in.getInt();
+		int width = in.getInt();
+		Grid2D grid = new Grid2D(height, width, (char)(in.get() & 0xFF));
+		in.get(grid.cells);
+		return grid;
+	}
+
+	/**
+	 * Loads a grid from the lines of a file, one row per line.  Trailing
+	 * blank lines are ignored and short lines are padded with the border
+	 * value, which is also used for the border.
+	 */
+	public static Grid2D load(File file, char border) throws IOException {
+		try (MappedLineReader reader = MappedLineReader.open(file)) {
+			int height = 0;
+			int width = 0;
+			int lineCount = 0;
+			for (LineView line : reader) {
+				lineCount++;
+				if (!line.isEmpty()) {
+					height = lineCount;
+					width = Math.max(width, line.length());
+				}
+			}
+
+			//copy the bytes of each row straight out of the mapped buffer:
+			Grid2D grid = new Grid2D(height, width, border);
+			int row = 0;
+			for (LineView line : reader) {
+				if (row == height)
+					break;
+				int start = grid.index(row, 0);
+				for (int i=0; i<line.length(); i++)
+					grid.cells[start + i] = line.buffer().get(line.start() + i);
+				row++;
+			}
+			return grid;
+		}
+	}
+
+	/**
+	 * Builds a grid from lines of text, padding short lines with the
+	 * border value
+	 */
+	public static Grid2D fromLines(List<? extends CharSequence> lines, char border) {
+		int height = lines.size();
+		int width = 0;
+		for (CharSequence line : lines)
+			width = Math.max(width, line.length());
+
+		Grid2D grid = new Grid2D(height, width, border);
+		for (int row=0; row<height; row++) {
+			CharSequence line = lines.get(row);
+			int start = grid.index(row, 0);
+			for (int i=0; i<line.length(); i++)
+				grid.cells[start + i] = (byte)line.charAt(i);
+		}
+		return grid;
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int row=0; row<height; row++) {
+			for (int col=0; col<width; col++)
+				s.append(get(row, col));
+			s.append('\n');
+		}
+		return s.toString();
+	}
+
+}
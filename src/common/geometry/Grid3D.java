@@ -0,0 +1,212 @@
+package common.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A dense set of voxels within a bounding box, stored as one bit per
+ * voxel in a long[].  The box is padded by one empty voxel on every
+ * side, which keeps neighbor tests and flood fills free of bounds
+ * checks and lets faces be counted a word at a time: two voxels that
+ * are adjacent along an axis are always a fixed number of bits apart,
+ * and the padding guarantees that bits which are that far apart across
+ * a row or plane boundary are never both set.
+ *
+ * Voxels are addressed by (x, y, z) or by bit index, with z varying
+ * fastest.  Use neighbors6 to step from an index to its neighbors.
+ */
+public class Grid3D {
+
+	//coordinates of the first (padding) voxel:
+	public final int originX;
+	public final int originY;
+	public final int originZ;
+
+	//dimensions including the padding:
+	public final int sizeX;
+	public final int sizeY;
+	public final int sizeZ;
+
+	/**
+	 * Index offsets to the +x, -x, +y, -y, +z and -z neighbors
+	 */
+	public final int [] neighbors6;
+
+	final long [] bits;
+	final int length;
+	int count;
+
+	/**
+	 * Creates an empty grid that can hold voxels from (minX, minY, minZ)
+	 * to (maxX, maxY, maxZ) inclusive
+	 */
+	public Grid3D(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+		this.originX = minX - 1;
+		this.originY = minY - 1;
+		this.originZ = minZ - 1;
+		this.sizeX = maxX - minX + 3;
+		this.sizeY = maxY - minY + 3;
+		this.sizeZ = maxZ - minZ + 3;
+
+		long length = (long)sizeX * sizeY * sizeZ;
+		if (sizeX < 3 || sizeY < 3 || sizeZ < 3 || length > Integer.MAX_VALUE - 64)
+			throw new IllegalArgumentException("Invalid bounds: (" + minX + ", " + minY + ", " + minZ +
+					") to (" + maxX + ", " + maxY + ", " + maxZ + ")");
+		this.length = (int)length;
+		this.bits = new long[(this.length + 63) >>> 6];
+
+		int planeSize = sizeY * sizeZ;
+		this.neighbors6 = new int[] {planeSize, -planeSize, sizeZ, -sizeZ, 1, -1};
+	}
+
+	/**
+	 * Creates an empty grid with the same bounds as the given one
+	 */
+	public Grid3D(Grid3D grid) {
+		this(grid.originX + 1, grid.originY + 1, grid.originZ + 1,
+			 grid.originX + grid.sizeX - 2, grid.originY + grid.sizeY - 2, grid.originZ + grid.sizeZ - 2);
+	}
+
+	public boolean contains(int x, int y, int z) {
+		x -= originX;
+		y -= originY;
+		z -= originZ;
+		if (x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ)
+			return false;
+		return test((x * sizeY + y) * sizeZ + z);
+	}
+
+	/**
+	 * Adds a voxel, returning true if it was not already set.  The voxel
+	 * must lie within the bounds given to the constructor.
+	 */
+	public boolean add(int x, int y, int z) {
+		if (x <= originX || x >= originX + sizeX - 1 ||
+			y <= originY || y >= originY + sizeY - 1 ||
+			z <= originZ || z >= originZ + sizeZ - 1)
+			throw new IllegalArgumentException("Voxel out of bounds: " + x + ", " + y + ", " + z);
+		return set(index(x, y, z));
+	}
+
+	public int index(int x, int y, int z) {
+		return ((x - originX) * sizeY + (y - originY)) * sizeZ + (z - originZ);
+	}
+	public int getX(int index) {
+		return index / (sizeY * sizeZ) + originX;
+	}
+	public int getY(int index) {
+		return (index / sizeZ) % sizeY + originY;
+	}
+	public int getZ(int index) {
+		return index % sizeZ + originZ;
+	}
+
+	public boolean test(int index) {
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+	/**
+	 * Sets the bit at the index, returning true if it was not already set
+	 */
+	public boolean set(int index) {
+		long word = bits[index >>> 6];
+		long bit = 1L << index;
+		if ((word & bit) != 0)
+			return false;
+		bits[index >>> 6] = word | bit;
+		count++;
+		return true;
+	}
+
+	public int size() {
+		return count;
+	}
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Counts the exposed faces of all the voxels, i.e. the faces that
+	 * don't touch another voxel in the set
+	 */
+	public long getSurfaceArea() {
+		long adjacent = 0;
+		for (int i=0; i<neighbors6.length; i+=2)
+			adjacent += countAdjacent(this, this, neighbors6[i]);
+		return 6L * count - 2 * adjacent;
+	}
+
+	/**
+	 * Counts the faces where a voxel in this set touches a voxel in the
+	 * other, which must have the same bounds
+	 */
+	public long getContactArea(Grid3D other) {
+		if (other.length != length || other.sizeZ != sizeZ || other.sizeY != sizeY)
+			throw new IllegalArgumentException("Grids have different bounds");
+
+		long contact = 0;
+		for (int i=0; i<neighbors6.length; i+=2) {
+			contact += countAdjacent(this, other, neighbors6[i]);
+			contact += countAdjacent(other, this, neighbors6[i]);
+		}
+		return contact;
+	}
+
+	/**
+	 * Counts the indices i where a has bit i set and b has bit i+offset
+	 * set, for a positive offset, 64 voxels at a time
+	 */
+	static long countAdjacent(Grid3D a, Grid3D b, int offset) {
+		long [] bitsA = a.bits;
+		long [] bitsB = b.bits;
+		int wordShift = offset >>> 6;
+		int bitShift = offset & 63;
+
+		long count = 0;
+		for (int i=0; i+wordShift<bitsB.length; i++) {
+			int j = i + wordShift;
+			long shifted = bitsB[j] >>> bitShift;
+			if (bitShift != 0 && j + 1 < bitsB.length)
+				shifted |= bitsB[j+1] << (64 - bitShift);
+			count += Long.bitCount(bitsA[i] & shifted);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns every empty voxel that can be reached from outside the
+	 * bounding box by moving between face-adjacent empty voxels.  This
+	 * includes the padding around the box.
+	 */
+	public Grid3D getOutside() {
+		Grid3D outside = new Grid3D(this);
+
+		//depth-first with an explicit stack, marking voxels as they are
+		//pushed so that each one is pushed at most once:
+		int [] stack = new int[1024];
+		int size = 0;
+		outside.set(0);
+		stack[size++] = 0;
+		while (size > 0) {
+			int index = stack[--size];
+			for (int offset : neighbors6) {
+				int next = index + offset;
+				//stepping off the end of a row or plane only wraps into
+				//more padding, so only the ends of the array need a check:
+				if (next < 0 || next >= length || test(next) || !outside.set(next))
+					continue;
+				if (size == stack.length)
+					stack = Arrays.copyOf(stack, size * 2);
+				stack[size++] = next;
+			}
+		}
+		return outside;
+	}
+
+	/**
+	 * Returns the surface area that can be reached from outside, which
+	 * excludes the faces around enclosed pockets of empty voxels
+	 */
+	public long getExteriorSurfaceArea() {
+		return getContactArea(getOutside());
+	}
+
+}
@@ -0,0 +1,42 @@
+package common.geometry;
+
+/**
+ * Hash functions for primitive keys.  These are used by the
+ * open-addressing collections in this package, where a poor hash
+ * (such as x + 17*y) quickly degrades into long probe sequences.
+ */
+public class Hashing {
+
+	/**
+	 * MurmurHash3 64-bit finalizer (fmix64).  Every input bit affects
+	 * every output bit, so packed coordinates that differ only in their
+	 * high (x) half still spread across the whole table.
+	 */
+	public static long mix64(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	public static int mix(long key) {
+		return (int)mix64(key);
+	}
+
+	/**
+	 * Returns the smallest power of two table size that can hold the
+	 * given number of entries at a load factor of 1/2.
+	 */
+	static int tableSizeFor(int expectedSize) {
+		int capacity = 4;
+		while (capacity < expectedSize * 2L) {
+			capacity <<= 1;
+			if (capacity <= 0)
+				throw new IllegalArgumentException("Table too large: " + expectedSize);
+		}
+		return capacity;
+	}
+
+}
@@ -0,0 +1,52 @@
+package common.geometry;
+
+/**
+ * Immutable (x, y) point of ints, for use as a key in hash-based
+ * collections.  The hash runs the packed coordinates through the
+ * MurmurHash3 finalizer, so neighbouring, diagonal and shifted points all
+ * land in different buckets.
+ */
+public final class IntXY {
+
+	public final int x;
+	public final int y;
+
+	public IntXY(int x, int y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public IntXY plus(int dx, int dy) {
+		return new IntXY(x + dx, y + dy);
+	}
+
+	public int manhattanDistanceTo(IntXY xy) {
+		return Math.abs(xy.x - x) + Math.abs(xy.y - y);
+	}
+
+	/**
+	 * Returns the point packed with XY.pack(), for the primitive collections
+	 */
+	public long pack() {
+		return XY.pack(x, y);
+	}
+	public static IntXY unpack(long key) {
+		return new IntXY(XY.unpackX(key), XY.unpackY(key));
+	}
+
+	public int hashCode() {
+		return Hashing.mix(XY.pack(x, y));
+	}
+	public boolean equals(Object o) {
+		if (!(o instanceof IntXY))
+			return false;
+
+		IntXY that = (IntXY)o;
+		return this.x == that.x && this.y == that.y;
+	}
+
+	public String toString() {
+		return x + ", " + y;
+	}
+
+}
@@ -0,0 +1,208 @@
+package common.geometry;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Open-addressing hash set of primitive longs.  Intended for coordinates
+ * packed with XY.pack() or XYZ.pack(), so membership tests do not need to
+ * allocate a key object.  Uses linear probing with backward-shift
+ * deletion; slot value 0 marks an empty slot and the key 0 itself is
+ * tracked separately.
+ */
+public class LongHashSet {
+
+	long [] keys;
+	int mask;
+	int size;
+	boolean hasZeroKey;
+	
+	public LongHashSet() {
+		this(16);
+	}
+	public LongHashSet(int expectedSize) {
+		this.keys = new long[Hashing.tableSizeFor(expectedSize)];
+		this.mask = keys.length - 1;
+	}
+	
+	public int size() {
+		return hasZeroKey ? size + 1 : size;
+	}
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	public boolean contains(long key) {
+		if (key == 0)
+			return hasZeroKey;
+		
+		int idx = Hashing.mix(key) & mask;
+		long k;
+		while ((k = keys[idx]) != 0) {
+			if (k == key)
+				return true;
+			idx = (idx + 1) & mask;
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds the key, returning true if it was not already present
+	 */
+	public boolean add(long key) {
+		if (key == 0) {
+			if (hasZeroKey)
+				return false;
+			hasZeroKey = true;
+			return true;
+		}
+		
+		int idx = Hashing.mix(key) & mask;
+		long k;
+		while ((k = keys[idx]) != 0) {
+			if (k == key)
+				return false;
+			idx = (idx + 1) & mask;
+		}
+		
+		keys[idx] = key;
+		if (++size >= (mask + 1) >> 1)
+			rehash(keys.length << 1);
+		return true;
+	}
+	
+	public void addAll(LongHashSet set) {
+		if (set.hasZeroKey)
+			add(0);
+		for (long key : set.keys) {
+			if (key != 0)
+				add(key);
+		}
+	}
+	
+	/**
+	 * Removes the key, returning true if it was present
+	 */
+	public boolean remove(long key) {
+		if (key == 0) {
+			boolean had = hasZeroKey;
+			hasZeroKey = false;
+			return had;
+		}
+		
+		int idx = Hashing.mix(key) & mask;
+		long k;
+		while ((k = keys[idx]) != 0) {
+			if (k == key) {
+				shiftKeys(idx);
+				size--;
+				return true;
+			}
+			idx = (idx + 1) & mask;
+		}
+		return false;
+	}
+	
+	public void clear() {
+		Arrays.fill(keys, 0);
+		size = 0;
+		hasZeroKey = false;
+	}
+	
+	/**
+	 * Iterates over the keys without boxing them.  The set must not be
+	 * modified during iteration.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new KeyIterator(keys, hasZeroKey);
+	}
+	
+	public long [] toArray() {
+		long [] array = new long[size()];
+		int i = 0;
+		for (PrimitiveIterator.OfLong it = iterator(); it.hasNext(); )
+			array[i++] = it.nextLong();
+		return array;
+	}
+	
+	/**
+	 * Backward-shift deletion: moves later entries of the probe sequence
+	 * into the freed slot so that lookups never need tombstones.
+	 */
+	protected void shiftKeys(int pos) {
+		while (true) {
+			int last = pos;
+			pos = (pos + 1) & mask;
+			long curr;
+			while (true) {
+				if ((curr = keys[pos]) == 0) {
+					keys[last] = 0;
+					return;
+				}
+				int slot = Hashing.mix(curr) & mask;
+				if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos))
+					break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = curr;
+		}
+	}
+	
+	protected void rehash(int capacity) {
+		long [] oldKeys = this.keys;
+		this.keys = new long[capacity];
+		this.mask = capacity - 1;
+		
+		for (long key : oldKeys) {
+			if (key != 0) {
+				int idx = Hashing.mix(key) & mask;
+				while (keys[idx] != 0)
+					idx = (idx + 1) & mask;
+				keys[idx] = key;
+			}
+		}
+	}
+	
+	/**
+	 * Iterates over the non-empty slots of a key table (plus the zero
+	 * key, if present).  Shared by the map classes in this package.
+	 */
+	static class KeyIterator implements PrimitiveIterator.OfLong {
+		
+		long [] keys;
+		boolean zeroPending;
+		int next = -1;
+		
+		KeyIterator(long [] keys, boolean hasZeroKey) {
+			this.keys = keys;
+			this.zeroPending = hasZeroKey;
+			advance();
+		}
+		
+		void advance() {
+			next++;
+			while (next < keys.length && keys[next] == 0)
+				next++;
+		}
+		
+		public boolean hasNext() {
+			return zeroPending || next < keys.length;
+		}
+		
+		public long nextLong() {
+			if (zeroPending) {
+				zeroPending = false;
+				return 0;
+			}
+			if (next >= keys.length)
+				throw new NoSuchElementException();
+			
+			long key = keys[next];
+			advance();
+			return key;
+		}
+		
+	}
+	
+}
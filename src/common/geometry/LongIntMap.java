@@ -0,0 +1,176 @@
+package common.geometry;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
+/**
+ * Open-addressing map from primitive long keys (usually packed
+ * coordinates) to primitive int values.  See LongHashSet for details
+ * of the table layout.
+ */
+public class LongIntMap {
+
+	long [] keys;
+	int [] values;
+	int mask;
+	int size;
+	
+	boolean hasZeroKey;
+	int zeroValue;
+	
+	public LongIntMap() {
+		this(16);
+	}
+	public LongIntMap(int expectedSize) {
+		int capacity = Hashing.tableSizeFor(expectedSize);
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity - 1;
+	}
+	
+	public LongIntMap copy() {
+		LongIntMap copy = new LongIntMap();
+		copy.keys = keys.clone();
+		copy.values = values.clone();
+		copy.mask = mask;
+		copy.size = size;
+		copy.hasZeroKey = hasZeroKey;
+		copy.zeroValue = zeroValue;
+		return copy;
+	}
+	
+	public int size() {
+		return hasZeroKey ? size + 1 : size;
+	}
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	protected int indexOf(long key) {
+		int idx = Hashing.mix(key) & mask;
+		long k;
+		while ((k = keys[idx]) != 0) {
+			if (k == key)
+				return idx;
+			idx = (idx + 1) & mask;
+		}
+		return -(idx + 1);
+	}
+	
+	public boolean containsKey(long key) {
+		if (key == 0)
+			return hasZeroKey;
+		return indexOf(key) >= 0;
+	}
+	
+	/**
+	 * Returns the value for the key, or defaultValue if it is not present
+	 */
+	public int get(long key, int defaultValue) {
+		if (key == 0)
+			return hasZeroKey ? zeroValue : defaultValue;
+		
+		int idx = indexOf(key);
+		return idx >= 0 ? values[idx] : defaultValue;
+	}
+	
+	public void put(long key, int value) {
+		if (key == 0) {
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+		
+		int idx = indexOf(key);
+		if (idx >= 0) {
+			values[idx] = value;
+			return;
+		}
+		
+		idx = -idx - 1;
+		keys[idx] = key;
+		values[idx] = value;
+		if (++size >= (mask + 1) >> 1)
+			rehash(keys.length << 1);
+	}
+	
+	/**
+	 * Adds delta to the value for the key (treating a missing key as 0)
+	 * and returns the new value.
+	 */
+	public int increment(long key, int delta) {
+		int value = get(key, 0) + delta;
+		put(key, value);
+		return value;
+	}
+	
+	public boolean remove(long key) {
+		if (key == 0) {
+			boolean had = hasZeroKey;
+			hasZeroKey = false;
+			return had;
+		}
+		
+		int idx = indexOf(key);
+		if (idx < 0)
+			return false;
+		
+		shiftKeys(idx);
+		size--;
+		return true;
+	}
+	
+	public void clear() {
+		Arrays.fill(keys, 0);
+		size = 0;
+		hasZeroKey = false;
+	}
+	
+	/**
+	 * Iterates over the keys without boxing them.  The map must not be
+	 * modified during iteration.
+	 */
+	public PrimitiveIterator.OfLong keyIterator() {
+		return new LongHashSet.KeyIterator(keys, hasZeroKey);
+	}
+	
+	protected void shiftKeys(int pos) {
+		while (true) {
+			int last = pos;
+			pos = (pos + 1) & mask;
+			long curr;
+			while (true) {
+				if ((curr = keys[pos]) == 0) {
+					keys[last] = 0;
+					return;
+				}
+				int slot = Hashing.mix(curr) & mask;
+				if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos))
+					break;
+				pos = (pos + 1) & mask;
+			}
+			keys[last] = curr;
+			values[last] = values[pos];
+		}
+	}
+	
+	protected void rehash(int capacity) {
+		long [] oldKeys = this.keys;
+		int [] oldValues = this.values;
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity - 1;
+		
+		for (int i=0; i<oldKeys.length; i++) {
+			long key = oldKeys[i];
+			if (key != 0) {
+				int idx = Hashing.mix(key) & mask;
+				while (keys[idx] != 0)
+					idx = (idx + 1) & mask;
+				keys[idx] = key;
+				values[idx] = oldValues[i];
+			}
+		}
+	}
+	
+}
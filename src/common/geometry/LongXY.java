@@ -0,0 +1,41 @@
+package common.geometry;
+
+/**
+ * Immutable (x, y) point of longs, for use as a key in hash-based
+ * collections.  Each coordinate is mixed in turn with the MurmurHash3
+ * finalizer, so the hash depends on every bit of both.
+ */
+public final class LongXY {
+
+	public final long x;
+	public final long y;
+
+	public LongXY(long x, long y) {
+		this.x = x;
+		this.y = y;
+	}
+
+	public LongXY plus(long dx, long dy) {
+		return new LongXY(x + dx, y + dy);
+	}
+
+	public long manhattanDistanceTo(LongXY xy) {
+		return Math.abs(xy.x - x) + Math.abs(xy.y - y);
+	}
+
+	public int hashCode() {
+		return Hashing.mix(Hashing.mix64(x) + y);
+	}
+	public boolean equals(Object o) {
+		if (!(o instanceof LongXY))
+			return false;
+
+		LongXY that = (LongXY)o;
+		return this.x == that.x && this.y == that.y;
+	}
+
+	public String toString() {
+		return x + ", " + y;
+	}
+
+}
@@ -11,7 +11,7 @@ public class XY<T> {
 	}
 		
 	public int hashCode() {
-		return x.hashCode() + (17 * y.hashCode());
+		return Hashing.mix(pack(x.hashCode(), y.hashCode()));
 	}
 	
 	@SuppressWarnings("rawtypes")
@@ -27,4 +27,29 @@ public class XY<T> {
 		return x.toString() + ", " + y.toString();
 	}	
 	
+	// --- Packed coordinates -------------------------------------------------
+	
+	/**
+	 * Packs an (x, y) pair into a single long, with x in the high 32 bits
+	 * and y in the low 32 bits.  Used as keys for LongHashSet and
+	 * LongIntMap.
+	 */
+	public static long pack(int x, int y) {
+		return ((long)x << 32) | (y & 0xFFFFFFFFL);
+	}
+	public static long pack(XY<Integer> xy) {
+		return pack(xy.x, xy.y);
+	}
+	
+	public static int unpackX(long key) {
+		return (int)(key >> 32);
+	}
+	public static int unpackY(long key) {
+		return (int)key;
+	}
+	
+	public static XY<Integer> unpack(long key) {
+		return new XY<Integer>(unpackX(key), unpackY(key));
+	}
+	
 }
@@ -13,7 +13,7 @@ public class XYZ<T> {
 	}
 		
 	public int hashCode() {
-		return x.hashCode() + (17 * y.hashCode()) + (34 * z.hashCode());
+		return Hashing.mix(Hashing.mix64(XY.pack(x.hashCode(), y.hashCode())) + z.hashCode());
 	}
 	
 	@SuppressWarnings("rawtypes")
@@ -31,4 +31,41 @@ public class XYZ<T> {
 		return x.toString() + ", " + y.toString() + ", " + z.toString();
 	}	
 	
+	// --- Packed coordinates -------------------------------------------------
+	
+	static final int BITS = 21;
+	static final long MASK = (1L << BITS) - 1;
+	
+	/**
+	 * Largest (and, negated and minus 1, smallest) coordinate that survives packing
+	 */
+	public static final int MAX_PACKED_VALUE = (1 << (BITS - 1)) - 1;
+	
+	/**
+	 * Packs an (x, y, z) triple into a single long using 21 signed bits
+	 * per coordinate (x highest, z lowest).  Used as keys for LongHashSet
+	 * and LongIntMap.
+	 */
+	public static long pack(int x, int y, int z) {
+		return ((x & MASK) << (2 * BITS)) | ((y & MASK) << BITS) | (z & MASK);
+	}
+	public static long pack(XYZ<Integer> xyz) {
+		return pack(xyz.x, xyz.y, xyz.z);
+	}
+	
+	//shift each field up to bit 63 and then back down to sign-extend it:
+	public static int unpackX(long key) {
+		return (int)((key << (64 - 3 * BITS)) >> (64 - BITS));
+	}
+	public static int unpackY(long key) {
+		return (int)((key << (64 - 2 * BITS)) >> (64 - BITS));
+	}
+	public static int unpackZ(long key) {
+		return (int)((key << (64 - BITS)) >> (64 - BITS));
+	}
+	
+	public static XYZ<Integer> unpack(long key) {
+		return new XYZ<Integer>(unpackX(key), unpackY(key), unpackZ(key));
+	}
+	
 }
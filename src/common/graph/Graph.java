@@ -0,0 +1,25 @@
+package common.graph;
+
+/**
+ * A graph whose nodes are the ints 0 to size()-1, searched with
+ * GraphSearch.  Neighbors are written into caller-supplied arrays so a
+ * search never allocates per node.
+ */
+public interface Graph {
+
+	public int size();
+
+	/**
+	 * Returns the largest number of neighbors any node can have, which
+	 * sizes the arrays passed to getNeighbors()
+	 */
+	public int getMaxDegree();
+
+	/**
+	 * Writes the neighbors of the node, and the (non-negative) cost of
+	 * moving to each, and returns how many there are.  Costs are ignored
+	 * by breadth-first search, so unweighted graphs may leave them unset.
+	 */
+	public int getNeighbors(int node, int [] neighbors, int [] costs);
+
+}
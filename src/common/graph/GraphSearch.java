@@ -0,0 +1,298 @@
+package common.graph;
+
+import java.util.Arrays;
+
+/**
+ * Shortest-path search over a Graph: breadth-first for unweighted
+ * graphs, Dijkstra for weighted ones, and A* when a heuristic is given.
+ * Searches can start from several sources at once and stop as soon as
+ * a goal is reached.  Dijkstra's priorities never decrease, so it
+ * queues on a RadixHeap; A* uses a binary heap, since a heuristic that
+ * is admissible but not consistent can lower them.  Such a heuristic can
+ * also close a node before its shortest path is found, so A* reopens a
+ * closed node whose distance improves.  With a consistent heuristic
+ * that never happens and each node is visited once.
+ *
+ * All state lives in int arrays sized to the graph, allocated once.
+ * The arrays are not cleared between searches: each search has its own
+ * stamp, and a node only counts as reached if it carries the current
+ * one.  So repeated searches cost only the nodes they visit.
+ *
+ * Usage:
+ *
+ *   GraphSearch search = new GraphSearch(graph);
+ *   int end = search.bfs(start, goal);
+ *   if (end >= 0)
+ *       int steps = search.getDistance(end);
+ */
+public class GraphSearch {
+
+	/**
+	 * Decides when a search can stop
+	 */
+	public static interface Goal {
+
+		public boolean isGoal(int node);
+
+	}
+
+	/**
+	 * Estimates the remaining cost from a node to the nearest goal.  For
+	 * A* to find the shortest path, it must never overestimate.  If it is
+	 * also consistent (an edge never lowers the estimate by more than its
+	 * cost), no node is visited twice.
+	 */
+	public static interface Heuristic {
+
+		public int estimate(int node);
+
+	}
+
+	final Graph graph;
+
+	//per node, valid only where reached[node] == stamp:
+	final int [] reached;
+	final int [] closed;
+	final int [] distance;
+	final int [] parent;
+	int stamp;
+
+	final int [] queue;
+	long [] heap = new long[64];
+	int heapSize;
+	final RadixHeap radixHeap = new RadixHeap();
+
+	final int [] neighbors;
+	final int [] costs;
+	int visitedCount;
+
+	public GraphSearch(Graph graph) {
+		int size = graph.size();
+		this.graph = graph;
+		this.reached = new int[size];
+		this.closed = new int[size];
+		this.distance = new int[size];
+		this.parent = new int[size];
+		this.queue = new int[size];
+		this.neighbors = new int[graph.getMaxDegree()];
+		this.costs = new int[graph.getMaxDegree()];
+	}
+
+	/**
+	 * Returns a goal that is reached only at the given node
+	 */
+	public static Goal target(final int node) {
+		return new Goal() {
+			public boolean isGoal(int n) {
+				return n == node;
+			}
+		};
+	}
+
+	// --- Searches -----------------------------------------------------------
+
+	public int bfs(int source, Goal goal) {
+		return bfs(new int[] {source}, 1, goal);
+	}
+
+	/**
+	 * Breadth-first search from the first count sources, ignoring edge
+	 * costs.  Returns the first goal node reached, or -1 if none can be
+	 * reached (in which case every reachable node has been visited).
+	 * The goal may be null to visit every reachable node.
+	 */
+	public int bfs(int [] sources, int count, Goal goal) {
+		begin();
+		int head = 0;
+		int tail = 0;
+		for (int i=0; i<count; i++) {
+			int source = sources[i];
+			if (reach(source, 0, -1))
+				queue[tail++] = source;
+		}
+
+		while (head < tail) {
+			int node = queue[head++];
+			visitedCount++;
+			if (goal != null && goal.isGoal(node))
+				return node;
+
+			int next = distance[node] + 1;
+			int degree = graph.getNeighbors(node, neighbors, costs);
+			for (int i=0; i<degree; i++) {
+				int neighbor = neighbors[i];
+				if (reach(neighbor, next, node))
+					queue[tail++] = neighbor;
+			}
+		}
+		return -1;
+	}
+
+	public int dijkstra(int source, Goal goal) {
+		return aStar(new int[] {source}, 1, goal, null);
+	}
+	public int dijkstra(int [] sources, int count, Goal goal) {
+		return aStar(sources, count, goal, null);
+	}
+
+	public int aStar(int source, Goal goal, Heuristic heuristic) {
+		return aStar(new int[] {source}, 1, goal, heuristic);
+	}
+
+	/**
+	 * Lowest-cost search from the first count sources, guided by the
+	 * heuristic if it isn't null.  Returns the first goal node taken off
+	 * the queue, or -1 if none can be reached.  getVisitedCount() counts a
+	 * reopened node each time it is visited.
+	 */
+	public int aStar(int [] sources, int count, Goal goal, Heuristic heuristic) {
+		begin();
+		heapSize = 0;
+		radixHeap.clear();
+		for (int i=0; i<count; i++) {
+			int source = sources[i];
+			if (reach(source, 0, -1))
+				enqueue(heuristic == null ? 0 : heuristic.estimate(source), source, heuristic);
+		}
+
+		while (heuristic == null ? !radixHeap.isEmpty() : heapSize > 0) {
+			int node = heuristic == null ? radixHeap.pop() : (int)pop();
+			//a node may be queued more than once; only its best entry counts:
+			if (closed[node] == stamp)
+				continue;
+			closed[node] = stamp;
+			visitedCount++;
+			if (goal != null && goal.isGoal(node))
+				return node;
+
+			int dist = distance[node];
+			int degree = graph.getNeighbors(node, neighbors, costs);
+			for (int i=0; i<degree; i++) {
+				int neighbor = neighbors[i];
+				//with non-negative costs, Dijkstra never improves a closed node:
+				if (heuristic == null && closed[neighbor] == stamp)
+					continue;
+				int next = dist + costs[i];
+				if (reached[neighbor] != stamp || next < distance[neighbor]) {
+					//reopened if closed, as an inconsistent heuristic can close
+					//a node early:
+					closed[neighbor] = 0;
+					reached[neighbor] = stamp;
+					distance[neighbor] = next;
+					parent[neighbor] = node;
+					enqueue(heuristic == null ? next : next + heuristic.estimate(neighbor), neighbor, heuristic);
+				}
+			}
+		}
+		return -1;
+	}
+
+	// --- Results ------------------------------------------------------------
+
+	public boolean isReached(int node) {
+		return reached[node] == stamp;
+	}
+
+	/**
+	 * Returns the distance found to the node by the last search, or -1 if
+	 * it wasn't reached.  After an early exit this is only final for
+	 * nodes that were visited.
+	 */
+	public int getDistance(int node) {
+		return isReached(node) ? distance[node] : -1;
+	}
+
+	/**
+	 * Returns the number of nodes taken off the queue by the last search
+	 */
+	public int getVisitedCount() {
+		return visitedCount;
+	}
+
+	/**
+	 * Returns the nodes on the path from a source to the given node,
+	 * inclusive, or null if it wasn't reached
+	 */
+	public int [] getPath(int node) {
+		if (!isReached(node))
+			return null;
+
+		int length = 1;
+		for (int n=node; parent[n] >= 0; n=parent[n])
+			length++;
+
+		int [] path = new int[length];
+		for (int n=node; n >= 0; n=parent[n])
+			path[--length] = n;
+		return path;
+	}
+
+	// --- Internals ----------------------------------------------------------
+
+	void begin() {
+		stamp++;
+		if (stamp == 0) {
+			//wrapped around after 2^32 searches, so old stamps may repeat:
+			Arrays.fill(reached, 0);
+			Arrays.fill(closed, 0);
+			stamp = 1;
+		}
+		visitedCount = 0;
+	}
+
+	/**
+	 * Marks a node reached if it isn't already, returning true if so
+	 */
+	boolean reach(int node, int dist, int from) {
+		if (reached[node] == stamp)
+			return false;
+		reached[node] = stamp;
+		distance[node] = dist;
+		parent[node] = from;
+		return true;
+	}
+
+	void enqueue(int priority, int node, Heuristic heuristic) {
+		if (heuristic == null)
+			radixHeap.push(priority, node);
+		else
+			push(priority, node);
+	}
+
+	//binary min-heap of (priority << 32 | node):
+
+	void push(int priority, int node) {
+		if (heapSize == heap.length)
+			heap = Arrays.copyOf(heap, heapSize * 2);
+
+		long entry = ((long)priority << 32) | node;
+		int i = heapSize++;
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (heap[up] <= entry)
+				break;
+			heap[i] = heap[up];
+			i = up;
+		}
+		heap[i] = entry;
+	}
+
+	long pop() {
+		long top = heap[0];
+		long last = heap[--heapSize];
+		int i = 0;
+		int half = heapSize >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child])
+				child++;
+			if (last <= heap[child])
+				break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = last;
+		return top;
+	}
+
+}
@@ -0,0 +1,145 @@
+package common.graph;
+
+import java.util.Arrays;
+
+/**
+ * A monotone priority queue of int payloads keyed by non-negative int
+ * keys, where no key pushed is ever smaller than the last key popped.
+ * That holds for Dijkstra with non-negative costs (and A* with a
+ * consistent heuristic), and lets a radix heap replace a binary one.
+ *
+ * Entries are kept in 33 buckets by the highest bit in which their key
+ * differs from the last key popped: bucket 0 holds keys equal to it,
+ * and bucket b keys that first differ at bit b - 1.  Popping takes from
+ * bucket 0, and when that is empty, the lowest non-empty bucket is
+ * spread over the buckets below it around its smallest key.  An entry
+ * only ever moves to a lower bucket, so each is moved at most 32 times,
+ * and with small keys far fewer: pushes are O(1) and pops amortized
+ * O(log C) for keys spanning a range of C.
+ *
+ * Keys and payloads are stored in int arrays per bucket that grow as
+ * needed and are kept across clear(), so once warmed up, pushing
+ * allocates nothing.  Entries with equal keys come out in no particular
+ * order.
+ *
+ * Usage:
+ *
+ *   RadixHeap queue = new RadixHeap();
+ *   queue.push(0, source);
+ *   while (!queue.isEmpty()) {
+ *       int node = queue.pop();
+ *       int dist = queue.getLastKey();
+ *       ...
+ *   }
+ */
+public class RadixHeap {
+
+	static final int BUCKETS = 33;
+
+	final int [][] keys = new int[BUCKETS][];
+	final int [][] values = new int[BUCKETS][];
+	final int [] sizes = new int[BUCKETS];
+	int size;
+	int last;
+
+	public RadixHeap() {
+		for (int b=0; b<BUCKETS; b++) {
+			keys[b] = new int[16];
+			values[b] = new int[16];
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the key of the last entry popped (0 before any pop)
+	 */
+	public int getLastKey() {
+		return last;
+	}
+
+	/**
+	 * Empties the queue and resets the last key to 0
+	 */
+	public void clear() {
+		Arrays.fill(sizes, 0);
+		size = 0;
+		last = 0;
+	}
+
+	public void push(int key, int value) {
+		if (key < last)
+			throw new IllegalArgumentException("Key " + key + " is below the last key popped, " + last);
+		add(getBucket(key), key, value);
+		size++;
+	}
+
+	/**
+	 * Removes an entry with the smallest key and returns its payload.
+	 * Its key is then available from getLastKey().
+	 */
+	public int pop() {
+		if (size == 0)
+			throw new IllegalStateException("Queue is empty");
+		if (sizes[0] == 0)
+			redistribute();
+		size--;
+		return values[0][--sizes[0]];
+	}
+
+	/**
+	 * Returns the smallest key in the queue without removing it
+	 */
+	public int peekKey() {
+		if (size == 0)
+			throw new IllegalStateException("Queue is empty");
+		if (sizes[0] == 0)
+			redistribute();
+		return last;
+	}
+
+	int getBucket(int key) {
+		return key == last ? 0 : 32 - Integer.numberOfLeadingZeros(key ^ last);
+	}
+
+	/**
+	 * Makes the smallest key the last key and moves the bucket it was in
+	 * down, which puts it (and any equal keys) in bucket 0
+	 */
+	void redistribute() {
+		int b = 1;
+		while (sizes[b] == 0)
+			b++;
+
+		int [] bucketKeys = keys[b];
+		int [] bucketValues = values[b];
+		int count = sizes[b];
+		int min = bucketKeys[0];
+		for (int i=1; i<count; i++)
+			min = Math.min(min, bucketKeys[i]);
+
+		last = min;
+		sizes[b] = 0;
+		for (int i=0; i<count; i++) {
+			int key = bucketKeys[i];
+			add(getBucket(key), key, bucketValues[i]);
+		}
+	}
+
+	void add(int b, int key, int value) {
+		int n = sizes[b];
+		if (n == keys[b].length) {
+			keys[b] = Arrays.copyOf(keys[b], n * 2);
+			values[b] = Arrays.copyOf(values[b], n * 2);
+		}
+		keys[b][n] = key;
+		values[b][n] = value;
+		sizes[b] = n + 1;
+	}
+
+}
@@ -0,0 +1,358 @@
+package common.search;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import common.Metrics;
+
+/**
+ * Branch-and-bound depth-first search for the best value reachable from
+ * a SearchNode.  Nodes are pruned when their upper bound can't beat the
+ * best value so far, or when the optional TranspositionTable has seen
+ * the same state with a value at least as good.  Nodes may also count
+ * their own pruning rules (see SearchNode.getPruneRules()).
+ *
+ * With a parallelism above 1, the top of the tree is split into tasks
+ * on a ForkJoinPool, so idle threads steal subtrees from busy ones.  A
+ * node is split only while the pool is short of queued work and it is
+ * within the first few plies; below that each thread searches
+ * sequentially on its own copy of the node.  All threads share the best
+ * value (and the table), so a bound found by one prunes for all.
+ *
+ * Progress can be watched while the search runs through its
+ * SearchMonitor, over JMX or as periodic JSON lines (see
+ * setReportInterval(), or -Dsearch.report.millis for every search).
+ * The monitor is only registered with JMX while the search runs, and
+ * its final figures go to Metrics as "search.*" counters.
+ *
+ * An instance may search more than once: each search() starts from the
+ * lower bound (if any) with its counts reset.  The transposition table
+ * is kept, so it should be cleared between searches of different trees.
+ *
+ * Usage:
+ *
+ *   DepthFirstSearch search = new DepthFirstSearch(TranspositionTable.ofMegabytes(64));
+ *   int best = search.search(root);
+ */
+public class DepthFirstSearch {
+
+	//plies deeper than this are counted together in the depth histogram:
+	static final int MAX_DEPTH = 64;
+	//how many nodes a worker visits between publishing its counts:
+	static final int FLUSH_NODES = 4096;
+
+	final TranspositionTable table;
+	int parallelism = Runtime.getRuntime().availableProcessors();
+	int maxSplitPly = 8;
+	String name = "search";
+	long reportMillis = Long.getLong("search.report.millis", 0);
+	int lowerBound = Integer.MIN_VALUE;
+
+	final AtomicInteger best = new AtomicInteger(Integer.MIN_VALUE);
+	final LongAdder nodes = new LongAdder();
+	final LongAdder boundCutoffs = new LongAdder();
+	final LongAdder tableProbes = new LongAdder();
+	final LongAdder tableCutoffs = new LongAdder();
+	final AtomicLongArray depths = new AtomicLongArray(MAX_DEPTH + 1);
+	volatile String [] pruneRules = SearchNode.NO_RULES;
+	volatile AtomicLongArray prunes = new AtomicLongArray(0);
+
+	volatile boolean running;
+	volatile long startNanos;
+	volatile long endNanos;
+	volatile int rootBound;
+	SearchMonitor monitor;
+
+	public DepthFirstSearch() {
+		this(null);
+	}
+	/**
+	 * The table may be null to search without one
+	 */
+	public DepthFirstSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Sets the number of threads, which defaults to the number of
+	 * processors.  1 searches on the calling thread.
+	 */
+	public DepthFirstSearch setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Sets how many plies from the root work may be split into tasks
+	 */
+	public DepthFirstSearch setMaxSplitPly(int maxSplitPly) {
+		this.maxSplitPly = maxSplitPly;
+		return this;
+	}
+
+	/**
+	 * Sets the name the search is published under in JMX and reports
+	 */
+	public DepthFirstSearch setName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Sets how often progress is reported while searching, or 0 (the
+	 * default, unless -Dsearch.report.millis is set) for never
+	 */
+	public DepthFirstSearch setReportInterval(long millis) {
+		this.reportMillis = millis;
+		return this;
+	}
+
+	/**
+	 * Seeds the best value with one known to be achievable, such as from
+	 * a greedy solution, so pruning starts at once.  search() returns
+	 * this value if nothing beats it.  It applies to every later search.
+	 */
+	public void setLowerBound(int value) {
+		lowerBound = value;
+	}
+
+	/**
+	 * Searches from the root and returns the best value found
+	 */
+	public int search(SearchNode root) {
+		reset(root);
+		rootBound = root.getUpperBound();
+		startNanos = System.nanoTime();
+		running = true;
+		monitor = new SearchMonitor(this);
+		monitor.register();
+		Thread reporter = reportMillis > 0 ? monitor.startReporting(reportMillis) : null;
+		try {
+			if (parallelism == 1) {
+				Worker worker = new Worker();
+				worker.visit(root, 0);
+				worker.flush();
+			} else {
+				ForkJoinPool pool = new ForkJoinPool(parallelism);
+				try {
+					pool.invoke(new Task(root, 0));
+				}
+				finally {
+					pool.shutdown();
+				}
+			}
+		}
+		finally {
+			endNanos = System.nanoTime();
+			running = false;
+			if (reporter != null) {
+				reporter.interrupt();
+				monitor.report();
+			}
+			//so JMX doesn't keep the search (and its table) alive:
+			monitor.unregister();
+		}
+		Metrics.count("search.searches");
+		Metrics.count("search.nodes", nodes.sum());
+		Metrics.count("search.boundCutoffs", boundCutoffs.sum());
+		Metrics.count("search.tableProbes", tableProbes.sum());
+		Metrics.count("search.tableCutoffs", tableCutoffs.sum());
+		for (int i=0; i<pruneRules.length; i++)
+			Metrics.count("search.prunes." + pruneRules[i], prunes.get(i));
+		return best.get();
+	}
+
+	void reset(SearchNode root) {
+		pruneRules = root.getPruneRules();
+		prunes = new AtomicLongArray(pruneRules.length);
+		best.set(lowerBound);
+		nodes.reset();
+		boundCutoffs.reset();
+		tableProbes.reset();
+		tableCutoffs.reset();
+		for (int i=0; i<=MAX_DEPTH; i++)
+			depths.set(i, 0);
+	}
+
+	/**
+	 * Returns the monitor of the current (or last) search, or null if
+	 * there hasn't been one
+	 */
+	public SearchMonitor getMonitor() {
+		return monitor;
+	}
+
+	public int getBest() {
+		return best.get();
+	}
+
+	public long getNodeCount() {
+		return nodes.sum();
+	}
+	public long getBoundCutoffs() {
+		return boundCutoffs.sum();
+	}
+	public long getTableCutoffs() {
+		return tableCutoffs.sum();
+	}
+
+	void raise(int value) {
+		int current = best.get();
+		while (value > current) {
+			if (best.compareAndSet(current, value))
+				return;
+			current = best.get();
+		}
+	}
+
+	class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		final SearchNode node;
+		final int ply;
+
+		Task(SearchNode node, int ply) {
+			this.node = node;
+			this.ply = ply;
+		}
+
+		protected void compute() {
+			Worker worker = new Worker();
+			if (ply < maxSplitPly)
+				worker.visitSplitting(node, ply);
+			else
+				worker.visit(node, ply);
+			worker.flush();
+		}
+
+	}
+
+	/**
+	 * Searches on one thread, counting locally and publishing the counts
+	 * every FLUSH_NODES nodes
+	 */
+	class Worker {
+
+		int [][] moves = new int[64][];
+		long nodeCount;
+		long boundCount;
+		long probeCount;
+		long tableCount;
+		final long [] depthCounts = new long[MAX_DEPTH + 1];
+		final long [] pruneCounts = new long[pruneRules.length];
+
+		/**
+		 * Counts the node and returns true if it should be expanded
+		 */
+		boolean enter(SearchNode node, int ply) {
+			depthCounts[Math.min(ply, MAX_DEPTH)]++;
+			if (++nodeCount == FLUSH_NODES)
+				flush();
+			int value = node.getValue();
+			if (value > best.get())
+				raise(value);
+
+			if (node.getUpperBound() <= best.get()) {
+				boundCount++;
+				return false;
+			}
+			if (table != null) {
+				long key = node.getKey();
+				if (key != SearchNode.NO_KEY) {
+					probeCount++;
+					if (!table.offer(key, value, ply)) {
+						tableCount++;
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		void visit(SearchNode node, int ply) {
+			if (!enter(node, ply))
+				return;
+
+			int [] buffer = getMoveBuffer(node, ply);
+			int count = node.getMoves(buffer, pruneCounts);
+			for (int i=0; i<count; i++) {
+				int move = buffer[i];
+				node.apply(move);
+				visit(node, ply + 1);
+				node.undo(move);
+			}
+		}
+
+		void visitSplitting(SearchNode node, int ply) {
+			if (!enter(node, ply))
+				return;
+
+			int [] buffer = new int[node.getMaxMoves()];
+			int count = node.getMoves(buffer, pruneCounts);
+			if (count > 1 && ply < maxSplitPly && ForkJoinTask.getSurplusQueuedTaskCount() <= 2) {
+				Task [] tasks = new Task[count];
+				for (int i=0; i<count; i++) {
+					SearchNode child = node.copy();
+					child.apply(buffer[i]);
+					tasks[i] = new Task(child, ply + 1);
+				}
+				ForkJoinTask.invokeAll(tasks);
+				return;
+			}
+
+			for (int i=0; i<count; i++) {
+				int move = buffer[i];
+				node.apply(move);
+				if (ply + 1 < maxSplitPly)
+					visitSplitting(node, ply + 1);
+				else
+					visit(node, ply + 1);
+				node.undo(move);
+			}
+		}
+
+		int [] getMoveBuffer(SearchNode node, int ply) {
+			if (ply >= moves.length) {
+				int [][] grown = new int[Math.max(ply + 1, moves.length * 2)][];
+				System.arraycopy(moves, 0, grown, 0, moves.length);
+				moves = grown;
+			}
+			int [] buffer = moves[ply];
+			if (buffer == null || buffer.length < node.getMaxMoves())
+				buffer = moves[ply] = new int[node.getMaxMoves()];
+			return buffer;
+		}
+
+		void flush() {
+			nodes.add(nodeCount);
+			boundCutoffs.add(boundCount);
+			tableProbes.add(probeCount);
+			tableCutoffs.add(tableCount);
+			nodeCount = 0;
+			boundCount = 0;
+			probeCount = 0;
+			tableCount = 0;
+			for (int i=0; i<=MAX_DEPTH; i++) {
+				if (depthCounts[i] != 0) {
+					depths.addAndGet(i, depthCounts[i]);
+					depthCounts[i] = 0;
+				}
+			}
+			for (int i=0; i<pruneCounts.length; i++) {
+				if (pruneCounts[i] != 0) {
+					prunes.addAndGet(i, pruneCounts[i]);
+					pruneCounts[i] = 0;
+				}
+			}
+		}
+
+	}
+
+}
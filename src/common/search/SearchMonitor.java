@@ -0,0 +1,247 @@
+package common.search;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import common.Log;
+import common.Metrics;
+
+/**
+ * Live progress of a DepthFirstSearch, for watching long searches and
+ * tuning their pruning.  While a search runs its workers publish their
+ * counts every few thousand states, so the figures here lag by at most
+ * that much.
+ *
+ * The monitor is published over JMX while the search runs (see
+ * SearchMonitorMXBean) and, if the search has a report interval,
+ * written out periodically as a JSON line: to the Metrics output if one
+ * is set, or else to the log.  Each report also gives the rate over the
+ * interval since the previous one.
+ */
+public class SearchMonitor implements SearchMonitorMXBean {
+
+	//the monitor registered under each JMX name:
+	static final Map<ObjectName, SearchMonitor> registered = new HashMap<>();
+
+	final DepthFirstSearch search;
+	ObjectName objectName;
+
+	//for the rate between reports, the count and time of the last one:
+	long reportNodes;
+	long reportNanos;
+
+	SearchMonitor(DepthFirstSearch search) {
+		this.search = search;
+		this.reportNanos = search.startNanos;
+	}
+
+	public String getName() {
+		return search.name;
+	}
+
+	public boolean isRunning() {
+		return search.running;
+	}
+
+	public long getElapsedMillis() {
+		long end = search.running ? System.nanoTime() : search.endNanos;
+		return (end - search.startNanos) / 1_000_000L;
+	}
+
+	public long getNodes() {
+		return search.nodes.sum();
+	}
+
+	public double getNodesPerSecond() {
+		long elapsed = getNanos() - search.startNanos;
+		return elapsed > 0 ? search.nodes.sum() * 1e9 / elapsed : 0;
+	}
+
+	long getNanos() {
+		return search.running ? System.nanoTime() : search.endNanos;
+	}
+
+	public int getBest() {
+		return search.best.get();
+	}
+
+	public int getRootBound() {
+		return search.rootBound;
+	}
+
+	public long getBoundCutoffs() {
+		return search.boundCutoffs.sum();
+	}
+
+	public long getTableProbes() {
+		return search.tableProbes.sum();
+	}
+
+	public long getTableCutoffs() {
+		return search.tableCutoffs.sum();
+	}
+
+	public double getTableHitRate() {
+		long probes = getTableProbes();
+		return probes == 0 ? 0 : getTableCutoffs() / (double)probes;
+	}
+
+	public int getTableCapacity() {
+		return search.table == null ? 0 : search.table.capacity();
+	}
+
+	public int getTableUsed() {
+		return search.table == null ? 0 : search.table.countUsed();
+	}
+
+	public long [] getDepthHistogram() {
+		int length = search.depths.length();
+		while (length > 0 && search.depths.get(length - 1) == 0)
+			length--;
+		long [] histogram = new long[length];
+		for (int i=0; i<length; i++)
+			histogram[i] = search.depths.get(i);
+		return histogram;
+	}
+
+	public String [] getPruneRules() {
+		return search.pruneRules.clone();
+	}
+
+	public long [] getPruneCounts() {
+		AtomicLongArray prunes = search.prunes;
+		long [] counts = new long[prunes.length()];
+		for (int i=0; i<counts.length; i++)
+			counts[i] = prunes.get(i);
+		return counts;
+	}
+
+	/**
+	 * Returns the current figures as a JSON object on one line.  The
+	 * table usage is left out, as counting it scans the table.
+	 */
+	public String toJson() {
+		return toJson(-1);
+	}
+
+	/**
+	 * Same as toJson(), adding intervalNodesPerSecond if the rate isn't
+	 * negative
+	 */
+	String toJson(double intervalRate) {
+		StringBuilder s = new StringBuilder();
+		s.append(String.format(Locale.ROOT, "{\"time\":%d,\"type\":\"search\",\"name\":%s,\"running\":%b," +
+				"\"elapsedMillis\":%d,\"nodes\":%d,\"nodesPerSecond\":%.0f,\"best\":%d,\"rootBound\":%d," +
+				"\"boundCutoffs\":%d,\"tableProbes\":%d,\"tableCutoffs\":%d,\"tableHitRate\":%.4f,\"depths\":[",
+				System.currentTimeMillis(), Metrics.quote(getName()), isRunning(), getElapsedMillis(),
+				getNodes(), getNodesPerSecond(), getBest(), getRootBound(), getBoundCutoffs(),
+				getTableProbes(), getTableCutoffs(), getTableHitRate()));
+		long [] depths = getDepthHistogram();
+		for (int i=0; i<depths.length; i++) {
+			if (i > 0)
+				s.append(',');
+			s.append(depths[i]);
+		}
+		s.append("],\"prunes\":{");
+		String [] rules = search.pruneRules;
+		long [] counts = getPruneCounts();
+		for (int i=0; i<rules.length && i<counts.length; i++) {
+			if (i > 0)
+				s.append(',');
+			s.append(Metrics.quote(rules[i])).append(':').append(counts[i]);
+		}
+		s.append('}');
+		if (intervalRate >= 0)
+			s.append(String.format(Locale.ROOT, ",\"intervalNodesPerSecond\":%.0f", intervalRate));
+		return s.append('}').toString();
+	}
+
+	/**
+	 * Writes toJson() to the Metrics output, or to the log if there is
+	 * none, with the rate since the previous report
+	 */
+	public synchronized void report() {
+		long nodes = search.nodes.sum();
+		long now = getNanos();
+		double rate = now > reportNanos ? (nodes - reportNodes) * 1e9 / (now - reportNanos) : 0;
+		reportNodes = nodes;
+		reportNanos = now;
+		String json = toJson(rate);
+		if (!Metrics.writeLine(json))
+			Log.info(json);
+	}
+
+	/**
+	 * Registers the monitor over JMX, replacing any earlier one with the
+	 * same name
+	 */
+	void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName objectName = new ObjectName("common.search:type=DepthFirstSearch,name=" +
+					ObjectName.quote(getName()));
+			synchronized (registered) {
+				if (server.isRegistered(objectName))
+					server.unregisterMBean(objectName);
+				server.registerMBean(this, objectName);
+				registered.put(objectName, this);
+				this.objectName = objectName;
+			}
+		}
+		catch(Exception e) {
+			Log.warn("Unable to register search monitor with JMX: " + e);
+		}
+	}
+
+	/**
+	 * Unregisters the monitor, unless another search with the same name
+	 * has replaced it since
+	 */
+	void unregister() {
+		if (objectName == null)
+			return;
+		try {
+			synchronized (registered) {
+				if (registered.get(objectName) == this) {
+					registered.remove(objectName);
+					ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+				}
+				objectName = null;
+			}
+		}
+		catch(Exception e) {
+			Log.warn("Unable to unregister search monitor from JMX: " + e);
+		}
+	}
+
+	/**
+	 * Starts a daemon thread that reports every intervalMillis until the
+	 * search finishes
+	 */
+	Thread startReporting(final long intervalMillis) {
+		Thread thread = new Thread("search-monitor-" + getName()) {
+			public void run() {
+				try {
+					while (search.running) {
+						Thread.sleep(intervalMillis);
+						if (search.running)
+							report();
+					}
+				}
+				catch(InterruptedException e) {
+					//the search is done
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+}
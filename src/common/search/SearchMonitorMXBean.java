@@ -0,0 +1,71 @@
+package common.search;
+
+/**
+ * JMX view of a DepthFirstSearch, registered as
+ * "common.search:type=DepthFirstSearch,name=<name>" while it runs.  It
+ * is unregistered when the search finishes, so that it doesn't keep the
+ * search and its transposition table alive; the final totals are in
+ * the "search.*" Metrics counters.
+ */
+public interface SearchMonitorMXBean {
+
+	public String getName();
+
+	public boolean isRunning();
+
+	public long getElapsedMillis();
+
+	/**
+	 * Returns the number of states visited, including those then pruned
+	 */
+	public long getNodes();
+
+	/**
+	 * Returns the states visited per second, averaged since the search
+	 * started.  (For a recent rate, poll getNodes() and take differences.)
+	 */
+	public double getNodesPerSecond();
+
+	public int getBest();
+
+	/**
+	 * Returns the upper bound of the root, the most the search could find
+	 */
+	public int getRootBound();
+
+	public long getBoundCutoffs();
+
+	public long getTableProbes();
+
+	public long getTableCutoffs();
+
+	/**
+	 * Returns the fraction of table probes that pruned the state
+	 */
+	public double getTableHitRate();
+
+	public int getTableCapacity();
+
+	/**
+	 * Returns the entries in use in the table.  This scans the table.
+	 */
+	public int getTableUsed();
+
+	/**
+	 * Returns the states visited at each ply from the root, with the last
+	 * element counting everything deeper
+	 */
+	public long [] getDepthHistogram();
+
+	/**
+	 * Returns the names of the nodes' own pruning rules, if they have any
+	 * (see SearchNode.getPruneRules())
+	 */
+	public String [] getPruneRules();
+
+	/**
+	 * Returns the moves each of getPruneRules() left out
+	 */
+	public long [] getPruneCounts();
+
+}
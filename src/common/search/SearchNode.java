@@ -0,0 +1,90 @@
+package common.search;
+
+/**
+ * A mutable position in a maximizing search, explored by
+ * DepthFirstSearch.  Moves are ints chosen by the implementation; the
+ * search applies a move, explores beneath it, then undoes it, so the
+ * whole search runs on one node per worker thread.
+ *
+ * The search prunes a node when:
+ *   - getUpperBound() is no better than the best value found so far
+ *     (branch and bound), or
+ *   - the transposition table has already seen getKey() with a value
+ *     at least as good as getValue().
+ *
+ * For the second to be sound, the key must capture everything that
+ * affects what can still be gained from the node, and getValue() must
+ * be what has been gained so far.
+ *
+ * A node's own pruning, moves that getMoves() leaves out as never
+ * worth trying, can be counted per rule: getPruneRules() names the
+ * rules, and getMoves(moves, prunes) adds to each rule's count.  The
+ * counts show up in the SearchMonitor next to the search's own.
+ */
+public interface SearchNode {
+
+	/**
+	 * Returned by getKey() for nodes that should not use the table
+	 */
+	public static final long NO_KEY = Long.MIN_VALUE;
+
+	public static final String [] NO_RULES = {};
+
+	/**
+	 * Returns a packed key identifying the state, or NO_KEY
+	 */
+	public long getKey();
+
+	/**
+	 * Returns the value that is guaranteed from here: what has been
+	 * gained so far, as if the search stopped at this node.  This is
+	 * the lower bound used to raise the best value.
+	 */
+	public int getValue();
+
+	/**
+	 * Returns a value that nothing below this node can beat
+	 */
+	public int getUpperBound();
+
+	/**
+	 * Returns the largest number of moves getMoves() can write
+	 */
+	public int getMaxMoves();
+
+	/**
+	 * Writes the moves available from here, most promising first, and
+	 * returns how many there are.  Trying good moves first raises the
+	 * best value early, so that the bound prunes more of what follows.
+	 */
+	public int getMoves(int [] moves);
+
+	/**
+	 * Returns the names of the node's pruning rules, the same for every
+	 * node of a search
+	 */
+	public default String [] getPruneRules() {
+		return NO_RULES;
+	}
+
+	/**
+	 * Same as getMoves(moves), also adding to prunes[r] the number of
+	 * moves that rule r of getPruneRules() left out
+	 */
+	public default int getMoves(int [] moves, long [] prunes) {
+		return getMoves(moves);
+	}
+
+	public void apply(int move);
+
+	/**
+	 * Reverts apply(move), which was the last move applied
+	 */
+	public void undo(int move);
+
+	/**
+	 * Returns an independent copy, used to hand work to another thread
+	 */
+	public SearchNode copy();
+
+}
@@ -0,0 +1,190 @@
+package common.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import common.geometry.Hashing;
+
+/**
+ * A fixed-size table of the best value seen for each state key, used
+ * by DepthFirstSearch to skip states that were already reached with a
+ * value at least as good.  Memory never grows: each key hashes to a
+ * bucket of two entries, and when both are taken by other keys the
+ * entry found deeper in the search (which guards the smaller subtree)
+ * is replaced.
+ *
+ * The entries live off the heap, in a direct buffer allocated once, so
+ * a large table is a hard memory budget that the garbage collector
+ * never scans or copies (it counts against -XX:MaxDirectMemorySize
+ * instead of -Xmx).  A table holds at most 2^26 entries, 1 GB.
+ *
+ * The table may be shared by several threads without locking.  Each
+ * entry is two longs, a check word and a data word, and the key is
+ * stored as check XOR data, so an entry torn by a concurrent write
+ * fails the key check and is treated as a miss.  Data words are
+ * replaced with compareAndSet, so a better value for a key is never
+ * overwritten by a worse one from another thread.  Losing an entry
+ * (to a race, or to a different key) only costs repeated work.
+ */
+public class TranspositionTable {
+
+	/**
+	 * Returned by get() for a key that isn't in the table
+	 */
+	public static final int NONE = Integer.MIN_VALUE;
+
+	//data is OCCUPIED | ply << 32 | value, so an empty slot is 0:
+	static final long OCCUPIED = 1L << 63;
+	static final int MAX_PLY = 0x7FFF;
+	static final int ENTRY_BYTES = 16;
+	static final int MAX_CAPACITY = 1 << 26;
+
+	static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+	final ByteBuffer entries;
+	final int mask;
+
+	/**
+	 * Creates a table with room for at least the given number of entries
+	 * (rounded up to a power of two)
+	 */
+	public TranspositionTable(int capacity) {
+		if (capacity > MAX_CAPACITY)
+			throw new IllegalArgumentException("Table too large: " + capacity);
+		int size = 2;
+		while (size < capacity)
+			size <<= 1;
+		//allocateDirect zeroes the memory, and CAS needs 8-byte alignment:
+		this.entries = ByteBuffer.allocateDirect(size * ENTRY_BYTES + 8).alignedSlice(8).order(ByteOrder.nativeOrder());
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Creates a table using about the given number of megabytes
+	 */
+	public static TranspositionTable ofMegabytes(int megabytes) {
+		return new TranspositionTable((int)Math.min(MAX_CAPACITY, (megabytes * (1L << 20)) / ENTRY_BYTES));
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Records that the state with this key was reached with the given
+	 * value, ply moves from the root.  Returns false if the table already
+	 * holds the key with a value at least as good, in which case the
+	 * state can be pruned.
+	 */
+	public boolean offer(long key, int value, int ply) {
+		int slot = Hashing.mix(key) & mask & ~1;
+		long d0 = getData(slot);
+		long d1 = getData(slot + 1);
+
+		while (d0 != 0 && (getCheck(slot) ^ d0) == key) {
+			if ((int)d0 >= value)
+				return false;
+			if (store(slot, d0, key, value, ply))
+				return true;
+			d0 = getData(slot);
+		}
+		while (d1 != 0 && (getCheck(slot + 1) ^ d1) == key) {
+			if ((int)d1 >= value)
+				return false;
+			if (store(slot + 1, d1, key, value, ply))
+				return true;
+			d1 = getData(slot + 1);
+		}
+
+		replace(slot, d0, d1, key, value, ply);
+		return true;
+	}
+
+	/**
+	 * Returns the value stored for the key, or NONE if it isn't in the
+	 * table
+	 */
+	public int get(long key) {
+		int slot = Hashing.mix(key) & mask & ~1;
+		long d0 = getData(slot);
+		if (d0 != 0 && (getCheck(slot) ^ d0) == key)
+			return (int)d0;
+		long d1 = getData(slot + 1);
+		if (d1 != 0 && (getCheck(slot + 1) ^ d1) == key)
+			return (int)d1;
+		return NONE;
+	}
+
+	/**
+	 * Stores the value for the key, whether or not it is better than the
+	 * one there
+	 */
+	public void put(long key, int value, int ply) {
+		int slot = Hashing.mix(key) & mask & ~1;
+		long d0 = getData(slot);
+		long d1 = getData(slot + 1);
+		if (d0 != 0 && (getCheck(slot) ^ d0) == key)
+			store(slot, d0, key, value, ply);
+		else if (d1 != 0 && (getCheck(slot + 1) ^ d1) == key)
+			store(slot + 1, d1, key, value, ply);
+		else
+			replace(slot, d0, d1, key, value, ply);
+	}
+
+	/**
+	 * Stores the key in an empty entry of the bucket, or else over the
+	 * one that is deeper
+	 */
+	void replace(int slot, long d0, long d1, long key, int value, int ply) {
+		if (d0 == 0 || (d1 != 0 && getPly(d0) > getPly(d1)))
+			store(slot, d0, key, value, ply);
+		else
+			store(slot + 1, d1, key, value, ply);
+	}
+
+	/**
+	 * Replaces the entry if its data is still what was read, returning
+	 * false if another thread changed it first
+	 */
+	boolean store(int slot, long expected, long key, int value, int ply) {
+		long d = OCCUPIED | ((long)Math.min(ply, MAX_PLY) << 32) | (value & 0xFFFFFFFFL);
+		int offset = slot * ENTRY_BYTES;
+		if (!LONGS.compareAndSet(entries, offset + 8, expected, d))
+			return false;
+		LONGS.set(entries, offset, key ^ d);
+		return true;
+	}
+
+	long getCheck(int slot) {
+		return (long)LONGS.get(entries, slot * ENTRY_BYTES);
+	}
+	long getData(int slot) {
+		return (long)LONGS.get(entries, slot * ENTRY_BYTES + 8);
+	}
+
+	static int getPly(long d) {
+		return (int)(d >>> 32) & MAX_PLY;
+	}
+
+	/**
+	 * Counts the entries in use.  This scans the whole table.
+	 */
+	public int countUsed() {
+		int count = 0;
+		for (int slot=0; slot<=mask; slot++) {
+			if (getData(slot) != 0)
+				count++;
+		}
+		return count;
+	}
+
+	public void clear() {
+		for (int slot=0; slot<=mask; slot++) {
+			LONGS.set(entries, slot * ENTRY_BYTES, 0L);
+			LONGS.set(entries, slot * ENTRY_BYTES + 8, 0L);
+		}
+	}
+
+}
@@ -1,23 +1,30 @@
 package common.templates;
 
-public class Main {
+import java.nio.file.Path;
+
+import common.Runner;
+import common.Solver;
+
+/**
+ * Starting point for a new day: copy into dayNN as Solution (and Main),
+ * register it in common.Solvers, and run with "Runner dayNN".
+ */
+public class Main implements Solver {
 	
-	public static void solvePart1() throws Exception {
+	public void parse(Path input) throws Exception {
 		
 	}
 	
-	public static void solvePart2() throws Exception {
-		
+	public Object part1() throws Exception {
+		throw new UnsupportedOperationException("Not solved yet");
+	}
+	
+	public Object part2() throws Exception {
+		throw new UnsupportedOperationException("Not solved yet");
 	}
 	
 	public static void main(String [] args) {
-		try {
-			solvePart1();
-			//solvePart2();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("dayNN", args);
 	}
 	
 }
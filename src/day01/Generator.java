@@ -0,0 +1,25 @@
+package day01;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Groups of 1-15 calorie counts separated by blank lines, about 250
+ * groups per unit of scale.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long groups = 250L * scale;
+		for (long i=0; i<groups; i++) {
+			if (i > 0)
+				out.println();
+			int count = 1 + random.nextInt(15);
+			for (int j=0; j<count; j++)
+				out.println(1000 + random.nextInt(9000));
+		}
+	}
+	
+}
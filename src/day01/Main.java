@@ -6,7 +6,9 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
-import common.FileUtil;
+import common.LineView;
+import common.MappedLineReader;
+import common.Runner;
 
 public class Main {
 	
@@ -21,64 +23,67 @@ public class Main {
 	}
 	
 	public static List<Elf> loadInput(File file) throws IOException {
-		List<String> lines = FileUtil.readLinesFromFile(file);
-		
 		List<Elf> elves = new ArrayList<>();
 		Elf currentElf = new Elf();
 		
-		for (String line : lines) {
-			line = line.trim();
-			if (line.isEmpty() && currentElf.calories > 0) {
-				elves.add(currentElf);
-				currentElf = new Elf();
-			}
-			else {
-				currentElf.add(Integer.parseInt(line));
+		//mapped reader: lines are parsed in place, without creating Strings
+		try (MappedLineReader reader = MappedLineReader.open(file)) {
+			for (LineView line : reader) {
+				line.trim();
+				if (line.isEmpty()) {
+					if (currentElf.calories > 0) {
+						elves.add(currentElf);
+						currentElf = new Elf();
+					}
+				}
+				else {
+					currentElf.add(Integer.parseInt(line, 0, line.length(), 10));
+				}
 			}
 		}
 		
 		if (currentElf.calories > 0)
 			elves.add(currentElf);
 		
-		System.out.println("Loaded calories for " + elves.size() + " elves");
 		return elves;
 	}
 	
-	public static void solve() throws Exception {
-		
-		List<Elf> elves = loadInput(new File("files/day01/input.txt"));
-		
-		//find max
+	public static int getMaxCalories(List<Elf> elves) {
 		Elf maxElf = elves.get(0);
 		for (int i=1; i<elves.size(); i++) {
 			Elf elf = elves.get(i);
 			if (elf.calories > maxElf.calories)
 				maxElf = elf;
 		}
-		
-		System.out.println("Most calories: " + maxElf.calories);
-		
-		//find top 3:
-		elves.sort(new Comparator<Elf>() {
+		return maxElf.calories;
+	}
+	
+	public static int getTopCaloriesSum(List<Elf> elves, int count) {
+		List<Elf> sorted = new ArrayList<>(elves);
+		sorted.sort(new Comparator<Elf>() {
 			public int compare(Elf o1, Elf o2) {
 				return o2.calories - o1.calories;
 			}
 		});
 		
 		int sum = 0;
-		for (int i=0; i<3; i++) {
-			sum += elves.get(i).calories;
+		for (int i=0; i<count; i++) {
+			sum += sorted.get(i).calories;
 		}
-		System.out.println("Sum of top 3 calories: " + sum);
+		return sum;
+	}
+	
+	public static void solve() throws Exception {
+		
+		List<Elf> elves = loadInput(new File("files/day01/input.txt"));
+		System.out.println("Loaded calories for " + elves.size() + " elves");
+		
+		System.out.println("Most calories: " + getMaxCalories(elves));
+		System.out.println("Sum of top 3 calories: " + getTopCaloriesSum(elves, 3));
 	}
 	
 	public static void main(String [] args) {
-		try {
-			solve();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day01", args);
 	}
 	
 }
@@ -0,0 +1,24 @@
+package day01;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<Main.Elf> elves;
+	
+	public void parse(Path input) throws Exception {
+		elves = Main.loadInput(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.getMaxCalories(elves);
+	}
+	
+	public Object part2() {
+		return Main.getTopCaloriesSum(elves, 3);
+	}
+	
+}
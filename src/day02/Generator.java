@@ -0,0 +1,22 @@
+package day02;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Rounds such as "A Y", 2500 per unit of scale
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long rounds = 2500L * scale;
+		for (long i=0; i<rounds; i++) {
+			out.print((char)('A' + random.nextInt(3)));
+			out.print(' ');
+			out.println((char)('X' + random.nextInt(3)));
+		}
+	}
+	
+}
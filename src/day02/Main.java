@@ -4,6 +4,9 @@ import java.io.File;
 import java.util.List;
 
 import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.TextCursor;
 
 public class Main {
 	
@@ -25,17 +28,16 @@ public class Main {
 			String a = parts[0];
 			String b = parts[1];
 			
-			System.out.print(a + ":" + b);
-			
 			Action theirs = ALL_ACTIONS[indexOf(a, ABC_VALUES)];
 			Action mine = ALL_ACTIONS[indexOf(b, XYZ_VALUES)];
 			
 			int score = score(mine, theirs);
-			System.out.println("=" + score);
+			if (Log.isTraceEnabled())
+				Log.trace(a + ":" + b + "=" + score);
 			totalScore += score;
 		}
 		
-		System.out.println("Total Score: " + totalScore);
+		Log.info("Total Score: " + totalScore);
 	}
 	
 	public static int score(Action mine, Action theirs) {
@@ -83,18 +85,50 @@ public class Main {
 			String a = parts[0];
 			String b = parts[1];
 			
-			System.out.print(a + ":" + b);
-			
 			Action theirs = ALL_ACTIONS[indexOf(a, ABC_VALUES)];
 			Outcome outcome = ALL_OUTCOMES[indexOf(b, XYZ_VALUES)];
 			Action mine = getMyAction(theirs, outcome);
 			
 			int score = score(mine, theirs);
-			System.out.println("=" + score);
+			if (Log.isTraceEnabled())
+				Log.trace(a + ":" + b + "=" + score);
 			totalScore += score;
 		}
 		
-		System.out.println("Total Score: " + totalScore);
+		Log.info("Total Score: " + totalScore);
+	}
+	
+	/**
+	 * Parses lines such as "A Y" into {theirIndex, myIndex} pairs
+	 */
+	public static int [][] parseRounds(List<String> lines) {
+		int [][] rounds = new int[lines.size()][];
+		TextCursor cursor = new TextCursor();
+		for (int i=0; i<rounds.length; i++) {
+			cursor.reset(lines.get(i)).skipWhitespace();
+			int theirs = cursor.nextChar() - 'A';
+			int mine = cursor.skipWhitespace().nextChar() - 'X';
+			if (theirs < 0 || theirs > 2 || mine < 0 || mine > 2)
+				throw new IllegalArgumentException("Invalid round: " + lines.get(i));
+			rounds[i] = new int [] {theirs, mine};
+		}
+		return rounds;
+	}
+	
+	/**
+	 * Scores all rounds, reading the second column as my action (part 1)
+	 * or as the desired outcome (part 2).
+	 */
+	public static int getTotalScore(int [][] rounds, boolean part2) {
+		int totalScore = 0;
+		for (int [] round : rounds) {
+			Action theirs = ALL_ACTIONS[round[0]];
+			Action mine = part2 ?
+					getMyAction(theirs, ALL_OUTCOMES[round[1]]) :
+					ALL_ACTIONS[round[1]];
+			totalScore += score(mine, theirs);
+		}
+		return totalScore;
 	}
 	
 	public static Action getMyAction(Action theirs, Outcome outcome) {
@@ -123,15 +157,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		//File file = new File("files/day02/test.txt");
-		File file = new File("files/day02/input.txt");
-		try {
-			//solvePart1(file);
-			solvePart2(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day02", args);
 	}
 	
 }
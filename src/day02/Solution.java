@@ -0,0 +1,24 @@
+package day02;
+
+import java.nio.file.Path;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	int [][] rounds;
+	
+	public void parse(Path input) throws Exception {
+		rounds = Main.parseRounds(FileUtil.readLinesFromFile(input.toFile()));
+	}
+	
+	public Object part1() {
+		return Main.getTotalScore(rounds, false);
+	}
+	
+	public Object part2() {
+		return Main.getTotalScore(rounds, true);
+	}
+	
+}
@@ -0,0 +1,75 @@
+package day03;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Rucksacks in groups of three, 100 groups per unit of scale.  Each
+ * rucksack has exactly one item type in both compartments, and each
+ * group has exactly one item type (the badge) common to all three.
+ */
+public class Generator implements InputGenerator {
+	
+	static final String ITEMS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long groups = 100L * scale;
+		for (long i=0; i<groups; i++) {
+			char badge = ITEMS.charAt(random.nextInt(ITEMS.length()));
+			
+			//give every other item to one or two (never all three) rucksacks:
+			List<List<Character>> pools = new ArrayList<>();
+			for (int j=0; j<3; j++)
+				pools.add(new ArrayList<>());
+			for (int j=0; j<ITEMS.length(); j++) {
+				char item = ITEMS.charAt(j);
+				if (item == badge)
+					continue;
+				int skip = random.nextInt(3);
+				boolean both = random.nextBoolean();
+				for (int k=0; k<3; k++) {
+					if (k == skip || (!both && k == (skip + 1) % 3))
+						continue;
+					pools.get(k).add(item);
+				}
+			}
+			
+			for (List<Character> pool : pools)
+				out.println(createRucksack(pool, badge, random));
+		}
+	}
+	
+	static String createRucksack(List<Character> pool, char badge, Random random) {
+		char shared = pool.remove(random.nextInt(pool.size()));
+		
+		//split what's left between the two compartments:
+		List<Character> left = new ArrayList<>();
+		List<Character> right = new ArrayList<>();
+		left.add(badge);
+		for (char item : pool)
+			(random.nextBoolean() ? left : right).add(item);
+		if (right.isEmpty())
+			right.add(shared);
+		
+		int half = 6 + random.nextInt(12);
+		char [] sack = new char[half*2];
+		for (int i=0; i<half; i++) {
+			sack[i] = left.get(random.nextInt(left.size()));
+			sack[half+i] = right.get(random.nextInt(right.size()));
+		}
+		sack[random.nextInt(half)] = shared;
+		sack[half + random.nextInt(half)] = shared;
+		
+		//make sure the badge didn't get overwritten:
+		int idx = random.nextInt(half);
+		while (sack[idx] == shared)
+			idx = (idx + 1) % half;
+		sack[idx] = badge;
+		return new String(sack);
+	}
+	
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -64,6 +65,27 @@ public class Main {
 		throw new IllegalArgumentException("Invalid symbol: " + ch);
 	}
 	
+	public static int getPrioritySum(List<String> lines) {
+		int sum = 0;
+		for (String line : lines) {
+			Set<String> common = Sack.fromText(line).getIntersect();
+			sum += getPriority(common.iterator().next().charAt(0));
+		}
+		return sum;
+	}
+	
+	public static int getBadgePrioritySum(List<String> lines) {
+		int sum = 0;
+		for (int i=0; i<lines.size(); i+=3) {
+			Set<String> common = intersection(intersection(
+					Sack.fromText(lines.get(i)).getUnion(),
+					Sack.fromText(lines.get(i+1)).getUnion()),
+					Sack.fromText(lines.get(i+2)).getUnion());
+			sum += getPriority(common.iterator().next().charAt(0));
+		}
+		return sum;
+	}
+	
 	public static void solvePart1() throws Exception {
 		int sum = 0;
 		
@@ -108,13 +130,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//solvePart1();
-			solvePart2();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day03", args);
 	}
 	
 }
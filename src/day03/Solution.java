@@ -0,0 +1,27 @@
+package day03;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<String> lines;
+	
+	public void parse(Path input) throws Exception {
+		lines = FileUtil.readLinesFromFile(input.toFile());
+		while (!lines.isEmpty() && lines.get(lines.size()-1).isEmpty())
+			lines.remove(lines.size()-1);
+	}
+	
+	public Object part1() {
+		return Main.getPrioritySum(lines);
+	}
+	
+	public Object part2() {
+		return Main.getBadgePrioritySum(lines);
+	}
+	
+}
@@ -0,0 +1,24 @@
+package day04;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Section assignment pairs such as "2-4,6-8", 1000 per unit of scale
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long pairs = 1000L * scale;
+		for (long i=0; i<pairs; i++) {
+			int a = 1 + random.nextInt(99);
+			int b = a + random.nextInt(100 - a);
+			int c = 1 + random.nextInt(99);
+			int d = c + random.nextInt(100 - c);
+			out.println(a + "-" + b + "," + c + "-" + d);
+		}
+	}
+	
+}
@@ -4,13 +4,16 @@ import java.io.File;
 import java.util.List;
 
 import common.FileUtil;
+import common.IntervalSet;
+import common.Runner;
+import common.TextCursor;
 
 public class Main {
 	
 	static class Range {
 		
-		int start;
-		int end;
+		final int start;
+		final int end;
 		
 		public Range(int start, int end) {
 			this.start = start;
@@ -18,21 +21,56 @@ public class Main {
 		}
 		
 		public boolean contains(Range range) {
-			return range.start >= this.start && range.end <= this.end;
+			return IntervalSet.contains(start, end, range.start, range.end);
 		}
 		public boolean overlaps(Range range) {
-			return (range.start >= this.start && range.start <= this.end) ||
-				   (range.end   >= this.start && range.end   <= this.end) ||
-				   (range.start < this.start && range.end > this.end);
+			return IntervalSet.overlaps(start, end, range.start, range.end);
 		}
 		
 		public static Range from(String text) {
-			String [] parts = text.split("-");
-			return new Range(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+			return from(new TextCursor(text));
+		}
+		/**
+		 * Reads a range such as "2-4" at the cursor
+		 */
+		public static Range from(TextCursor cursor) {
+			int start = cursor.skipWhitespace().nextInt();
+			int end = cursor.expect('-').nextInt();
+			return new Range(start, end);
 		}
 		
 	}
 	
+	public static Range [][] parsePairs(List<String> lines) {
+		Range [][] pairs = new Range[lines.size()][];
+		TextCursor cursor = new TextCursor();
+		for (int i=0; i<pairs.length; i++) {
+			cursor.reset(lines.get(i));
+			Range first = Range.from(cursor);
+			cursor.expect(',');
+			pairs[i] = new Range [] {first, Range.from(cursor)};
+		}
+		return pairs;
+	}
+	
+	public static int countContains(Range [][] pairs) {
+		int count = 0;
+		for (Range [] pair : pairs) {
+			if (pair[0].contains(pair[1]) || pair[1].contains(pair[0]))
+				count++;
+		}
+		return count;
+	}
+	
+	public static int countOverlaps(Range [][] pairs) {
+		int count = 0;
+		for (Range [] pair : pairs) {
+			if (pair[0].overlaps(pair[1]))
+				count++;
+		}
+		return count;
+	}
+	
 	public static void solve() throws Exception {
 		int contains = 0;
 		int overlaps = 0;
@@ -57,12 +95,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			solve();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day04", args);
 	}
 	
 }
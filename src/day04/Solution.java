@@ -0,0 +1,24 @@
+package day04;
+
+import java.nio.file.Path;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.Range [][] pairs;
+	
+	public void parse(Path input) throws Exception {
+		pairs = Main.parsePairs(FileUtil.readLinesFromFile(input.toFile()));
+	}
+	
+	public Object part1() {
+		return Main.countContains(pairs);
+	}
+	
+	public Object part2() {
+		return Main.countOverlaps(pairs);
+	}
+	
+}
@@ -0,0 +1,64 @@
+package day05;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Crate stacks followed by move commands.  Both the number of stacks
+ * and their starting height grow with the square root of the scale, and
+ * the number of moves grows linearly (500 per unit).  Every move takes
+ * at most as many crates as its source stack holds at that point.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int root = (int)Math.ceil(Math.sqrt(scale));
+		int stackCount = 9 * root;
+		int maxHeight = 8 * root;
+		
+		int [] heights = new int[stackCount];
+		int startHeight = 0;
+		for (int i=0; i<stackCount; i++) {
+			heights[i] = 1 + random.nextInt(maxHeight);
+			startHeight = Math.max(startHeight, heights[i]);
+		}
+		
+		//(a layer with no crates would read as the blank separator line)
+		for (int layer=startHeight-1; layer>=0; layer--) {
+			StringBuilder line = new StringBuilder();
+			for (int i=0; i<stackCount; i++) {
+				if (i > 0)
+					line.append(' ');
+				if (heights[i] > layer)
+					line.append('[').append((char)('A' + random.nextInt(26))).append(']');
+				else
+					line.append("   ");
+			}
+			out.println(line);
+		}
+		
+		StringBuilder labels = new StringBuilder();
+		for (int i=0; i<stackCount; i++)
+			labels.append(' ').append(i+1).append("  ");
+		out.println(labels);
+		out.println();
+		
+		long moves = 500L * scale;
+		for (long i=0; i<moves; i++) {
+			int src = random.nextInt(stackCount);
+			while (heights[src] == 0)
+				src = random.nextInt(stackCount);
+			int dst = random.nextInt(stackCount - 1);
+			if (dst >= src)
+				dst++;
+			
+			int amount = 1 + random.nextInt(Math.min(heights[src], maxHeight));
+			heights[src] -= amount;
+			heights[dst] += amount;
+			out.println("move " + amount + " from " + (src+1) + " to " + (dst+1));
+		}
+	}
+	
+}
@@ -5,6 +5,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.TextCursor;
 
 public class Main {
 	
@@ -37,11 +40,21 @@ public class Main {
 		 * Applies command such as: move 3 from 2 to 5
 		 */
 		public void runCommand(String text, boolean preserveOrder) {
-			String [] parts = text.trim().split("\\s+");
-			int amount = Integer.parseInt(parts[1]);
-			int src = Integer.parseInt(parts[3])-1;
-			int dst = Integer.parseInt(parts[5])-1;
-			move(src, dst, amount, preserveOrder);
+			int [] cmd = parseCommand(text);
+			move(cmd[1], cmd[2], cmd[0], preserveOrder);
+		}
+		
+		/**
+		 * Parses "move 3 from 2 to 5" into {amount, srcIndex, dstIndex}
+		 */
+		public static int [] parseCommand(String text) {
+			return parseCommand(new TextCursor(text));
+		}
+		public static int [] parseCommand(TextCursor cursor) {
+			int amount = cursor.skipWhitespace().expect("move").nextInt();
+			int src = cursor.expect(" from").nextInt()-1;
+			int dst = cursor.expect(" to").nextInt()-1;
+			return new int [] {amount, src, dst};
 		}
 		
 		public void move(int src, int dst, int amount, boolean preserveOrder) {
@@ -58,9 +71,13 @@ public class Main {
 		 * 
 		 */
 		public static World readState(List<String> lines) {
-			String lastLine = lines.get(lines.size() - 1);
-			String [] parts = lastLine.trim().split("\\s+");
-			int towerCount = parts.length;
+			//count the labels on the last line:
+			TextCursor cursor = new TextCursor(lines.get(lines.size() - 1));
+			int towerCount = 0;
+			while (cursor.skipUntilDigit()) {
+				cursor.nextInt();
+				towerCount++;
+			}
 			
 			World world = new World(towerCount);
 			for (int i=lines.size()-2; i>=0; i--) {
@@ -75,6 +92,13 @@ public class Main {
 			return world;
 		}
 		
+		public World copy() {
+			World copy = new World(towers.size());
+			for (int i=0; i<towers.size(); i++)
+				copy.getTower(i).stack.addAll(towers.get(i).stack);
+			return copy;
+		}
+		
 		public String toString() {
 			StringBuilder s = new StringBuilder();
 			
@@ -154,42 +178,46 @@ public class Main {
 		
 	}
 	
-	public static void solve(File file, boolean preserveOrder, boolean verbose) throws Exception {
-		List<String> lines = FileUtil.readLinesFromFile(file);
-		
+	/**
+	 * Returns the index of the blank line separating the starting
+	 * state from the list of commands.
+	 */
+	public static int findBlankLine(List<String> lines) {
 		int idxBlank=0;
 		for (; idxBlank<lines.size(); idxBlank++) {
 			if (lines.get(idxBlank).trim().isEmpty())
 				break;
 		}
+		return idxBlank;
+	}
+	
+	/**
+	 * Runs all commands, logging each at debug level and the state
+	 * after each at trace level.
+	 */
+	public static void solve(File file, boolean preserveOrder) throws Exception {
+		List<String> lines = FileUtil.readLinesFromFile(file);
+		
+		int idxBlank = findBlankLine(lines);
 		
 		World world = World.readState(lines.subList(0, idxBlank));
-		System.out.println(world.toString());
+		if (Log.isDebugEnabled())
+			Log.debug(world.toString());
 		
 		for (int i=idxBlank+1; i<lines.size(); i++) {
-			System.out.println(lines.get(i));
+			Log.debug(lines.get(i));
 			world.runCommand(lines.get(i), preserveOrder);
-			if (verbose)
-				System.out.println(world.toString());
+			if (Log.isTraceEnabled())
+				Log.trace(world.toString());
 		}
 		
-		System.out.println(world.toString());
-		System.out.println(world.getTopValues());
+		if (Log.isDebugEnabled())
+			Log.debug(world.toString());
+		Log.info(world.getTopValues());
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day05/test.txt");
-			//solve(file, false, true);
-			//solve(file, true, true);
-			
-			File file = new File("files/day05/input.txt");
-			solve(file, false, false);
-			solve(file, true, false);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day05", args);
 	}
 	
 }
@@ -0,0 +1,42 @@
+package day05;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.FileUtil;
+import common.Solver;
+import common.TextCursor;
+
+public class Solution implements Solver {
+	
+	Main.World world;
+	int [][] commands;
+	
+	public void parse(Path input) throws Exception {
+		List<String> lines = FileUtil.readLinesFromFile(input.toFile());
+		int idxBlank = Main.findBlankLine(lines);
+		world = Main.World.readState(lines.subList(0, idxBlank));
+		
+		List<String> commandLines = lines.subList(idxBlank+1, lines.size());
+		commands = new int[commandLines.size()][];
+		TextCursor cursor = new TextCursor();
+		for (int i=0; i<commands.length; i++)
+			commands[i] = Main.World.parseCommand(cursor.reset(commandLines.get(i)));
+	}
+	
+	protected String run(boolean preserveOrder) {
+		Main.World world = this.world.copy();
+		for (int [] cmd : commands)
+			world.move(cmd[1], cmd[2], cmd[0], preserveOrder);
+		return world.getTopValues();
+	}
+	
+	public Object part1() {
+		return run(false);
+	}
+	
+	public Object part2() {
+		return run(true);
+	}
+	
+}
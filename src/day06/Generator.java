@@ -0,0 +1,23 @@
+package day06;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A single line of 4096 characters per unit of scale.  The text is
+ * drawn from only three letters, so neither a start-of-packet nor a
+ * start-of-message marker appears until the 14 distinct letters that
+ * end the line, making the solvers scan the whole input.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long length = 4096L * scale - 14;
+		for (long i=0; i<length; i++)
+			out.print((char)('a' + random.nextInt(3)));
+		out.println("defghijklmnopq");
+	}
+	
+}
@@ -3,6 +3,7 @@ package day06;
 import java.io.File;
 
 import common.FileUtil;
+import common.Runner;
 
 public class Main {
 	
@@ -53,13 +54,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			test();
-			solve();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day06", args);
 	}
 	
 }
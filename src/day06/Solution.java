@@ -0,0 +1,24 @@
+package day06;
+
+import java.nio.file.Path;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	String message;
+	
+	public void parse(Path input) throws Exception {
+		message = FileUtil.readLineFromFile(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.findPacketStart(message) + 1;
+	}
+	
+	public Object part2() {
+		return Main.findMessageStart(message) + 1;
+	}
+	
+}
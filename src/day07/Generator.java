@@ -0,0 +1,87 @@
+package day07;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import common.InputGenerator;
+
+/**
+ * A terminal session ("$ cd", "$ ls" and their output) that walks a
+ * random directory tree depth first.  There are 200 directories and
+ * about 500 files per unit of scale; file sizes are spread so the disk
+ * holds about 50,000,000 in total, which keeps part 2 solvable against
+ * a 70,000,000 disk needing 30,000,000 free.
+ */
+public class Generator implements InputGenerator {
+	
+	static final long TOTAL_SIZE = 50_000_000L;
+	
+	int [] firstChild;
+	int [] nextSibling;
+	long averageSize;
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int dirCount = 200 * scale;
+		firstChild = new int[dirCount];
+		nextSibling = new int[dirCount];
+		Arrays.fill(firstChild, -1);
+		Arrays.fill(nextSibling, -1);
+		
+		//random recursive tree, so depth only grows with log(dirCount):
+		for (int i=1; i<dirCount; i++) {
+			int parent = random.nextInt(i);
+			nextSibling[i] = firstChild[parent];
+			firstChild[parent] = i;
+		}
+		averageSize = TOTAL_SIZE / (dirCount * 5L / 2);
+		
+		out.println("$ cd /");
+		write(0, random, out);
+	}
+	
+	void write(int dir, Random random, PrintWriter out) {
+		Set<String> names = new HashSet<>();
+		List<String> dirNames = new ArrayList<>();
+		
+		out.println("$ ls");
+		for (int child=firstChild[dir]; child>=0; child=nextSibling[child]) {
+			String name = createName(names, random, false);
+			dirNames.add(name);
+			out.println("dir " + name);
+		}
+		int fileCount = random.nextInt(6);
+		for (int i=0; i<fileCount; i++)
+			out.println((1 + (long)(random.nextDouble() * averageSize * 2)) + " " + createName(names, random, true));
+		
+		int idx = 0;
+		for (int child=firstChild[dir]; child>=0; child=nextSibling[child]) {
+			out.println("$ cd " + dirNames.get(idx++));
+			write(child, random, out);
+			out.println("$ cd ..");
+		}
+	}
+	
+	static String createName(Set<String> names, Random random, boolean file) {
+		String name;
+		do {
+			StringBuilder s = new StringBuilder();
+			int len = 1 + random.nextInt(8);
+			for (int i=0; i<len; i++)
+				s.append((char)('a' + random.nextInt(26)));
+			if (file && random.nextBoolean()) {
+				s.append('.');
+				for (int i=0; i<3; i++)
+					s.append((char)('a' + random.nextInt(26)));
+			}
+			name = s.toString();
+		}
+		while (!names.add(name));
+		return name;
+	}
+	
+}
@@ -6,6 +6,7 @@ import java.util.Comparator;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 
 public class Main {
 	
@@ -247,18 +248,16 @@ public class Main {
 			}
 		}
 		
-		public static void solve(FileSystem fs, long totalSize, long requiredFreeSize) {
+		/**
+		 * Finds the smallest directory that frees up enough space when deleted
+		 */
+		public static DirAndSize findDirToDelete(FileSystem fs, long totalSize, long requiredFreeSize) {
 			Part2Solver solver = new Part2Solver();
 			fs.visitAllDepthFirst(solver);
 			
 			DirAndSize root = solver.list.get(0);
-			System.out.println("Root size: " + root.totalSize);
-			
 			long freeSpace = totalSize - root.totalSize;
-			System.out.println("Free space: " + freeSpace);
-			
 			long toDelete = requiredFreeSize - freeSpace;
-			System.out.println("To delete: " + toDelete);
 			
 			solver.list.sort(new Comparator<DirAndSize> () {
 
@@ -269,13 +268,67 @@ public class Main {
 			});
 			
 			for (DirAndSize entry : solver.list) {
-				if (entry.totalSize >= toDelete) {
-					System.out.println("Delete: " + entry.dir.name + ", size = " + entry.totalSize);
-					break;
-				}
+				if (entry.totalSize >= toDelete)
+					return entry;
 			}
+			return null;
 		}
 		
+		public static void solve(FileSystem fs, long totalSize, long requiredFreeSize) {
+			DirAndSize entry = findDirToDelete(fs, totalSize, requiredFreeSize);
+			System.out.println("Delete: " + entry.dir.name + ", size = " + entry.totalSize);
+		}
+		
+	}
+	
+	/**
+	 * Returns every directory with its total size, the root first, from
+	 * one pass over the tree.  Part1Solver and Part2Solver instead call
+	 * getTotalSize() on each directory, which walks its whole subtree
+	 * again, so every file is counted once per directory above it.
+	 */
+	public static List<DirAndSize> getDirectorySizes(FileSystem fs) {
+		List<DirAndSize> list = new ArrayList<>();
+		addDirectorySizes(fs.getRoot(), list);
+		return list;
+	}
+	
+	static long addDirectorySizes(FileNode dir, List<DirAndSize> list) {
+		DirAndSize entry = new DirAndSize(dir, 0);
+		list.add(entry);
+		long total = 0;
+		for (FileNode child : dir.children)
+			total += child.isDirectory() ? addDirectorySizes(child, list) : child.size;
+		entry.totalSize = total;
+		return total;
+	}
+	
+	/**
+	 * Part 1 from getDirectorySizes(): the sum of the sizes below the limit
+	 */
+	public static long sumSizesBelow(List<DirAndSize> dirs, long limit) {
+		long sum = 0;
+		for (DirAndSize entry : dirs) {
+			if (entry.totalSize < limit)
+				sum += entry.totalSize;
+		}
+		return sum;
+	}
+	
+	/**
+	 * Part 2 from getDirectorySizes(): the size of the smallest directory
+	 * that frees up enough space when deleted
+	 */
+	public static long findSizeToDelete(List<DirAndSize> dirs, long totalSize, long requiredFreeSize) {
+		long toDelete = requiredFreeSize - (totalSize - dirs.get(0).totalSize);
+		long best = Long.MAX_VALUE;
+		for (DirAndSize entry : dirs) {
+			if (entry.totalSize >= toDelete)
+				best = Math.min(best, entry.totalSize);
+		}
+		if (best == Long.MAX_VALUE)
+			throw new IllegalStateException("No directory is large enough");
+		return best;
 	}
 	
 	public static void solvePart1(File file) throws Exception {
@@ -295,15 +348,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day07/test.txt");
-			File file = new File("files/day07/input.txt");
-			//solvePart1(file);
-			solvePart2(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day07", args);
 	}
 	
 }
@@ -0,0 +1,30 @@
+package day07;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+/**
+ * The original solution, which asks each directory for its total size
+ * in turn.  Kept as the reference that common.bench.Verify checks
+ * Solution against.
+ */
+public class Reference implements Solver {
+	
+	Main.FileSystem fs;
+	
+	public void parse(Path input) throws Exception {
+		fs = Main.loadInput(input.toFile());
+	}
+	
+	public Object part1() {
+		Main.Part1Solver solver = new Main.Part1Solver();
+		fs.visitAllDepthFirst(solver);
+		return solver.totalSize;
+	}
+	
+	public Object part2() {
+		return Main.Part2Solver.findDirToDelete(fs, 70000000, 30000000).totalSize;
+	}
+	
+}
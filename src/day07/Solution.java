@@ -0,0 +1,31 @@
+package day07;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.FileSystem fs;
+	List<Main.DirAndSize> sizes;
+	
+	public void parse(Path input) throws Exception {
+		fs = Main.loadInput(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.sumSizesBelow(getSizes(), 100000);
+	}
+	
+	public Object part2() {
+		return Main.findSizeToDelete(getSizes(), 70000000, 30000000);
+	}
+	
+	List<Main.DirAndSize> getSizes() {
+		if (sizes == null)
+			sizes = Main.getDirectorySizes(fs);
+		return sizes;
+	}
+	
+}
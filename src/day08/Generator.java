@@ -0,0 +1,24 @@
+package day08;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A square grid of tree heights (0-9), 100x100 at scale 1 with the
+ * side growing with the square root of the scale.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int size = (int)Math.round(100 * Math.sqrt(scale));
+		char [] row = new char[size];
+		for (int i=0; i<size; i++) {
+			for (int j=0; j<size; j++)
+				row[j] = (char)('0' + random.nextInt(10));
+			out.println(row);
+		}
+	}
+	
+}
@@ -2,42 +2,28 @@ package day08;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.List;
+import java.util.Arrays;
 
-import common.FileUtil;
+import common.Runner;
+import common.geometry.Grid2D;
 
 public class Main {
 	
 	static class Forest {
 		
-		int [][] grid;
+		//tree heights as the digits '0' to '9', surrounded by a border of 0
+		Grid2D grid;
 		int height;
 		int width;
 		
-		public Forest(int height, int width) {
-			this.grid = new int[height][width];
-			this.height = height;
-			this.width = width;
+		public Forest(Grid2D grid) {
+			this.grid = grid;
+			this.height = grid.height;
+			this.width = grid.width;
 		}
 		
 		public static Forest load(File file) throws IOException {
-			List<String> lines = FileUtil.readLinesFromFile(file);
-			
-			while (lines.get(lines.size()-1).isEmpty())
-				lines.remove(lines.size()-1);
-			
-			int height = lines.size();
-			int width = lines.get(0).length();
-			Forest forest = new Forest(height, width);
-			
-			for (int i=0; i<lines.size(); i++) {
-				String line = lines.get(i);
-				for (int j=0; j<width; j++) {
-					forest.grid[i][j] = Integer.parseInt(line.substring(j,j+1));
-				}
-			}
-			
-			return forest;
+			return new Forest(Grid2D.load(file, (char)0));
 		}
 		
 		public boolean isVisible(int i, int j) {
@@ -45,43 +31,29 @@ public class Main {
 			if (i == 0 || j == 0 || i == height - 1 || j == width - 1)
 				return true;
 			
-			return isVisibleFromLeft(i, j) || isVisibleFromRight(i, j) ||
-				   isVisibleFromTop(i, j) || isVisibleFromBottom(i, j);
+			int index = grid.index(i, j);
+			return isVisibleFrom(index, -1) || isVisibleFrom(index, +1) ||
+				   isVisibleFrom(index, -grid.stride) || isVisibleFrom(index, grid.stride);
 		}
 		
-		public boolean isVisibleFromTop(int i, int j) {
-			for (int ii=0; ii<i; ii++) {
-				if (grid[ii][j] >= grid[i][j])
-					return false;
-			}
-			return true;
-		}
-		public boolean isVisibleFromBottom(int i, int j) {
-			for (int ii=i+1; ii<height; ii++) {
-				if (grid[ii][j] >= grid[i][j])
-					return false;
-			}
-			return true;
-		}
-		public boolean isVisibleFromLeft(int i, int j) {
-			for (int jj=0; jj<j; jj++) {
-				if (grid[i][jj] >= grid[i][j])
-					return false;
-			}
-			return true;
-		}
-		public boolean isVisibleFromRight(int i, int j) {
-			for (int jj=j+1; jj<width; jj++) {
-				if (grid[i][jj] >= grid[i][j])
+		/**
+		 * Returns true if no tree is as tall as this one when looking in
+		 * the direction of the offset, until the border
+		 */
+		public boolean isVisibleFrom(int index, int offset) {
+			byte [] cells = grid.cells;
+			byte h = cells[index];
+			for (int k=index+offset; cells[k] != 0; k+=offset) {
+				if (cells[k] >= h)
 					return false;
 			}
 			return true;
 		}
 		
 		public int getVisibleTreeCount() {
-			int height = grid.length;
-			int width = grid[0].length;
-			
+			//every tree on the border is visible (all of them in a single row or column):
+			if (height < 3 || width < 3)
+				return height * width;
 			int count = height * 2 + width * 2 - 4;
 			for (int i=1; i<height-1; i++) {
 				for (int j=1; j<width-1; j++) {
@@ -94,27 +66,23 @@ public class Main {
 		}
 		
 		public int getScenicScore(int i, int j) {
-			int left   = countVisibleDistance(i, j, 0, -1);
-			int right  = countVisibleDistance(i, j, 0, +1);
-			int top    = countVisibleDistance(i, j, -1, 0);
-			int bottom = countVisibleDistance(i, j, +1, 0);
+			int index = grid.index(i, j);
+			int left   = countVisibleDistance(index, -1);
+			int right  = countVisibleDistance(index, +1);
+			int top    = countVisibleDistance(index, -grid.stride);
+			int bottom = countVisibleDistance(index, grid.stride);
 			return left * right * top * bottom;
 		}
 		
-		public int countVisibleDistance(int i, int j, int di, int dj) {
+		public int countVisibleDistance(int index, int offset) {
+			byte [] cells = grid.cells;
+			byte h = cells[index];
 			int count = 0;
-			
-			int ii = i + di;
-			int jj = j + dj;
-			while (ii >= 0 && ii < height && jj >= 0 && jj < width) {
+			for (int k=index+offset; cells[k] != 0; k+=offset) {
 				count++;
-				if (grid[ii][jj] >= grid[i][j])
+				if (cells[k] >= h)
 					break;
-				
-				ii += di;
-				jj += dj;
 			}
-			
 			return count;
 		}
 		
@@ -131,23 +99,98 @@ public class Main {
 			return max;
 		}
 		
+		/**
+		 * Same as getVisibleTreeCount(), but from one sweep along each row
+		 * and column from both ends, keeping the tallest tree seen so far,
+		 * rather than a scan to the border from every tree
+		 */
+		public int getVisibleTreeCountLinear() {
+			boolean [] visible = new boolean[grid.cells.length];
+			for (int i=0; i<height; i++) {
+				markVisible(visible, grid.index(i, 0), 1, width);
+				markVisible(visible, grid.index(i, width - 1), -1, width);
+			}
+			for (int j=0; j<width; j++) {
+				markVisible(visible, grid.index(0, j), grid.stride, height);
+				markVisible(visible, grid.index(height - 1, j), -grid.stride, height);
+			}
+			
+			int count = 0;
+			for (boolean v : visible) {
+				if (v)
+					count++;
+			}
+			return count;
+		}
+		
+		/**
+		 * Marks the trees that are visible looking back along a line of
+		 * the given length from its start
+		 */
+		void markVisible(boolean [] visible, int start, int offset, int length) {
+			byte [] cells = grid.cells;
+			int max = -1;
+			for (int k=0, index=start; k<length; k++, index+=offset) {
+				if (cells[index] > max) {
+					visible[index] = true;
+					max = cells[index];
+				}
+			}
+		}
+		
+		/**
+		 * Same as getMaxScenicScore(), but with the viewing distances found
+		 * by one sweep per direction along each row and column, keeping a
+		 * stack of the trees that can still block the view
+		 */
+		public int getMaxScenicScoreLinear() {
+			int [] scores = new int[grid.cells.length];
+			Arrays.fill(scores, 1);
+			int [] stack = new int[Math.max(width, height)];
+			for (int i=0; i<height; i++) {
+				multiplyViewDistances(scores, grid.index(i, 0), 1, width, stack);
+				multiplyViewDistances(scores, grid.index(i, width - 1), -1, width, stack);
+			}
+			for (int j=0; j<width; j++) {
+				multiplyViewDistances(scores, grid.index(0, j), grid.stride, height, stack);
+				multiplyViewDistances(scores, grid.index(height - 1, j), -grid.stride, height, stack);
+			}
+			
+			int max = 0;
+			for (int i=0; i<height; i++) {
+				for (int j=0; j<width; j++)
+					max = Math.max(max, scores[grid.index(i, j)]);
+			}
+			return max;
+		}
+		
+		/**
+		 * Multiplies the score of each tree on the line by how far it sees
+		 * looking back toward the start
+		 */
+		void multiplyViewDistances(int [] scores, int start, int offset, int length, int [] stack) {
+			byte [] cells = grid.cells;
+			int size = 0;
+			for (int k=0, index=start; k<length; k++, index+=offset) {
+				//trees shorter than this one are hidden behind it from then on:
+				byte h = cells[index];
+				while (size > 0 && cells[start + stack[size - 1] * offset] < h)
+					size--;
+				scores[index] *= size == 0 ? k : k - stack[size - 1];
+				stack[size++] = k;
+			}
+		}
+		
 	}
 	
 	public static void solve(File file) throws Exception {
 		Forest forest = Forest.load(file);
-		System.out.println("Visible trees: " + forest.getVisibleTreeCount());
-		System.out.println("Best scenic score: " + forest.getMaxScenicScore());
+		System.out.println("Visible trees: " + forest.getVisibleTreeCountLinear());
+		System.out.println("Best scenic score: " + forest.getMaxScenicScoreLinear());
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day08/test.txt");
-			File file = new File("files/day08/input.txt");
-			solve(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day08", args);
 	}
 	
 }
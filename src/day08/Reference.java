@@ -0,0 +1,28 @@
+package day08;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+/**
+ * The original solution, which scans from every tree to the border in
+ * each direction.  Kept as the reference that common.bench.Verify
+ * checks Solution against.
+ */
+public class Reference implements Solver {
+	
+	Main.Forest forest;
+	
+	public void parse(Path input) throws Exception {
+		forest = Main.Forest.load(input.toFile());
+	}
+	
+	public Object part1() {
+		return forest.getVisibleTreeCount();
+	}
+	
+	public Object part2() {
+		return forest.getMaxScenicScore();
+	}
+	
+}
@@ -0,0 +1,23 @@
+package day08;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.Forest forest;
+	
+	public void parse(Path input) throws Exception {
+		forest = Main.Forest.load(input.toFile());
+	}
+	
+	public Object part1() {
+		return forest.getVisibleTreeCountLinear();
+	}
+	
+	public Object part2() {
+		return forest.getMaxScenicScoreLinear();
+	}
+	
+}
@@ -0,0 +1,21 @@
+package day09;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Rope moves such as "R 4", 2000 per unit of scale
+ */
+public class Generator implements InputGenerator {
+	
+	static final char [] DIRECTIONS = {'U', 'D', 'L', 'R'};
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long moves = 2000L * scale;
+		for (long i=0; i<moves; i++)
+			out.println(DIRECTIONS[random.nextInt(4)] + " " + (1 + random.nextInt(20)));
+	}
+	
+}
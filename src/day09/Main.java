@@ -7,67 +7,37 @@ import java.util.List;
 import java.util.Set;
 
 import common.FileUtil;
+import common.Runner;
+import common.TextCursor;
+import common.geometry.IntXY;
 
 public class Main {
 	
-	static class XY {
+	static class Knot {
 		
 		int x;
 		int y;
-		
-		public XY(int x, int y) {
-			this.x = x;
-			this.y = y;
-		}
-		
-		public XY copy() {
-			return new XY(x, y);
-		}
-		
-		@Override
-		public boolean equals(Object obj) {
-			if (!(obj instanceof XY))
-				return false;
-			
-			XY that = (XY)obj;
-			return this.x == that.x && this.y == that.y;
-		}
-		
-		@Override
-		public int hashCode() {
-			return this.x ^ 7 * 13 + this.y;
-		}
-		
-		public String toString() {
-			return "(" + x + ", " + y + ")";
-		}
-		
-	}
-	
-	static class Knot {
-		
-		XY position;
 		Knot leader;
 		
-		public Knot() {
-			position = new XY(0, 0);
-		}
-		
 		public void move(int dx, int dy) {
-			position.x += dx;
-			position.y += dy;
+			x += dx;
+			y += dy;
 		}
 		
 		public void updatePosition() {
-			int dx = leader.position.x - position.x;
-			int dy = leader.position.y - position.y;
+			int dx = leader.x - x;
+			int dy = leader.y - y;
 			
 			if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1)
 				return;
 			
 			//signum guarantees we only move 1 step
-			position.x += Math.signum(dx);
-			position.y += Math.signum(dy);
+			x += Integer.signum(dx);
+			y += Integer.signum(dy);
+		}
+		
+		public IntXY getPosition() {
+			return new IntXY(x, y);
 		}
 		
 	}
@@ -107,13 +77,13 @@ public class Main {
 		
 		public String toString() {
 			StringBuilder s = new StringBuilder();
-			s.append("Head: ").append(head.position.toString());
+			s.append("Head: ").append(head.getPosition().toString());
 			
 			s.append("Tails: [");
 			for (int i=0; i<tails.size(); i++) {
 				if (i > 0)
 					s.append(", ");
-				s.append(tails.get(i).position.toString());
+				s.append(tails.get(i).getPosition().toString());
 			}
 			s.append("]");
 			return s.toString();
@@ -121,58 +91,67 @@ public class Main {
 		
 	}
 	
-	public static void solve(File file, int numTails) throws Exception {
-		
-		List<String> lines = FileUtil.readLinesFromFile(file);
-		
-		World world = new World(numTails);
-		
-		Set<XY> tailVisited = new HashSet<>();
-		Knot tail = world.getLastTail();
-		tailVisited.add(tail.position.copy());
-				
-		for (String line : lines) {
-			//System.out.println("Input: " + line);
-			String [] parts = line.split("\\s+");
-			String dir = parts[0];
-			int len = Integer.parseInt(parts[1]);
+	/**
+	 * Parses lines such as "R 4" into {dx, dy, len}
+	 */
+	public static int [][] parseMoves(List<String> lines) {
+		int [][] moves = new int[lines.size()][];
+		TextCursor cursor = new TextCursor();
+		for (int i=0; i<moves.length; i++) {
+			String line = lines.get(i);
+			char dir = cursor.reset(line).skipWhitespace().nextChar();
+			int len = cursor.nextInt();
 			
 			int dx = 0;
 			int dy = 0;
-			if (dir.equals("U"))
+			if (dir == 'U')
 				dy = +1;
-			else if (dir.equals("D"))
+			else if (dir == 'D')
 				dy = -1;
-			else if (dir.equals("L"))
+			else if (dir == 'L')
 				dx = -1;
-			else if (dir.equals("R"))
+			else if (dir == 'R')
 				dx = +1;
 			else
 				throw new IllegalStateException("Invalid input: " + line);
 			
-			for (int i=0; i<len; i++) {
-				world.moveHead(dx, dy);
+			moves[i] = new int [] {dx, dy, len};
+		}
+		return moves;
+	}
+	
+	/**
+	 * Runs the moves and returns the number of points visited by the last tail
+	 */
+	public static int countTailVisited(int [][] moves, int numTails) {
+		World world = new World(numTails);
+		
+		Set<IntXY> tailVisited = new HashSet<>();
+		Knot tail = world.getLastTail();
+		tailVisited.add(tail.getPosition());
+		
+		for (int [] move : moves) {
+			for (int i=0; i<move[2]; i++) {
+				world.moveHead(move[0], move[1]);
 				world.updateTails();
-				tailVisited.add(tail.position.copy());
+				tailVisited.add(tail.getPosition());
 				//System.out.println(tail.position.toString());
 			}
 		}
 		
-		System.out.println("Tail visited: " + tailVisited.size() + " points");
+		return tailVisited.size();
+	}
+	
+	public static void solve(File file, int numTails) throws Exception {
+		
+		List<String> lines = FileUtil.readLinesFromFile(file);
+		int [][] moves = parseMoves(lines);
+		
+		System.out.println("Tail visited: " + countTailVisited(moves, numTails) + " points");
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day09/test.txt");
-			//File file = new File("files/day09/test2.txt");
-			File file = new File("files/day09/input.txt");
-			
-			//solve(file, 1);
-			solve(file, 9);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day09", args);
 	}
 	
 }
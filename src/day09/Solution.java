@@ -0,0 +1,24 @@
+package day09;
+
+import java.nio.file.Path;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	int [][] moves;
+	
+	public void parse(Path input) throws Exception {
+		moves = Main.parseMoves(FileUtil.readLinesFromFile(input.toFile()));
+	}
+	
+	public Object part1() {
+		return Main.countTailVisited(moves, 1);
+	}
+	
+	public Object part2() {
+		return Main.countTailVisited(moves, 9);
+	}
+	
+}
@@ -0,0 +1,32 @@
+package day10;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A program of "noop" and "addx" instructions, 140 per unit of scale.
+ * The register is kept near the 40-pixel screen so the output stays
+ * meaningful.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long count = 140L * scale;
+		int x = 1;
+		for (long i=0; i<count; i++) {
+			if (random.nextInt(3) == 0) {
+				out.println("noop");
+			} else {
+				int target = -2 + random.nextInt(44);
+				int value = random.nextInt(4) == 0 ? target - x : random.nextInt(11) - 5;
+				if (x + value < -2 || x + value > 41)
+					value = -value;
+				x += value;
+				out.println("addx " + value);
+			}
+		}
+	}
+	
+}
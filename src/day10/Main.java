@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 
 public class Main {
 	
@@ -16,24 +17,22 @@ public class Main {
 		int cursor = 0;
 		
 		List<Integer> signals = new ArrayList<>();
+		StringBuilder screen = new StringBuilder();
 		
 		public void step() {
 			t++;
 			
 			if (cursor >= x - 1 && cursor <= x + 1)
-				System.out.print('#');
+				screen.append('#');
 			else
-				System.out.print('.');
+				screen.append('.');
 			
 			cursor++;
 			if (cursor >= 40) {
 				cursor = 0;
-				System.out.println();
+				screen.append('\n');
 			}
 			
-			
-			
-			
 			if (t >= 20 && (t - 20) % 40 == 0)
 				signals.add(t * x);
 		}
@@ -52,6 +51,10 @@ public class Main {
 			}
 		}
 		
+		public String getScreen() {
+			return screen.toString();
+		}
+		
 		public long getTotalSignalStrength() {
 			long sum = 0;
 			for (Integer x : signals)
@@ -68,18 +71,12 @@ public class Main {
 		for (String line : lines)
 			computer.run(line);
 		
+		System.out.print(computer.getScreen());
 		System.out.println("Signal strength: " + computer.getTotalSignalStrength());
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day10/test.txt");
-			File file = new File("files/day10/input.txt");
-			solve(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day10", args);
 	}
 	
 }
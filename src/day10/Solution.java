@@ -0,0 +1,35 @@
+package day10;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<String> program;
+	
+	public void parse(Path input) throws Exception {
+		program = FileUtil.readLinesFromFile(input.toFile());
+	}
+	
+	protected Main.Computer run() {
+		Main.Computer computer = new Main.Computer();
+		for (String line : program)
+			computer.run(line);
+		return computer;
+	}
+	
+	public Object part1() {
+		return run().getTotalSignalStrength();
+	}
+	
+	/**
+	 * Part 2 is read off the CRT, so the screen text is the answer
+	 */
+	public Object part2() {
+		return run().getScreen();
+	}
+	
+}
@@ -0,0 +1,81 @@
+package day11;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Eight monkeys with distinct prime divisors, one of which squares its
+ * worry level, holding 2 to 6 items each per unit of scale.  Monkeys
+ * are regenerated until part 1's 20 rounds fit in a long.
+ */
+public class Generator implements InputGenerator {
+	
+	static final int MONKEYS = 8;
+	static final int [] PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23 };
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		while (true) {
+			String text = generateMonkeys(scale, random);
+			Main.World world = Main.parseWorld(Arrays.asList(text.split("\n")));
+			try {
+				for (int i=0; i<20; i++)
+					world.runRound(true, 0);
+			}
+			catch(ArithmeticException e) {
+				continue;
+			}
+			out.print(text);
+			return;
+		}
+	}
+	
+	String generateMonkeys(int scale, Random random) {
+		List<Integer> primes = new ArrayList<>();
+		for (int prime : PRIMES)
+			primes.add(prime);
+		Collections.shuffle(primes, random);
+		int squarer = random.nextInt(MONKEYS);
+		
+		StringWriter text = new StringWriter();
+		PrintWriter out = new PrintWriter(text);
+		for (int m=0; m<MONKEYS; m++) {
+			if (m > 0)
+				out.print("\n");
+			out.print("Monkey " + m + ":\n");
+			
+			int count = scale * (2 + random.nextInt(5));
+			StringBuilder items = new StringBuilder();
+			for (int i=0; i<count; i++)
+				items.append(i > 0 ? ", " : "").append(50 + random.nextInt(50));
+			out.print("  Starting items: " + items + "\n");
+			
+			String operation;
+			if (m == squarer)
+				operation = "* old";
+			else if (random.nextBoolean())
+				operation = "* " + (2 + random.nextInt(18));
+			else
+				operation = "+ " + (1 + random.nextInt(8));
+			out.print("  Operation: new = old " + operation + "\n");
+			out.print("  Test: divisible by " + primes.get(m) + "\n");
+			
+			int ifTrue = (m + 1 + random.nextInt(MONKEYS - 1)) % MONKEYS;
+			int ifFalse;
+			do {
+				ifFalse = (m + 1 + random.nextInt(MONKEYS - 1)) % MONKEYS;
+			} while (ifFalse == ifTrue);
+			out.print("    If true: throw to monkey " + ifTrue + "\n");
+			out.print("    If false: throw to monkey " + ifFalse + "\n");
+		}
+		out.flush();
+		return text.toString();
+	}
+	
+}
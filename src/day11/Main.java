@@ -1,9 +1,14 @@
 package day11;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
+import common.FileUtil;
+import common.Runner;
+import common.TextCursor;
+
 public class Main {
 	
 	static class Item {
@@ -34,6 +39,8 @@ public class Main {
 	static class World {
 		
 		List<Monkey> monkeys = new ArrayList<>();
+		//for part 2, a multiple of every monkey's divisor (0 if not known):
+		long modulus;
 		
 		public Monkey getMonkey(int index) {
 			return monkeys.get(index);
@@ -100,6 +107,118 @@ public class Main {
 		
 	}
 	
+	/**
+	 * A monkey's logic as read from the input: new = old * operand (or
+	 * + operand, where the operand may be old itself), then a throw that
+	 * depends on whether the result is divisible by the divisor.  Worry
+	 * levels that overflow a long throw an ArithmeticException rather
+	 * than wrapping around.
+	 */
+	static class ParsedLogic extends MonkeyLogic {
+		
+		static final long OLD = -1;
+		
+		final boolean multiply;
+		final long operand;
+		final long divisor;
+		final int ifTrue;
+		final int ifFalse;
+		
+		public ParsedLogic(boolean multiply, long operand, long divisor, int ifTrue, int ifFalse) {
+			this.multiply = multiply;
+			this.operand = operand;
+			this.divisor = divisor;
+			this.ifTrue = ifTrue;
+			this.ifFalse = ifFalse;
+		}
+		
+		protected long operation(long old) {
+			long value = operand == OLD ? old : operand;
+			return multiply ? Math.multiplyExact(old, value) : Math.addExact(old, value);
+		}
+		
+		protected int getTargetMonkey(long value) {
+			return isDivisible(value, divisor) ? ifTrue : ifFalse;
+		}
+		
+	}
+	
+	public static World loadInput(File file) throws Exception {
+		return parseWorld(FileUtil.readLinesFromFile(file));
+	}
+	
+	/**
+	 * Parses the monkeys, each a block of lines like:
+	 * 
+	 *   Monkey 0:
+	 *     Starting items: 79, 98
+	 *     Operation: new = old * 19
+	 *     Test: divisible by 23
+	 *       If true: throw to monkey 2
+	 *       If false: throw to monkey 3
+	 */
+	public static World parseWorld(List<String> lines) {
+		World world = new World();
+		world.modulus = 1;
+		TextCursor cursor = new TextCursor();
+		List<Integer> targets = new ArrayList<>();
+		
+		int i = 0;
+		while (i < lines.size()) {
+			if (lines.get(i).trim().isEmpty()) {
+				i++;
+				continue;
+			}
+			if (i + 6 > lines.size())
+				throw new IllegalArgumentException("Incomplete monkey at line " + (i + 1));
+			
+			cursor.reset(lines.get(i++).trim()).expect("Monkey ");
+			if (cursor.nextInt() != world.monkeys.size())
+				throw new IllegalArgumentException("Monkeys out of order at line " + i);
+			
+			cursor.reset(lines.get(i++).trim()).expect("Starting items:");
+			List<Integer> items = new ArrayList<>();
+			while (cursor.skipUntilDigit())
+				items.add(cursor.nextInt());
+			
+			cursor.reset(lines.get(i++).trim()).expect("Operation: new = old ");
+			char operator = cursor.nextChar();
+			if (operator != '*' && operator != '+')
+				throw new IllegalArgumentException("Unknown operator at line " + (i - 1) + ": " + operator);
+			boolean multiply = operator == '*';
+			cursor.skipWhitespace();
+			long operand = cursor.tryExpect("old") ? ParsedLogic.OLD : cursor.nextLong();
+			
+			long divisor = cursor.reset(lines.get(i++).trim()).expect("Test: divisible by ").nextLong();
+			int ifTrue = cursor.reset(lines.get(i++).trim()).expect("If true: throw to monkey ").nextInt();
+			int ifFalse = cursor.reset(lines.get(i++).trim()).expect("If false: throw to monkey ").nextInt();
+			//a monkey can't throw to itself while it's inspecting its own items:
+			int index = world.monkeys.size();
+			if (divisor <= 0 || operand < ParsedLogic.OLD || ifTrue == index || ifFalse == index)
+				throw new IllegalArgumentException("Invalid monkey " + index);
+			targets.add(ifTrue);
+			targets.add(ifFalse);
+			
+			int [] values = new int[items.size()];
+			for (int j=0; j<values.length; j++)
+				values[j] = items.get(j);
+			world.addMonkey(new Monkey(values, new ParsedLogic(multiply, operand, divisor, ifTrue, ifFalse)));
+			world.modulus = Math.multiplyExact(world.modulus / gcd(world.modulus, divisor), divisor);
+		}
+		
+		if (world.monkeys.size() < 2)
+			throw new IllegalArgumentException("Expected at least 2 monkeys, found " + world.monkeys.size());
+		for (int target : targets) {
+			if (target < 0 || target >= world.monkeys.size())
+				throw new IllegalArgumentException("No such monkey: " + target);
+		}
+		return world;
+	}
+	
+	static long gcd(long a, long b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+	
 	public static boolean isDivisible(long value, long divisor) {
 		return value % divisor == 0;
 	}
@@ -129,13 +248,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//solvePart1();
-			solvePart2();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day11", args);
 	}
 	
 	// --- Inputs -------------------------------------------------------------
@@ -0,0 +1,34 @@
+package day11;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+/**
+ * Each part runs on its own copy of the world, parsed from the input,
+ * because rounds change the items each monkey holds.  Part 2 keeps the
+ * worry levels small by reducing them modulo the lcm of the divisors.
+ */
+public class Solution implements Solver {
+	
+	Main.World world1;
+	Main.World world2;
+	
+	public void parse(Path input) throws Exception {
+		world1 = Main.loadInput(input.toFile());
+		world2 = Main.loadInput(input.toFile());
+	}
+	
+	public Object part1() {
+		for (int i=0; i<20; i++)
+			world1.runRound(true, 0);
+		return world1.getMonkeyBusiness();
+	}
+	
+	public Object part2() {
+		for (int i=0; i<10000; i++)
+			world2.runRound(false, world2.modulus);
+		return world2.getMonkeyBusiness();
+	}
+	
+}
@@ -0,0 +1,50 @@
+package day12;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A heightmap 41 rows by 100 columns at scale 1, with both sides growing
+ * with the square root of the scale.  Heights are random hills, and a
+ * path that never climbs more than one step runs along the top row from
+ * S to E so the puzzle always has a solution.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		double root = Math.sqrt(scale);
+		int height = (int)Math.round(41 * root);
+		int width = (int)Math.round(100 * root);
+		
+		//a few random peaks, with height falling off with distance:
+		int peakCount = (3 + random.nextInt(3)) * (int)Math.ceil(root);
+		int [][] peaks = new int[peakCount][];
+		for (int i=0; i<peakCount; i++)
+			peaks[i] = new int [] {random.nextInt(height), random.nextInt(width), 10 + random.nextInt(width / 2 + 1)};
+		
+		char [] row = new char[width];
+		for (int i=0; i<height; i++) {
+			for (int j=0; j<width; j++) {
+				double value = 0;
+				for (int [] peak : peaks) {
+					double dist = Math.hypot(i - peak[0], j - peak[1]) / peak[2];
+					value = Math.max(value, 26 * (1 - dist));
+				}
+				value += random.nextInt(3) - 1;
+				row[j] = (char)('a' + (int)Math.max(0, Math.min(25, value)));
+			}
+			
+			//the top row climbs one step at a time from S to E:
+			if (i == 0) {
+				for (int j=0; j<width; j++)
+					row[j] = (char)('a' + (int)(26L * j / width));
+				row[0] = 'S';
+				row[width-1] = 'E';
+			}
+			out.println(row);
+		}
+	}
+	
+}
@@ -2,10 +2,11 @@ package day12;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
-import common.FileUtil;
+import common.Runner;
+import common.geometry.Grid2D;
+import common.graph.Graph;
+import common.graph.GraphSearch;
 
 public class Main {
 	
@@ -21,224 +22,123 @@ public class Main {
 		
 	}
 	
-	static class Path {
+	static class Grid implements Graph {
 		
-		List<RowCol> path = new ArrayList<>();
-		boolean metGoal = false;
+		//the border is higher than any step can climb, so it is never entered
+		static final char BORDER = 0x7F;
 		
-		public void add(RowCol pos) {
-			path.add(pos);
-		}
-		
-		public int size() {
-			return path.size();
-		}
-		public RowCol getEnd() {
-			return path.get(path.size()-1);
-		}
-		
-		public Path copy() {
-			Path copy = new Path();
-			copy.path.addAll(this.path);
-			copy.metGoal = this.metGoal;
-			return copy;
-		}
-		
-	}
-	
-	static class Grid {
-		
-		char [][] values;
+		Grid2D values;
 		int height;
 		int width;
 		
-		public Grid(int height, int width) {
-			this.values = new char[height][width];
-			this.height = height;
-			this.width = width;
+		public Grid(Grid2D values) {
+			this.values = values;
+			this.height = values.height;
+			this.width = values.width;
 		}
 		
 		public RowCol findValue(char target) {
-			for (int i=0; i<height; i++) {
-				for (int j=0; j<width; j++) {
-					if (values[i][j] == target)
-						return new RowCol(i, j);
-				}
-			}
-			return null;
+			int index = values.find(target);
+			if (index < 0)
+				return null;
+			return new RowCol(values.getRow(index), values.getCol(index));
+		}
+		
+		public Grid copy() {
+			return new Grid(values.copy());
 		}
 		
 		public char getValue(RowCol pos) {
-			return values[pos.row][pos.col];
+			return values.get(pos.row, pos.col);
 		}
 		public void setValue(RowCol pos, char value) {
-			values[pos.row][pos.col] = value; 
+			values.set(pos.row, pos.col, value); 
 		}
 		
 		public static Grid loadFromFile(File file) throws IOException {
-			List<String> lines = FileUtil.readLinesFromFile(file);
-			while (lines.get(lines.size()-1).trim().isEmpty())
-				lines.remove(lines.get(lines.size()-1));
-			
-			int height = lines.size();
-			int width = lines.get(0).length();
-			Grid grid = new Grid(height, width);
-			
-			for (int i=0; i<height; i++) {
-				String line = lines.get(i);
-				for (int j=0; j<width; j++) {
-					grid.values[i][j] = line.charAt(j);
-				}
-			}
-			
-			return grid;
+			return new Grid(Grid2D.load(file, BORDER));
 		}
 		
-		public List<RowCol> getNextSteps(RowCol pos) {
-			char value = Character.toLowerCase(getValue(pos));
-			
-			List<RowCol> list = new ArrayList<>();
-			list.add(new RowCol(pos.row-1, pos.col));
-			list.add(new RowCol(pos.row+1, pos.col));
-			list.add(new RowCol(pos.row, pos.col-1));
-			list.add(new RowCol(pos.row, pos.col+1));
-			for (int i=list.size()-1; i>=0; i--) {
-				RowCol next = list.get(i);
-				if (!(next.row >= 0 && next.row < height &&
-					  next.col >= 0 && next.col < width &&
-					  ((int)(getValue(next) - value)) <= 1)) {
-					list.remove(i);
-				}
-			}
-			return list;
+		/**
+		 * Nodes are a cell index times two, plus one once the path has
+		 * been through a 'z'.  The goal is 'E' reached after a 'z'.
+		 */
+		public int size() {
+			return values.cells.length * 2;
 		}
 		
-		public Path getShortestDistance(RowCol start, char goalChar, char finalChar) {
-			Visitor visitor = new Visitor(this, start, goalChar, finalChar);
-			
-			return visitor.getShortestDistance();
+		public int getMaxDegree() {
+			return 4;
 		}
 		
-	}
-	
-	static class Visitor {
-		
-		Grid grid;
-		Path [][] bestPathsBeforeGoal;
-		Path [][] bestPathsAfterGoal;
-		RowCol start;
-		char goalChar;
-		char finalChar;
-		
-		public Visitor(Grid grid, RowCol start, char goalChar, char finalChar) {
-			this.grid = grid;
-			this.bestPathsBeforeGoal = new Path[grid.height][grid.width];
-			this.bestPathsAfterGoal = new Path[grid.height][grid.width];
+		public int getNeighbors(int node, int [] neighbors, int [] costs) {
+			byte [] cells = values.cells;
+			int index = node >> 1;
+			int metGoal = node & 1;
+			char value = Character.toLowerCase((char)cells[index]);
 			
-			this.start = start;
-			this.goalChar = goalChar;
-			this.finalChar = finalChar;
-		}
-		
-		public String getDistanceGridText() {
-			StringBuilder s = new StringBuilder();
-			for (int i=0; i<grid.height; i++) {
-				for (int j=0; j<grid.width; j++) {
-					String txt = String.valueOf(bestPathsBeforeGoal[i][j].size());
-					for (int tmp=txt.length(); tmp<4; tmp++)
-						s.append(' ');
-					s.append(txt);
-				}
-				s.append("\n");
+			int count = 0;
+			for (int offset : values.neighbors4) {
+				int next = index + offset;
+				if (cells[next] - value <= 1)
+					neighbors[count++] = next * 2 + (cells[next] == 'z' ? 1 : metGoal);
 			}
-			return s.toString();
-		}
-		
-		public Path getShortestDistance() {
-			Path path0 = new Path();
-			path0.add(start);
-			bestPathsBeforeGoal[start.row][start.col] = path0;
+			return count;
+		}
+		
+		/**
+		 * Returns the fewest steps from any of the start cells to the
+		 * end, or -1 if it can't be reached
+		 */
+		public int getShortestPathLength(int [] starts, int count) {
+			int [] sources = new int[count];
+			for (int i=0; i<count; i++)
+				sources[i] = starts[i] * 2;
+			int end = values.find('E') * 2 + 1;
 			
-			List<Path> leaves = new ArrayList<>();
-			leaves.add(path0);
-			return expandBreadthFirst(leaves);
+			GraphSearch search = new GraphSearch(this);
+			if (search.bfs(sources, count, GraphSearch.target(end)) < 0)
+				return -1;
+			return search.getDistance(end);
 		}
 		
-		public Path expandBreadthFirst(List<Path> leaves) {
-			List<Path> nextLeaves = new ArrayList<>();
-			
-			for (Path path : leaves) {
-				RowCol lastPos = path.getEnd();
-				List<RowCol> steps = grid.getNextSteps(lastPos);
-				
-				Path [][] activeGrid = path.metGoal ? bestPathsAfterGoal : bestPathsBeforeGoal;
-				for (RowCol step : steps) {
-					
-					if (activeGrid[step.row][step.col] == null) {
-						Path nextPath = path.copy();
-						nextPath.add(step);
-						char ch = grid.getValue(step);
-						if (ch == goalChar)
-							nextPath.metGoal = true;
-						
-						if (path.metGoal && ch == finalChar)
-							return path;
-						
-						activeGrid[step.row][step.col] = nextPath;						
-						nextLeaves.add(nextPath);
-					}
-				}
-			}
-			
-			if (nextLeaves.isEmpty())
-				return null;
-			
-			return expandBreadthFirst(nextLeaves);
-		}
-			
+	}
+	
+	public static int getShortestPathLength(Grid grid) {
+		int start = grid.values.find('S');
+		return grid.getShortestPathLength(new int[] {start}, 1);
+	}
+	
+	/**
+	 * Finds the shortest path starting from any 'a' (or 'S'), searching
+	 * from all of them at once.  This changes 'S' to 'a' in the grid.
+	 */
+	public static int getShortestPathLengthFromAnyA(Grid grid) {
+		Grid2D values = grid.values;
+		values.set(values.find('S'), 'a');
+		
+		int [] starts = new int[values.count('a')];
+		int count = 0;
+		for (int i=0; i<values.cells.length; i++) {
+			if (values.cells[i] == 'a')
+				starts[count++] = i;
+		}
+		
+		return grid.getShortestPathLength(starts, count);
 	}
 	
 	public static void solvePart1(File file) throws Exception {
 		Grid grid = Grid.loadFromFile(file);
-		
-		RowCol start = grid.findValue('S');
-		Path path = grid.getShortestDistance(start, 'z', 'E');
-		System.out.println("length = " + path.size());
+		System.out.println("length = " + getShortestPathLength(grid));
 	}
 	
 	public static void solvePart2(File file) throws Exception {
 		Grid grid = Grid.loadFromFile(file);
-		Path bestPath = null;
-		
-		RowCol sLoc = grid.findValue('S');
-		grid.setValue(sLoc, 'a');
-		
-		for (int i=0; i<grid.height; i++) {
-			for (int j=0; j<grid.width; j++) {
-				RowCol start = new RowCol(i, j);
-				if (grid.getValue(start) == 'a') {
-					Path path = grid.getShortestDistance(start, 'z', 'E');
-					if (path != null) {
-						if (bestPath == null || path.size() < bestPath.size())
-							bestPath = path;
-					}
-				}
-			}
-		}
-		
-		System.out.println("length = " + bestPath.size());
+		System.out.println("length = " + getShortestPathLengthFromAnyA(grid));
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day12/test.txt");
-			File file = new File("files/day12/input.txt");
-			//solvePart1(file);
-			solvePart2(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day12", args);
 	}
 	
 }
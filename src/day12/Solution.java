@@ -0,0 +1,23 @@
+package day12;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.Grid grid;
+	
+	public void parse(Path input) throws Exception {
+		grid = Main.Grid.loadFromFile(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.getShortestPathLength(grid);
+	}
+	
+	public Object part2() {
+		return Main.getShortestPathLengthFromAnyA(grid.copy());
+	}
+	
+}
@@ -0,0 +1,60 @@
+package day13;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Pairs of packets (nested lists of 0-10) separated by blank lines,
+ * 150 pairs per unit of scale.  The second packet of a pair often starts
+ * as a copy of the first, so comparisons have to go deep.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long pairs = 150L * scale;
+		for (long i=0; i<pairs; i++) {
+			if (i > 0)
+				out.println();
+			String left = createList(random, 0);
+			String right = createList(random, 0);
+			if (random.nextBoolean()) {
+				//share a prefix, cut at a list boundary:
+				int cut = left.lastIndexOf('[');
+				right = left.substring(0, cut) + right + "]".repeat(depthAt(left, cut));
+			}
+			out.println(left);
+			out.println(right);
+		}
+	}
+	
+	static String createList(Random random, int depth) {
+		StringBuilder s = new StringBuilder("[");
+		int count = random.nextInt(depth == 0 ? 6 : 5);
+		for (int i=0; i<count; i++) {
+			if (i > 0)
+				s.append(',');
+			if (depth < 4 && random.nextInt(3) == 0)
+				s.append(createList(random, depth + 1));
+			else
+				s.append(random.nextInt(11));
+		}
+		return s.append(']').toString();
+	}
+	
+	/**
+	 * Number of lists still open just before index end
+	 */
+	static int depthAt(String text, int end) {
+		int depth = 0;
+		for (int i=0; i<end; i++) {
+			if (text.charAt(i) == '[')
+				depth++;
+			else if (text.charAt(i) == ']')
+				depth--;
+		}
+		return depth;
+	}
+	
+}
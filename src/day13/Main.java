@@ -1,12 +1,15 @@
 package day13;
 
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class Main {
@@ -19,7 +22,7 @@ public class Main {
 	 * - positive values if objects are in the wrong order
 	 */
 	static class CompareLogic implements Comparator<Object> {
-
+		
 		@Override
 		public int compare(Object o1, Object o2) {
 			if (o1 instanceof Number && o2 instanceof Number) {
@@ -188,6 +191,87 @@ public class Main {
 		return pairs;
 	}
 	
+	/**
+	 * Writes a packet for readPacket(): a number as itself, and a list as
+	 * -1 - its size followed by its elements
+	 */
+	static void writePacket(Object o, DataOutput out) throws IOException {
+		if (o instanceof Number) {
+			out.writeInt(((Number)o).intValue());
+		} else {
+			List list = (List)o;
+			out.writeInt(-1 - list.size());
+			for (Object element : list)
+				writePacket(element, out);
+		}
+	}
+	
+	static Object readPacket(ByteBuffer in) {
+		int value = in.getInt();
+		if (value >= 0)
+			return Integer.valueOf(value);
+		
+		int size = -1 - value;
+		List list = new ArrayList<>(size);
+		for (int i=0; i<size; i++)
+			list.add(readPacket(in));
+		return list;
+	}
+	
+	public static void writeInput(List<InputPair> pairs, DataOutput out) throws IOException {
+		out.writeInt(pairs.size());
+		for (InputPair pair : pairs) {
+			writePacket(pair.o1, out);
+			writePacket(pair.o2, out);
+		}
+	}
+	
+	public static List<InputPair> readInput(ByteBuffer in) {
+		int count = in.getInt();
+		List<InputPair> pairs = new ArrayList<>(count);
+		for (int i=0; i<count; i++) {
+			Object o1 = readPacket(in);
+			pairs.add(new InputPair(o1, readPacket(in)));
+		}
+		return pairs;
+	}
+	
+	public static long sumCorrectOrderIndices(List<InputPair> pairs) {
+		//long, as scaled inputs have enough pairs to overflow an int:
+		long sum = 0;
+		for (int i=0; i<pairs.size(); i++) {
+			if (pairs.get(i).isCorrectOrder())
+				sum += (i+1);
+		}
+		return sum;
+	}
+	
+	/**
+	 * Sorts all packets along with the [[2]] and [[6]] dividers and
+	 * returns the product of the dividers' (1-based) indices.
+	 */
+	public static long getDecoderKey(List<InputPair> pairs) {
+		List objects = new ArrayList<>();
+		for (InputPair pair : pairs) {
+			objects.add(pair.o1);
+			objects.add(pair.o2);
+		}
+		Object divider1 = parseLine("[[2]]");
+		Object divider2 = parseLine("[[6]]");
+		objects.add(divider1);
+		objects.add(divider2);
+		
+		objects.sort(new CompareLogic());
+		
+		long product = 1;
+		for (int i=0; i<objects.size(); i++) {
+			Object obj = objects.get(i);
+			if (obj == divider1 || obj == divider2)
+				product *= (i+1);
+		}
+		return product;
+	}
+	
 	public static void solvePart1(File file) throws Exception {
 		List<InputPair> pairs = readInput(file);
 		
@@ -240,16 +324,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		
-		try {
-			//File file = new File("files/day13/test.txt");
-			File file = new File("files/day13/input.txt");
-			//solvePart1(file);
-			solvePart2(file);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day13", args);
 	}
 	
 }
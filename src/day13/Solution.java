@@ -0,0 +1,40 @@
+package day13;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+import common.Snapshot;
+import common.Solver;
+
+public class Solution implements Solver, Snapshot.Model {
+	
+	List<Main.InputPair> pairs;
+	
+	public void parse(Path input) throws Exception {
+		pairs = Main.readInput(input.toFile());
+	}
+	
+	public int getSnapshotVersion() {
+		return 1;
+	}
+	
+	public void writeSnapshot(DataOutput out) throws IOException {
+		Main.writeInput(pairs, out);
+	}
+	
+	public void readSnapshot(ByteBuffer in) {
+		pairs = Main.readInput(in);
+	}
+	
+	public Object part1() {
+		return Main.sumCorrectOrderIndices(pairs);
+	}
+	
+	public Object part2() {
+		return Main.getDecoderKey(pairs);
+	}
+	
+}
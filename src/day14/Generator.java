@@ -0,0 +1,51 @@
+package day14;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Rock paths such as "498,4 -> 498,6 -> 496,6", 150 per unit of scale,
+ * spread below the sand source at 500,0.  The cave grows in both width
+ * and depth with the square root of the scale, so the amount of sand
+ * for part 2 (roughly depth squared) grows about linearly.
+ * 
+ * Rock stays at least half the cave's width below the source.  A pile
+ * reaching the source would need support that wide, so in part 1 the
+ * sand always ends up falling into the abyss.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		double root = Math.sqrt(scale);
+		int width = (int)Math.round(100 * root);
+		int depth = (int)Math.round(170 * root);
+		
+		int minX = 500 - width / 2;
+		int maxX = minX + width;
+		int minY = width / 2 + 1;
+		
+		long paths = 150L * scale;
+		for (long i=0; i<paths; i++) {
+			int x = minX + random.nextInt(width);
+			int y = minY + random.nextInt(depth - minY);
+			StringBuilder s = new StringBuilder();
+			s.append(x).append(',').append(y);
+			
+			int segments = 1 + random.nextInt(7);
+			boolean horizontal = random.nextBoolean();
+			for (int j=0; j<segments; j++) {
+				int len = 1 + random.nextInt(10);
+				if (horizontal)
+					x = Math.max(minX, Math.min(maxX, x + (random.nextBoolean() ? len : -len)));
+				else
+					y = Math.max(minY, y + (random.nextBoolean() ? len : -len));
+				horizontal = !horizontal;
+				s.append(" -> ").append(x).append(',').append(y);
+			}
+			out.println(s);
+		}
+	}
+	
+}
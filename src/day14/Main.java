@@ -2,89 +2,94 @@ package day14;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import common.FileUtil;
+import common.LineView;
+import common.MappedLineReader;
+import common.Runner;
+import common.TextCursor;
+import common.geometry.Grid2D;
+import common.geometry.IntXY;
 
 public class Main {
 	
-	static class XY {
-		
-		int x;
-		int y;
-		
-		public XY(int x, int y) {
-			this.x = x;
-			this.y = y;
-		}
-		
-		public int hashCode() {
-			return x * 13 ^ 7 + y;
-		}
-		public boolean equals(Object o) {
-			if (!(o instanceof XY))
-				return false;
-			
-			XY that = (XY)o;
-			return this.x == that.x && this.y == that.y;
-		}
-		
-		public String toString() {
-			return this.x + "," + this.y;
-		}
-		
-	}
-	
 	static class World {
 		
-		Map<XY, Character> map = new HashMap<>(1000);
+		//cells from (originX, 0), with 0 for empty space:
+		Grid2D grid;
+		int originX;
 		
 		int minX = 0;
 		int maxX = 0;
 		int minY = 0;
 		int maxY = 0;
+		boolean isEmpty = true;
+		
+		/**
+		 * Creates a world that can hold x from minX to maxX and y from 0
+		 * to maxY
+		 */
+		public World(int minX, int maxX, int maxY) {
+			this.grid = new Grid2D(maxY + 1, maxX - minX + 1, (char)0);
+			this.originX = minX;
+		}
+		protected World(World world) {
+			this.grid = world.grid.copy();
+			this.originX = world.originX;
+			this.minX = world.minX;
+			this.maxX = world.maxX;
+			this.minY = world.minY;
+			this.maxY = world.maxY;
+			this.isEmpty = world.isEmpty;
+		}
 		
-		public void set(XY xy, char value) {
-			if (map.isEmpty()) {
-				this.minX = xy.x;
-				this.maxX = xy.x;
-				this.minY = xy.y;
-				this.maxY = xy.y;
+		public void set(int x, int y, char value) {
+			if (isEmpty) {
+				this.minX = x;
+				this.maxX = x;
+				this.minY = y;
+				this.maxY = y;
+				this.isEmpty = false;
 			} else {
-				this.minX = Math.min(this.minX, xy.x);
-				this.maxX = Math.max(this.maxX, xy.x);
-				this.minY = Math.min(this.minY, xy.y);
-				this.maxY = Math.max(this.maxY, xy.y);
+				this.minX = Math.min(this.minX, x);
+				this.maxX = Math.max(this.maxX, x);
+				this.minY = Math.min(this.minY, y);
+				this.maxY = Math.max(this.maxY, y);
 			}
 			
-			map.put(xy, value);
-			
+			grid.set(y, x - originX, value);
 		}
-		public void set(int x, int y, char value) {
-			set(new XY(x, y), value);
+		public void set(IntXY xy, char value) {
+			set(xy.x, xy.y, value);
 		}
 		
-		public Character get(XY xy) {
-			return map.get(xy);
-		}
 		public Character get(int x, int y) {
-			return get(new XY(x, y));
+			char value = grid.get(y, x - originX);
+			return value == 0 ? null : Character.valueOf(value);
 		}
-		
-		public boolean isEmpty(XY xy) {
-			return !map.containsKey(xy);
+		public Character get(IntXY xy) {
+			return get(xy.x, xy.y);
 		}
+		
 		public boolean isEmpty(int x, int y) {
-			return isEmpty(new XY(x, y));
+			return grid.cells[grid.index(y, x - originX)] == 0;
+		}
+		public boolean isEmpty(IntXY xy) {
+			return isEmpty(xy.x, xy.y);
+		}
+		
+		public World copy() {
+			return new World(this);
 		}
 		
 		public String printState() {
 			StringBuilder s = new StringBuilder();
 			for (int y=minY; y<=maxY; y++) {
 				for (int x=minX; x<=maxX; x++) {
-					Character ch = get(new XY(x, y));
+					Character ch = get(x, y);
 					s.append(ch == null ? '.' : ch.charValue());
 				}
 				s.append("\n");
@@ -93,45 +98,78 @@ public class Main {
 		}
 		
 		public static World loadFromFile(File file) throws IOException {
-			World world = new World();
-			List<String> lines = FileUtil.readLinesFromFile(file);
+			final List<int[]> paths = new ArrayList<>();
+			final TextCursor cursor = new TextCursor();
 			
 			//parse lines such as: 498,4 -> 498,6 -> 496,6
-			for (String line : lines) {
-				//System.out.println("Drawing line: " + line);
-				String [] parts = line.split("\\s+");
-				XY xyLast = parseXY(parts[0]);
-				for (int i=2; i<parts.length; i+=2) {
-					XY xy = parseXY(parts[i]);
-					
-					int dx = (int)Math.signum(xy.x - xyLast.x);
-					int dy = (int)Math.signum(xy.y - xyLast.y);
+			FileUtil.forEachLine(file, new MappedLineReader.LineVisitor() {
+				int [] buff = new int[64];
+				
+				public boolean visit(LineView line) {
+					cursor.reset(line);
+					int len = 0;
+					while (cursor.skipUntilDigit()) {
+						if (len + 2 > buff.length)
+							buff = Arrays.copyOf(buff, buff.length * 2);
+						buff[len++] = cursor.nextInt();
+						buff[len++] = cursor.expect(',').nextInt();
+					}
+					if (len > 0)
+						paths.add(Arrays.copyOf(buff, len));
+					return true;
+				}
+			});
+			
+			//size the grid to hold both the rock and the widest pile of
+			//sand that can form above the floor at maxY + 2:
+			int maxY = 0;
+			int minX = 500;
+			int maxX = 500;
+			for (int [] path : paths) {
+				for (int i=0; i<path.length; i+=2) {
+					minX = Math.min(minX, path[i]);
+					maxX = Math.max(maxX, path[i]);
+					maxY = Math.max(maxY, path[i+1]);
+				}
+			}
+			minX = Math.min(minX, 500 - maxY - 3);
+			maxX = Math.max(maxX, 500 + maxY + 3);
+			World world = new World(minX, maxX, maxY + 2);
+			
+			for (int [] path : paths) {
+				int lastX = path[0];
+				int lastY = path[1];
+				for (int i=2; i<path.length; i+=2) {
+					int toX = path[i];
+					int toY = path[i+1];
 					
-					//System.out.println("Connecting " + xyLast + " to " + xy + " (dx = " + dx + ", dy = " + dy + ")");
+					int dx = Integer.signum(toX - lastX);
+					int dy = Integer.signum(toY - lastY);
 					
-					int x = xyLast.x;
-					int y = xyLast.y;
+					int x = lastX;
+					int y = lastY;
 					world.set(x, y, '#');
-					while (!(x == xy.x && y == xy.y)) {
+					while (!(x == toX && y == toY)) {
 						x += dx;
 						y += dy;
 						world.set(x, y, '#');
 					}
 					
-					xyLast = xy;
+					lastX = toX;
+					lastY = toY;
 				}
 			}
 			return world;
 		}
 		
-		protected static XY parseXY(String text) {
-			String [] coords = text.split(",");
-			return new XY(
-					Integer.parseInt(coords[0]), 
-					Integer.parseInt(coords[1]));
+		protected static IntXY parseXY(String text) {
+			TextCursor cursor = new TextCursor(text);
+			int x = cursor.nextInt();
+			int y = cursor.expect(',').nextInt();
+			return new IntXY(x, y);
 		}
 		
-		public boolean dropSand(XY start) {
+		public boolean dropSand(IntXY start) {
 			int x = start.x;
 			int y = start.y;
 			
@@ -156,8 +194,8 @@ public class Main {
 			return false;
 		}
 		
-		public boolean dropSandPart2(XY start, int floor) {
-
+		public boolean dropSandPart2(IntXY start, int floor) {
+			
 			if (!isEmpty(start))
 				return false;
 			
@@ -190,11 +228,12 @@ public class Main {
 		
 	}
 	
-	public static void solve(File file, boolean part1) throws Exception {
-		World world = World.loadFromFile(file);
-		System.out.println(world.printState());
-		
-		XY sandStart = new XY(500, 0);
+	/**
+	 * Drops sand from (500, 0) until it stops coming to rest, returning
+	 * the number of units that came to rest.
+	 */
+	public static int countRestingSand(World world, boolean part1) {
+		IntXY sandStart = new IntXY(500, 0);
 		int t = 0;
 		if (part1) {
 			while (world.dropSand(sandStart))
@@ -205,6 +244,14 @@ public class Main {
 			while (world.dropSandPart2(sandStart, floor))
 				t++;
 		}
+		return t;
+	}
+	
+	public static void solve(File file, boolean part1) throws Exception {
+		World world = World.loadFromFile(file);
+		System.out.println(world.printState());
+		
+		int t = countRestingSand(world, part1);
 		
 		System.out.println("========================================================");
 		System.out.println(world.printState());
@@ -212,15 +259,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day14/test.txt");
-			File file = new File("files/day14/input.txt");
-			//solve(file, true);
-			solve(file, false);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day14", args);
 	}
 	
 }
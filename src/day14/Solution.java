@@ -0,0 +1,23 @@
+package day14;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.World world;
+	
+	public void parse(Path input) throws Exception {
+		world = Main.World.loadFromFile(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.countRestingSand(world.copy(), true);
+	}
+	
+	public Object part2() {
+		return Main.countRestingSand(world.copy(), false);
+	}
+	
+}
@@ -0,0 +1,43 @@
+package day15;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Sensor/beacon reports, 30 per unit of scale, within the 0-4000000
+ * search area the Solution uses.  A hidden distress beacon is chosen
+ * first and every sensor's range stops one short of it, so that point
+ * is never covered; with enough sensors it is the only such point.
+ * Sensors are placed within 2000000 of it on each axis, which gives
+ * ranges like those in the real input.
+ */
+public class Generator implements InputGenerator {
+	
+	static final int MAX = 4_000_000;
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int px = random.nextInt(MAX + 1);
+		int py = random.nextInt(MAX + 1);
+		
+		long sensors = 30L * scale;
+		for (long i=0; i<sensors; i++) {
+			int sx = Math.max(0, Math.min(MAX, px - MAX/2 + random.nextInt(MAX + 1)));
+			int sy = Math.max(0, Math.min(MAX, py - MAX/2 + random.nextInt(MAX + 1)));
+			int range = Math.abs(sx - px) + Math.abs(sy - py) - 1;
+			if (range < 1) {
+				i--;
+				continue;
+			}
+			
+			//beacon somewhere on the edge of the range:
+			int dx = random.nextInt(range + 1);
+			int dy = range - dx;
+			int bx = sx + (random.nextBoolean() ? dx : -dx);
+			int by = sy + (random.nextBoolean() ? dy : -dy);
+			out.println("Sensor at x=" + sx + ", y=" + sy + ": closest beacon is at x=" + bx + ", y=" + by);
+		}
+	}
+	
+}
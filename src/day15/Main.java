@@ -9,67 +9,44 @@ import java.util.List;
 import java.util.Set;
 
 import common.FileUtil;
+import common.IntervalSet;
+import common.LineView;
+import common.Log;
+import common.MappedLineReader;
+import common.Runner;
+import common.TextCursor;
+import common.geometry.LongHashSet;
+import common.geometry.LongXY;
 
 public class Main {
 	
-	static class XY {
-		
-		long x;
-		long y;
-		
-		public XY(long x, long y) {
-			this.x = x;
-			this.y = y;
-		}
-		
-		public int hashCode() {
-			return Long.hashCode(x * 13 ^ 7 + y);
-		}
-		public boolean equals(Object o) {
-			if (!(o instanceof XY))
-				return false;
-			
-			XY that = (XY)o;
-			return this.x == that.x && this.y == that.y;
-		}
-		
-		public String toString() {
-			return x + ", " + y;
-		}
-		
-		public long manhattanDistanceTo(XY loc) {
-			return Math.abs(loc.x - this.x) + Math.abs(loc.y - this.y); 
-		}
-		
-	}
-	
 	static class Sensor {
 		
-		XY location;
-		XY closestBeaconLocation;
+		LongXY location;
+		LongXY closestBeaconLocation;
 		
 		/**
 		 * Parse Sensor object from text:
 		 * Sensor at x=2, y=18: closest beacon is at x=-2, y=15
 		 */
-		public static Sensor parseFrom(String text) {
-			String [] parts = text.split(":");
-			String locText = parts[0].substring("Sensor at ".length());
-			String beaconText = parts[1].substring(" closest beacon is at ".length());
-			
-			//System.out.println(locText);
-			//System.out.println(beaconText);
-			
+		public static Sensor parseFrom(CharSequence text) {
+			return parseFrom(new TextCursor(text));
+		}
+		public static Sensor parseFrom(TextCursor cursor) {
 			Sensor sensor = new Sensor();
-			sensor.location = parseXY(locText);
-			sensor.closestBeaconLocation = parseXY(beaconText);
+			cursor.skipWhitespace().expect("Sensor at ");
+			sensor.location = parseXY(cursor);
+			cursor.expect(": closest beacon is at ");
+			sensor.closestBeaconLocation = parseXY(cursor);
 			return sensor;
 		}
-		public static XY parseXY(String text) {
-			String [] parts = text.split(",\\s+");
-			return new XY(
-					Long.parseLong(parts[0].substring(2)),
-					Long.parseLong(parts[1].substring(2)));
+		/**
+		 * Reads a location such as "x=-2, y=15" at the cursor
+		 */
+		public static LongXY parseXY(TextCursor cursor) {
+			long x = cursor.expect("x=").nextLong();
+			long y = cursor.expect(", y=").nextLong();
+			return new LongXY(x, y);
 		}
 		
 		
@@ -94,31 +71,31 @@ public class Main {
 		List<Sensor> sensors = new ArrayList<>();
 		
 		public static Puzzle loadFrom(File file) throws IOException {
-			Puzzle puzzle = new Puzzle();
-			
-			List<String> lines = FileUtil.readLinesFromFile(file);
-			for (String line : lines) {
-				line = line.trim();
-				if (line.isEmpty())
-					continue;
-				
-				puzzle.sensors.add(Sensor.parseFrom(line));
-			}
+			final Puzzle puzzle = new Puzzle();
+			
+			final TextCursor cursor = new TextCursor();
+			FileUtil.forEachLine(file, new MappedLineReader.LineVisitor() {
+				public boolean visit(LineView line) {
+					if (!line.trim().isEmpty())
+						puzzle.sensors.add(Sensor.parseFrom(cursor.reset(line)));
+					return true;
+				}
+			});
 			
 			return puzzle;
 		}
 		
-		public Set<XY> getCoveredPointsOnHorizontal(long y) {
-			Set<XY> covered = new HashSet<>();
+		public Set<LongXY> getCoveredPointsOnHorizontal(long y) {
+			Set<LongXY> covered = new HashSet<>();
 			
 			for (Sensor sensor : sensors) {
 				long maxLen = sensor.getDistanceToBeacon();
 				if (y > sensor.location.y - maxLen && y < sensor.location.y + maxLen) {
 					long len = maxLen - Math.abs(sensor.location.y - y);
-					covered.add(new XY(sensor.location.x, y));
+					covered.add(new LongXY(sensor.location.x, y));
 					for (int i=1; i<=len; i++) {
-						covered.add(new XY(sensor.location.x + i, y));
-						covered.add(new XY(sensor.location.x - i, y));
+						covered.add(new LongXY(sensor.location.x + i, y));
+						covered.add(new LongXY(sensor.location.x - i, y));
 					}
 				}
 			}
@@ -126,165 +103,102 @@ public class Main {
 			return covered;
 		}
 		
-		public XY findUncoveredPointInRow(long y, long xMax) {
-			//get list of ranges we cover:
-			List<Range> covered = new ArrayList<>();
+		/**
+		 * Returns the x ranges in row y that sensors can see, reusing the
+		 * given set and scratch arrays
+		 */
+		public IntervalSet getCoverageInRow(long y, IntervalSet coverage, long [] starts, long [] ends) {
+			int count = 0;
 			for (Sensor sensor : sensors) {
 				long maxLen = sensor.getDistanceToBeacon();
 				if (y > sensor.location.y - maxLen && y < sensor.location.y + maxLen) {
 					long len = maxLen - Math.abs(sensor.location.y - y);
-					covered.add(new Range(sensor.location.x - len, sensor.location.x + len));
-				}
-			}
-			
-			//sort by length (biggest first to improve chances of covering entire row faster):
-			covered.sort(new Comparator<Range>() {
-
-				@Override
-				public int compare(Range o1, Range o2) {
-					return Long.compare(o2.length(), o1.length());
-				}
-				
-			});
-			
-			//keep track of uncovered areas, removing from this list to see if anything remains:
-			List<Range> uncovered = new ArrayList<>();
-			uncovered.add(new Range(0, xMax));
-			for (Range coverRange : covered) {
-				
-				for (int i=uncovered.size()-1; i>=0; i--) {
-					Range uncoveredRange = uncovered.get(i);
-					
-					//we just covered up all possibilities: remove from list of possibilities
-					if (coverRange.contains(uncoveredRange)) {
-						uncovered.remove(i);
-					}
-					
-					//covering up middle section: need to split range into two
-					else if (coverRange.start > uncoveredRange.start && coverRange.end < uncoveredRange.end) {
-						uncovered.remove(i);
-						uncovered.add(new Range(uncoveredRange.start, coverRange.start-1));
-						uncovered.add(new Range(coverRange.end+1, uncoveredRange.end));
-					}
-					
-					//simple operation to trim range of possibilities
-					else {
-						if (!uncoveredRange.exclude(coverRange))
-							throw new IllegalStateException("Should not happen!" +
-						      " Uncovered: " + uncoveredRange.toString() + ", Covered: " + coverRange.toString());
-					}
+					starts[count] = sensor.location.x - len;
+					ends[count] = sensor.location.x + len;
+					count++;
 				}
-				
-				if (uncovered.isEmpty())
-					return null;
 			}
+			coverage.build(starts, ends, count);
+			return coverage;
+		}
+		
+		public LongXY findUncoveredPointInRow(long y, long xMax) {
+			return findUncoveredPointInRow(y, xMax, new IntervalSet(),
+					new long[sensors.size()], new long[sensors.size()]);
+		}
+		LongXY findUncoveredPointInRow(long y, long xMax, IntervalSet coverage, long [] starts, long [] ends) {
+			getCoverageInRow(y, coverage, starts, ends);
+			long x = coverage.firstGap(0, xMax);
+			if (x == IntervalSet.NONE)
+				return null;
 			
-			if (uncovered.size() > 1)
-				System.err.println("WARNING: More than 1 Range remains");
-			
-			Range range = uncovered.get(0);
-			if (range.length() > 1)
-				System.err.println("WARNING: Remaining range has more than 1 valid position");
-			
-			System.out.println("Remaining range: " + range.start + " - " + range.end);
-			return new XY(range.start, y);
+			if (coverage.countCovered(0, xMax) < xMax)
+				Log.warn("More than 1 position remains in row " + y);
+			return new LongXY(x, y);
 		}
 		
 	}
 	
 	/**
-	 * Represents a continuous range of numbers: [start, end] inclusive
+	 * Returns the points in row y that can't contain a beacon
 	 */
-	static class Range {
-		
-		long start;
-		long end;
-		
-		public Range(long start, long end) {
-			this.start = start;
-			this.end = end;
-		}
+	public static Set<LongXY> getNoBeaconPoints(Puzzle puzzle, long y) {
+		Set<LongXY> points = puzzle.getCoveredPointsOnHorizontal(y);
 		
-		public long length() {
-			return end - start + 1;
+		//remove beacon locations on given line:
+		for (Sensor sensor : puzzle.sensors) {
+			if (sensor.closestBeaconLocation.y == y)
+				points.remove(sensor.closestBeaconLocation);
 		}
 		
-		public boolean contains(Range range) {
-			return range.start >= this.start && range.end <= this.end;
-		}
-		public boolean overlaps(Range range) {
-			return (range.start >= this.start && range.start <= this.end) ||
-				   (range.end   >= this.start && range.end   <= this.end) ||
-				   (range.start < this.start && range.end > this.end);
-		}
+		return points;
+	}
+	
+	/**
+	 * Counts the points in row y that can't contain a beacon, without
+	 * listing them
+	 */
+	public static long countNoBeaconPoints(Puzzle puzzle, long y) {
+		int count = puzzle.sensors.size();
+		IntervalSet coverage = puzzle.getCoverageInRow(y, new IntervalSet(count), new long[count], new long[count]);
 		
-		/**
-		 * Exclude the given range of numbers from this one.  This will 
-		 * modify the start or end points of our range.  True is returned
-		 * if the operation can be completed.  The operation will not
-		 * be able to complete (and will return false) if either of the
-		 * following are true:
-		 * 
-		 * 1. The range to exclude entirely contains this range.  In this
-		 *    case all options would be excluded and no valid range
-		 *    could be produced.
-		 * 2. The range to exclude lies entirely within this range.  In 
-		 *    this case (unless it covered the entire range, as in #1)
-		 *    we would need to split our range into 2 ranges.
-		 *    
-		 * These cases will need to be handled by external logic.
-		 */
-		public boolean exclude(Range range) {
-			//occurs entirely before or after this range: do nothing
-			if (range.end < this.start || range.start > this.end)
-				return true;
-			
-			//if entirely contains our range: can't do that
-			if (range.start <= this.start && range.end >= this.end)
-				return false;
-			
-			//if we need to break range into two, we can't do that:
-			if (range.start > this.start && range.end < this.end)
-				return false;
-			
-			//at this point we know we overlap on one end only
-			
-			//if start is contained in our range, keep left side:
-			if (range.start > this.start && range.start <= this.end) {
-				this.end = range.start - 1;
-				return true;
-			}
-			
-			//if end is contained in our range, keep right side:
-			if (range.end >= this.start && range.end < this.end) {
-				this.start = range.end + 1;
-				return true;
-			}
-			
-			throw new IllegalStateException("Should not happen! This range: " + this.toString() + ", exclude: " + range.toString());
+		//beacons on the line don't count (and several sensors may share one):
+		LongHashSet beacons = new LongHashSet();
+		long points = coverage.getLength();
+		for (Sensor sensor : puzzle.sensors) {
+			LongXY beacon = sensor.closestBeaconLocation;
+			if (beacon.y == y && coverage.contains(beacon.x) && beacons.add(beacon.x))
+				points--;
 		}
-		
-		public String toString() {
-			return "Range(" + start + ", " + end + ")";
+		return points;
+	}
+	
+	public static LongXY findDistressBeacon(Puzzle puzzle, long xyMax) {
+		int count = puzzle.sensors.size();
+		IntervalSet coverage = new IntervalSet(count);
+		long [] starts = new long[count];
+		long [] ends = new long[count];
+		for (long y=0; y<=xyMax; y++) {
+			LongXY xy = puzzle.findUncoveredPointInRow(y, xyMax, coverage, starts, ends);
+			if (xy != null)
+				return xy;
 		}
-		
+		return null;
+	}
+	
+	public static long getTuningFrequency(LongXY xy) {
+		return xy.x * 4000000  + xy.y;
 	}
 	
 	public static void solvePart1(File file, long y, boolean print) throws Exception {
 		Puzzle puzzle = Puzzle.loadFrom(file);
-		Set<XY> points = puzzle.getCoveredPointsOnHorizontal(y);
-		
-		//remove beacon locations on given line:
-		for (Sensor sensor : puzzle.sensors) {
-			if (sensor.closestBeaconLocation.y == y)
-				points.remove(sensor.closestBeaconLocation);
-		}
+		Set<LongXY> points = getNoBeaconPoints(puzzle, y);
 		
 		System.out.println(points.size());
 		
 		if (print) {
 			List<Long> xList = new ArrayList<>();
-			for (XY point : points)
+			for (LongXY point : points)
 				xList.add(point.x);
 			xList.sort(Comparator.naturalOrder());
 			System.out.println(xList.toString());
@@ -294,35 +208,14 @@ public class Main {
 	public static void solvePart2(File file, long xyMax) throws Exception {
 		Puzzle puzzle = Puzzle.loadFrom(file);
 		
-		XY solution = null;
-		for (long y=0; y<=xyMax; y++) {
-			XY xy = puzzle.findUncoveredPointInRow(y, xyMax);
-			if (xy != null) {
-				solution = xy;
-				break;
-			}
-		}
+		LongXY solution = findDistressBeacon(puzzle, xyMax);
 		
-		long freq = solution.x * 4000000  + solution.y;
+		long freq = getTuningFrequency(solution);
 		System.out.println("Solution = " + solution.toString() + " (tuning frequency = " + freq + ")");
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//testParse();
-			
-			//File testFile  = new File("files/day15/test.txt");
-			File inputFile = new File("files/day15/input.txt");
-			
-			//solvePart1(testFile, 10, true);
-			//solvePart1(inputFile, 2000000, false);
-			
-			//solvePart2(testFile, 20);
-			solvePart2(inputFile, 4000000);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day15", args);
 	}
 	
 }
@@ -0,0 +1,39 @@
+package day15;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	long row;
+	long xyMax;
+	Main.Puzzle puzzle;
+	
+	/**
+	 * Uses the row and search area of the real puzzle input
+	 */
+	public Solution() {
+		this(2000000, 4000000);
+	}
+	/**
+	 * The test input uses row = 10, xyMax = 20
+	 */
+	public Solution(long row, long xyMax) {
+		this.row = row;
+		this.xyMax = xyMax;
+	}
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.countNoBeaconPoints(puzzle, row);
+	}
+	
+	public Object part2() {
+		return Main.getTuningFrequency(Main.findDistressBeacon(puzzle, xyMax));
+	}
+	
+}
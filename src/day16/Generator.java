@@ -0,0 +1,82 @@
+package day16;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A connected network of valves, 60 per unit of scale, starting at AA.
+ * The searches are exponential in the number of working valves, so
+ * that stays at 15 (as in the real input) and scaling only grows the
+ * tunnel network between them.
+ */
+public class Generator implements InputGenerator {
+	
+	static final int WORKING_VALVES = 15;
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int count = 60 * scale;
+		
+		//names are two letters while they fit, AA being the start:
+		int nameLength = 2;
+		for (long n=26*26; n<count; n*=26)
+			nameLength++;
+		String [] names = new String[count];
+		names[0] = "AA";
+		for (int i=1; i<count; i++)
+			names[i] = createName(i, nameLength);
+		
+		//random tree, plus a third as many extra tunnels:
+		List<List<Integer>> tunnels = new ArrayList<>();
+		for (int i=0; i<count; i++)
+			tunnels.add(new ArrayList<>());
+		for (int i=1; i<count; i++)
+			connect(tunnels, i, random.nextInt(i));
+		for (int i=0; i<count/3; i++) {
+			int a = random.nextInt(count);
+			int b = random.nextInt(count);
+			if (a != b && !tunnels.get(a).contains(b))
+				connect(tunnels, a, b);
+		}
+		
+		int [] flowRates = new int[count];
+		for (int i=0; i<Math.min(WORKING_VALVES, count-1); i++) {
+			int idx = 1 + random.nextInt(count-1);
+			if (flowRates[idx] > 0)
+				i--;
+			else
+				flowRates[idx] = 3 + random.nextInt(23);
+		}
+		
+		for (int i=0; i<count; i++) {
+			List<Integer> to = tunnels.get(i);
+			StringBuilder s = new StringBuilder();
+			s.append("Valve ").append(names[i]).append(" has flow rate=").append(flowRates[i]);
+			s.append(to.size() == 1 ? "; tunnel leads to valve " : "; tunnels lead to valves ");
+			for (int j=0; j<to.size(); j++) {
+				if (j > 0)
+					s.append(", ");
+				s.append(names[to.get(j)]);
+			}
+			out.println(s);
+		}
+	}
+	
+	static void connect(List<List<Integer>> tunnels, int a, int b) {
+		tunnels.get(a).add(b);
+		tunnels.get(b).add(a);
+	}
+	
+	static String createName(int index, int length) {
+		char [] name = new char[length];
+		for (int i=length-1; i>=0; i--) {
+			name[i] = (char)('A' + index % 26);
+			index /= 26;
+		}
+		return new String(name);
+	}
+	
+}
@@ -11,6 +11,10 @@ import java.util.Map;
 import java.util.Set;
 
 import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.TextCursor;
+import common.search.TranspositionTable;
 
 public class Main {
 	
@@ -19,6 +23,9 @@ public class Main {
 		String id;
 		int rate;
 		List<Valve> tunnelsTo = new ArrayList<>();
+		//index among all valves, and bit among those that can be opened (or -1):
+		int index;
+		int bit = -1;
 		
 		public Valve(String id, int rate) {
 			this.id = id;
@@ -30,8 +37,12 @@ public class Main {
 	static class Puzzle {
 		
 		Map<String, Valve> valves = new HashMap<>();
+		int openableCount;
 		
 		public void add(Valve valve) {
+			valve.index = valves.size();
+			if (valve.rate > 0)
+				valve.bit = openableCount++;
 			valves.put(valve.id, valve);
 		}
 		public Valve getValve(String id) {
@@ -45,7 +56,7 @@ public class Main {
 			for (int i=0; i<numPlayers; i++)
 				state.addPlayer(new Player(start));
 			
-			state.valves.putAll(this.valves);
+			state.valves = this.valves;
 			return state;
 		}
 		
@@ -55,15 +66,15 @@ public class Main {
 			//Valve AA has flow rate=0; tunnels lead to valves PW, ZT, XM, SK, HR
 			//Valve HH has flow rate=22; tunnel leads to valve GG
 			List<String> lines = FileUtil.readLinesFromFile(file);
+			TextCursor cursor = new TextCursor();
 			for (String line : lines) {
 				line = line.trim();
 				if (line.isEmpty())
 					continue;
 				
-				String [] leftRight = line.split(";");
-				String [] leftParts = leftRight[0].split("\\s+");
-				String id = leftParts[1];
-				int flowRate = Integer.parseInt(leftParts[4].substring(5));
+				cursor.reset(line).expect("Valve ");
+				String id = cursor.nextWord();
+				int flowRate = cursor.expect(" has flow rate=").nextInt();
 				Valve valve = new Valve(id, flowRate);
 				puzzle.add(valve);
 			}
@@ -73,22 +84,23 @@ public class Main {
 				if (line.isEmpty())
 					continue;
 				
-				String [] leftRight = line.split(";");
-				
 				//get Valve:
-				String [] leftParts = leftRight[0].split("\\s+");
-				String id = leftParts[1];
+				cursor.reset(line).expect("Valve ");
+				String id = cursor.nextWord();
 				Valve valve = puzzle.getValve(id);
 				if (valve == null)
 					throw new IOException("Valve not found: " + id + " '" + line + "'");
 				
 				//get connections:
-				String [] rightParts = leftRight[1].trim().split("\\s+");
-								
-				for (int i=4; i<rightParts.length; i++) {
-					String connectId = rightParts[i];
-					if (connectId.endsWith(","))
-						connectId = connectId.substring(0, connectId.length()-1);
+				cursor.nextInt();
+				cursor.expect("; tunnel");
+				if (!cursor.tryExpect("s lead to valves"))
+					cursor.expect(" leads to valve");
+				
+				while (cursor.skipWhitespace().hasMore()) {
+					String connectId = cursor.nextWord();
+					if (cursor.peek() == ',')
+						cursor.skip(1);
 					
 					Valve connect = puzzle.getValve(connectId);
 					if (connect == null)
@@ -99,6 +111,10 @@ public class Main {
 				
 			}
 			
+			//State.getStateKey() packs two 7-bit locations above the open valve bits:
+			if (puzzle.valves.size() > 128 || puzzle.openableCount > 64 - 2*7)
+				throw new IOException("Too many valves to pack into state keys: " + puzzle.valves.size());
+			
 			return puzzle;
 		}
 		
@@ -113,7 +129,7 @@ public class Main {
 	static class Solver implements StateVisitor {
 		
 		State bestLeaf = null;
-		Map<String, State> statesAndScores = new HashMap<>(1000000);
+		TranspositionTable statesAndScores = TranspositionTable.ofMegabytes(32);
 		int finalT;
 		
 		public Solver(int finalT) {
@@ -125,23 +141,22 @@ public class Main {
 			if (state.t == this.finalT) {
 				if (bestLeaf == null || state.releasedPressure > bestLeaf.releasedPressure) {
 					bestLeaf = state.copy();
-					System.out.println("New best: " + state.releasedPressure);
+					Log.debug("New best: " + state.releasedPressure);
 				}
 				return false;
 			}
 			
-			String stateId = state.getCanonicalStateText();
+			long stateKey = state.getStateKey();
 			
 			int score = state.getMinFinalScore(this.finalT);
-			State bestState = statesAndScores.get(stateId);
-			if (bestState == null) {
-				statesAndScores.put(stateId, state.copy());
+			int bestScore = statesAndScores.get(stateKey);
+			if (bestScore == TranspositionTable.NONE) {
+				statesAndScores.put(stateKey, score, state.t);
 				return true;
 			} else {
-				int bestScore = bestState.getMinFinalScore(this.finalT);
 				//if (score > bestScore || (score == bestScore && state.t < bestState.t)) {
 				if (score >= bestScore) {
-					statesAndScores.put(stateId, state.copy());
+					statesAndScores.put(stateKey, score, state.t);
 					return true;
 				}
 				return false;
@@ -200,7 +215,8 @@ public class Main {
 	static class State {
 		
 		List<Player> players = new ArrayList<>();
-		Map<String, Valve> valves = new HashMap<>();
+		//shared with the Puzzle and every copy, since it never changes:
+		Map<String, Valve> valves;
 		Set<Valve> openedValves = new HashSet<>();
 		
 		int t = 0;
@@ -297,7 +313,7 @@ public class Main {
 			State copy = new State();
 			for (Player player : players)
 				copy.addPlayer(player.copy());
-			copy.valves.putAll(this.valves);
+			copy.valves = this.valves;
 			copy.openedValves.addAll(this.openedValves);
 			copy.t = this.t;
 			copy.releasedPressure = this.releasedPressure;
@@ -332,6 +348,23 @@ public class Main {
 			return s.toString();
 		}
 		
+		/**
+		 * Packs the same state as getCanonicalStateText() into a long:
+		 * the opened valves as bits, with the player locations (sorted)
+		 * above them
+		 */
+		public long getStateKey() {
+			long key = 0;
+			for (Valve valve : openedValves)
+				key |= 1L << valve.bit;
+			
+			int location1 = players.get(0).location.index;
+			int location2 = players.size() > 1 ? players.get(1).location.index : 0;
+			key |= (long)Math.min(location1, location2) << 50;
+			key |= (long)Math.max(location1, location2) << 57;
+			return key;
+		}
+		
 		public void visitChildrenDepthFirstPart1(StateVisitor visitor) {
 			
 			int playerIndex = 0;	//only 1 player
@@ -351,7 +384,7 @@ public class Main {
 		
 		public static void visitChildrenBreadthFirstPart1(List<State> states, StateVisitor visitor) {
 				
-			System.out.println("t = " + states.get(0).t + ", size = " + states.size());
+			Log.debug("t = " + states.get(0).t + ", size = " + states.size());
 			
 			int playerIndex = 0;
 			List<State> nextStates = new ArrayList<>();
@@ -425,7 +458,7 @@ public class Main {
 		
 		public static void visitChildrenBreadthFirstPart2(List<State> states, StateVisitor visitor) {
 			
-			System.out.println("t = " + states.get(0).t + ", size = " + states.size());
+			Log.debug("t = " + states.get(0).t + ", size = " + states.size());
 			
 			Map<String, State> nextStates = new HashMap<>(100000);
 			
@@ -485,7 +518,7 @@ public class Main {
 				
 			}
 			
-			System.out.println(" Map size: " + nextStates.size());
+			Log.debug(" Map size: " + nextStates.size());
 			
 			//visit everyone:
 			List<State> nextStateList = new ArrayList<>(nextStates.size());
@@ -496,7 +529,7 @@ public class Main {
 			}
 			nextStates.clear();
 			
-			System.out.println(" List size: " + nextStateList.size());
+			Log.debug(" List size: " + nextStateList.size());
 			
 			if (!nextStateList.isEmpty())
 				visitChildrenBreadthFirstPart2(nextStateList, visitor);
@@ -603,7 +636,7 @@ public class Main {
 		states.add(state);
 		State.visitChildrenBreadthFirstPart1(states, solver);
 		
-		System.out.println("BEST: " + solver.bestLeaf.releasedPressure);
+		Log.info("BEST: " + solver.bestLeaf.releasedPressure);
 	}
 	
 	public static void solvePart2(File file) throws Exception {
@@ -622,26 +655,13 @@ public class Main {
 		State.visitChildrenBreadthFirstPart2(states, solver);
 		
 		if (solver.bestLeaf == null)
-			System.out.println("ERROR: No solution found");
+			Log.error("No solution found");
 		else
-			System.out.println("BEST: " + solver.bestLeaf.releasedPressure);
+			Log.info("BEST: " + solver.bestLeaf.releasedPressure);
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//System.out.println(66 * 66 / 2 * Math.pow(2, 15));
-			
-			File testFile = new File("files/day16/test.txt");
-			//solvePart1(testFile);
-			//solvePart2(testFile);
-			
-			File inputFile = new File("files/day16/input.txt");
-			//solvePart1(inputFile);
-			solvePart2(inputFile);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day16", args);
 	}
 	
 }
@@ -11,6 +11,9 @@ import java.util.Map;
 import java.util.Set;
 
 import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.TextCursor;
 
 public class Main2 {
 	
@@ -51,15 +54,15 @@ public class Main2 {
 			//Valve AA has flow rate=0; tunnels lead to valves PW, ZT, XM, SK, HR
 			//Valve HH has flow rate=22; tunnel leads to valve GG
 			List<String> lines = FileUtil.readLinesFromFile(file);
+			TextCursor cursor = new TextCursor();
 			for (String line : lines) {
 				line = line.trim();
 				if (line.isEmpty())
 					continue;
 				
-				String [] leftRight = line.split(";");
-				String [] leftParts = leftRight[0].split("\\s+");
-				String id = leftParts[1];
-				int flowRate = Integer.parseInt(leftParts[4].substring(5));
+				cursor.reset(line).expect("Valve ");
+				String id = cursor.nextWord();
+				int flowRate = cursor.expect(" has flow rate=").nextInt();
 				Valve valve = new Valve(id, flowRate);
 				puzzle.add(valve);
 			}
@@ -69,22 +72,23 @@ public class Main2 {
 				if (line.isEmpty())
 					continue;
 				
-				String [] leftRight = line.split(";");
-				
 				//get Valve:
-				String [] leftParts = leftRight[0].split("\\s+");
-				String id = leftParts[1];
+				cursor.reset(line).expect("Valve ");
+				String id = cursor.nextWord();
 				Valve valve = puzzle.getValve(id);
 				if (valve == null)
 					throw new IOException("Valve not found: " + id + " '" + line + "'");
 				
 				//get connections:
-				String [] rightParts = leftRight[1].trim().split("\\s+");
-								
-				for (int i=4; i<rightParts.length; i++) {
-					String connectId = rightParts[i];
-					if (connectId.endsWith(","))
-						connectId = connectId.substring(0, connectId.length()-1);
+				cursor.nextInt();
+				cursor.expect("; tunnel");
+				if (!cursor.tryExpect("s lead to valves"))
+					cursor.expect(" leads to valve");
+				
+				while (cursor.skipWhitespace().hasMore()) {
+					String connectId = cursor.nextWord();
+					if (cursor.peek() == ',')
+						cursor.skip(1);
 					
 					Valve connect = puzzle.getValve(connectId);
 					if (connect == null)
@@ -162,7 +166,7 @@ public class Main2 {
 			if (state.getActionCount() == 30) {
 				if (bestLeaf == null || state.releasedPressure > bestLeaf.releasedPressure) {
 					bestLeaf = state;
-					System.out.println("New best: " + state.releasedPressure);
+					Log.debug("New best: " + state.releasedPressure);
 				}
 				return false;
 			}
@@ -320,7 +324,7 @@ public class Main2 {
 		Solver solver = new Solver();
 		//puzzle.visitStatesBreadthFirst(solver);
 		puzzle.visitStatesDepthFirst(solver);
-		System.out.println("BEST: " + solver.bestLeaf.releasedPressure);
+		Log.info("BEST: " + solver.bestLeaf.releasedPressure);
 	}
 	
 	public static void solvePart2() throws Exception {
@@ -328,15 +332,7 @@ public class Main2 {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File file = new File("files/day16/test.txt");
-			File file = new File("files/day16/input.txt");
-			solvePart1(file);
-			//solvePart2();
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day16.Main2", args);
 	}
 	
 }
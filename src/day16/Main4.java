@@ -0,0 +1,348 @@
+package day16;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.TextCursor;
+import common.graph.Graph;
+import common.graph.GraphSearch;
+import common.search.DepthFirstSearch;
+import common.search.SearchNode;
+import common.search.TranspositionTable;
+
+/**
+ * Branch-and-bound solution on common.search.  The tunnels are first
+ * reduced to the distances between the working valves, so each move
+ * is "walk to a closed valve and open it".  For part 2 the elephant
+ * takes its turn after we're done with ours, starting from AA with the
+ * valves we opened already closed off.
+ */
+public class Main4 {
+	
+	static class Valve {
+		
+		String id;
+		int rate;
+		int index;
+		List<Valve> tunnelsTo = new ArrayList<>();
+		
+		public Valve(String id, int rate, int index) {
+			this.id = id;
+			this.rate = rate;
+			this.index = index;
+		}
+		
+	}
+	
+	static class Puzzle implements Graph {
+		
+		Map<String, Valve> valves = new LinkedHashMap<>();
+		List<Valve> list = new ArrayList<>();
+		
+		public void add(Valve valve) {
+			valves.put(valve.id, valve);
+			list.add(valve);
+		}
+		public Valve getValve(String id) {
+			return valves.get(id);
+		}
+		
+		public int size() {
+			return list.size();
+		}
+		
+		public int getMaxDegree() {
+			int max = 0;
+			for (Valve valve : list)
+				max = Math.max(max, valve.tunnelsTo.size());
+			return max;
+		}
+		
+		public int getNeighbors(int node, int [] neighbors, int [] costs) {
+			List<Valve> tunnels = list.get(node).tunnelsTo;
+			for (int i=0; i<tunnels.size(); i++) {
+				neighbors[i] = tunnels.get(i).index;
+				costs[i] = 1;
+			}
+			return tunnels.size();
+		}
+		
+		/**
+		 * Finds the distances between AA and the valves that have a flow
+		 * rate, which are all the search needs to know
+		 */
+		public Network createNetwork() {
+			List<Valve> working = new ArrayList<>();
+			for (Valve valve : list) {
+				if (valve.rate > 0)
+					working.add(valve);
+			}
+			
+			int count = working.size();
+			Network network = new Network(count);
+			List<Valve> ends = new ArrayList<>(working);
+			ends.add(getValve("AA"));
+			
+			GraphSearch search = new GraphSearch(this);
+			for (int i=0; i<=count; i++) {
+				search.bfs(ends.get(i).index, null);
+				for (int j=0; j<=count; j++) {
+					int dist = search.getDistance(ends.get(j).index);
+					network.distances[i][j] = dist < 0 ? Integer.MAX_VALUE / 2 : dist;
+				}
+				if (i < count)
+					network.rates[i] = ends.get(i).rate;
+			}
+			return network;
+		}
+		
+		public static Puzzle loadFrom(File file) throws IOException {
+			Puzzle puzzle = new Puzzle();
+			
+			//Valve AA has flow rate=0; tunnels lead to valves PW, ZT, XM, SK, HR
+			//Valve HH has flow rate=22; tunnel leads to valve GG
+			List<String> lines = FileUtil.readLinesFromFile(file);
+			TextCursor cursor = new TextCursor();
+			for (String line : lines) {
+				line = line.trim();
+				if (line.isEmpty())
+					continue;
+				
+				cursor.reset(line).expect("Valve ");
+				String id = cursor.nextWord();
+				int flowRate = cursor.expect(" has flow rate=").nextInt();
+				puzzle.add(new Valve(id, flowRate, puzzle.list.size()));
+			}
+			
+			for (String line : lines) {
+				line = line.trim();
+				if (line.isEmpty())
+					continue;
+				
+				cursor.reset(line).expect("Valve ");
+				Valve valve = puzzle.getValve(cursor.nextWord());
+				cursor.nextInt();
+				cursor.expect("; tunnel");
+				if (!cursor.tryExpect("s lead to valves"))
+					cursor.expect(" leads to valve");
+				
+				while (cursor.skipWhitespace().hasMore()) {
+					String connectId = cursor.nextWord();
+					if (cursor.peek() == ',')
+						cursor.skip(1);
+					
+					Valve connect = puzzle.getValve(connectId);
+					if (connect == null)
+						throw new IOException("Valve not found: " + connectId + " '" + line + "'");
+					valve.tunnelsTo.add(connect);
+				}
+			}
+			
+			if (puzzle.getValve("AA") == null)
+				throw new IOException("No valve AA in " + file);
+			return puzzle;
+		}
+		
+	}
+	
+	/**
+	 * Working valves 0 to count-1, with AA as index count
+	 */
+	static class Network {
+		
+		int count;
+		int [] rates;
+		int [][] distances;
+		
+		public Network(int count) {
+			this.count = count;
+			this.rates = new int[count];
+			this.distances = new int[count+1][count+1];
+		}
+		
+	}
+	
+	/**
+	 * Moves are the index of the next valve to open, or count to hand
+	 * over to the elephant.  Pressure is credited in full as soon as a
+	 * valve opens, so the value is what will be released by the end.
+	 */
+	static class Node implements SearchNode {
+		
+		//pruning rule: closed valves that can't be reached and opened in time
+		static final String [] PRUNE_RULES = {"tooFar"};
+		static final int TOO_FAR = 0;
+		
+		final Network network;
+		final int minutes;
+		final boolean withElephant;
+		
+		int location;
+		int timeLeft;
+		int player;
+		int released;
+		long opened;
+		
+		//location, timeLeft, player and released before each move:
+		int [] history = new int[64];
+		int depth;
+		
+		public Node(Network network, int minutes, boolean withElephant) {
+			this.network = network;
+			this.minutes = minutes;
+			this.withElephant = withElephant;
+			this.location = network.count;
+			this.timeLeft = minutes;
+		}
+		
+		public long getKey() {
+			int count = network.count;
+			if (count > 48 || minutes > 63)
+				return NO_KEY;
+			return opened | ((long)location << count) | ((long)timeLeft << (count + 6)) |
+					((long)player << (count + 12));
+		}
+		
+		public int getValue() {
+			return released;
+		}
+		
+		public int getUpperBound() {
+			int [] fromHere = network.distances[location];
+			int [] fromStart = network.distances[network.count];
+			boolean elephantToGo = withElephant && player == 0;
+			
+			//every closed valve opened as soon as either of us could reach it:
+			int bound = released;
+			for (int i=0; i<network.count; i++) {
+				if ((opened & (1L << i)) != 0)
+					continue;
+				int time = timeLeft - fromHere[i] - 1;
+				if (elephantToGo)
+					time = Math.max(time, minutes - fromStart[i] - 1);
+				if (time > 0)
+					bound += network.rates[i] * time;
+			}
+			return bound;
+		}
+		
+		public int getMaxMoves() {
+			return network.count + 1;
+		}
+		
+		public int getMoves(int [] moves) {
+			return getMoves(moves, null);
+		}
+		
+		public String [] getPruneRules() {
+			return PRUNE_RULES;
+		}
+		
+		public int getMoves(int [] moves, long [] prunes) {
+			int [] fromHere = network.distances[location];
+			int count = 0;
+			for (int i=0; i<network.count; i++) {
+				if ((opened & (1L << i)) != 0)
+					continue;
+				if (fromHere[i] + 1 >= timeLeft) {
+					if (prunes != null)
+						prunes[TOO_FAR]++;
+					continue;
+				}
+				
+				//insertion sort, most pressure released first:
+				int gain = getGain(i);
+				int j = count++;
+				while (j > 0 && getGain(moves[j-1]) < gain) {
+					moves[j] = moves[j-1];
+					j--;
+				}
+				moves[j] = i;
+			}
+			if (withElephant && player == 0)
+				moves[count++] = network.count;
+			return count;
+		}
+		
+		int getGain(int valve) {
+			return network.rates[valve] * (timeLeft - network.distances[location][valve] - 1);
+		}
+		
+		public void apply(int move) {
+			if (depth + 4 > history.length)
+				history = Arrays.copyOf(history, history.length * 2);
+			history[depth++] = location;
+			history[depth++] = timeLeft;
+			history[depth++] = player;
+			history[depth++] = released;
+			
+			if (move == network.count) {
+				player++;
+				location = network.count;
+				timeLeft = minutes;
+			} else {
+				timeLeft -= network.distances[location][move] + 1;
+				released += network.rates[move] * timeLeft;
+				opened |= 1L << move;
+				location = move;
+			}
+		}
+		
+		public void undo(int move) {
+			if (move < network.count)
+				opened &= ~(1L << move);
+			released = history[--depth];
+			player = history[--depth];
+			timeLeft = history[--depth];
+			location = history[--depth];
+		}
+		
+		public Node copy() {
+			Node copy = new Node(network, minutes, withElephant);
+			copy.location = location;
+			copy.timeLeft = timeLeft;
+			copy.player = player;
+			copy.released = released;
+			copy.opened = opened;
+			copy.history = history.clone();
+			copy.depth = depth;
+			return copy;
+		}
+		
+	}
+	
+	public static int getMaxPressure(Network network, int minutes, boolean withElephant) {
+		if (network.count > 64)
+			throw new IllegalArgumentException("Too many working valves: " + network.count);
+		
+		DepthFirstSearch search = new DepthFirstSearch(TranspositionTable.ofMegabytes(32))
+				.setName("day16.Main4" + (withElephant ? ".part2" : ".part1"));
+		int best = search.search(new Node(network, minutes, withElephant));
+		if (Log.isDebugEnabled())
+			Log.debug(search.getMonitor().toJson());
+		return best;
+	}
+	
+	public static void solvePart1(File file) throws Exception {
+		Network network = Puzzle.loadFrom(file).createNetwork();
+		Log.info("BEST: " + getMaxPressure(network, 30, false));
+	}
+	
+	public static void solvePart2(File file) throws Exception {
+		Network network = Puzzle.loadFrom(file).createNetwork();
+		Log.info("BEST: " + getMaxPressure(network, 26, true));
+	}
+	
+	public static void main(String [] args) {
+		Runner.runDay("day16.Main4", args);
+	}
+	
+}
@@ -0,0 +1,42 @@
+package day16;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import common.Solver;
+
+/**
+ * Breadth-first solution from Main
+ */
+public class Solution implements Solver {
+	
+	Main.Puzzle puzzle;
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		Main.State state = puzzle.createInitState(1);
+		Main.Solver solver = new Main.Solver(30);
+		solver.visit(state);
+		
+		List<Main.State> states = new ArrayList<>();
+		states.add(state);
+		Main.State.visitChildrenBreadthFirstPart1(states, solver);
+		return solver.bestLeaf.releasedPressure;
+	}
+	
+	public Object part2() {
+		Main.State state = puzzle.createInitState(2);
+		Main.Solver solver = new Main.Solver(26);
+		solver.visit(state);
+		
+		List<Main.State> states = new ArrayList<>();
+		states.add(state);
+		Main.State.visitChildrenBreadthFirstPart2(states, solver);
+		return solver.bestLeaf == null ? null : solver.bestLeaf.releasedPressure;
+	}
+	
+}
@@ -0,0 +1,28 @@
+package day16;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+/**
+ * Single-player depth-first solution from Main2 (which has no part 2)
+ */
+public class Solution2 implements Solver {
+	
+	Main2.Puzzle puzzle;
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main2.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		Main2.Solver solver = new Main2.Solver();
+		puzzle.visitStatesDepthFirst(solver);
+		return solver.bestLeaf.releasedPressure;
+	}
+	
+	public Object part2() {
+		throw new UnsupportedOperationException("Main2 does not solve part 2");
+	}
+	
+}
@@ -0,0 +1,32 @@
+package day16;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+/**
+ * Depth-first solution (copying states) from Main3
+ */
+public class Solution3 implements Solver {
+	
+	Main3.Puzzle puzzle;
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main3.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		Main3.State state = puzzle.createInitState(1);
+		Main3.Solver solver = new Main3.Solver(30);
+		state.visitChildrenDepthFirstPart1(solver);
+		return solver.bestLeaf.releasedPressure;
+	}
+	
+	public Object part2() {
+		Main3.State state = puzzle.createInitState(2);
+		Main3.Solver solver = new Main3.Solver(26);
+		state.visitChildrenDepthFirstPart2(solver);
+		return solver.bestLeaf.releasedPressure;
+	}
+	
+}
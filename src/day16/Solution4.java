@@ -0,0 +1,34 @@
+package day16;
+
+import java.nio.file.Path;
+
+import common.Metrics;
+import common.Solver;
+
+/**
+ * Parallel branch-and-bound solution from Main4
+ */
+public class Solution4 implements Solver {
+	
+	Main4.Network network;
+	
+	public void parse(Path input) throws Exception {
+		Main4.Puzzle puzzle = Main4.Puzzle.loadFrom(input.toFile());
+		Metrics.Scope scope = Metrics.start("day16.Main4.build");
+		try {
+			network = puzzle.createNetwork();
+		}
+		finally {
+			scope.stop();
+		}
+	}
+	
+	public Object part1() {
+		return Main4.getMaxPressure(network, 30, false);
+	}
+	
+	public Object part2() {
+		return Main4.getMaxPressure(network, 26, true);
+	}
+	
+}
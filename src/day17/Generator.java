@@ -0,0 +1,32 @@
+package day17;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A single line of jet directions ('<' and '>'), 10000 per unit of scale.
+ * Runs of the same direction are favoured, as in the real input.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long length = 10_000L * scale;
+		char [] buf = new char[8192];
+		int len = 0;
+		char jet = '<';
+		for (long i=0; i<length; i++) {
+			if (random.nextInt(3) == 0)
+				jet = jet == '<' ? '>' : '<';
+			buf[len++] = jet;
+			if (len == buf.length) {
+				out.write(buf, 0, len);
+				len = 0;
+			}
+		}
+		out.write(buf, 0, len);
+		out.println();
+	}
+	
+}
@@ -1,18 +1,17 @@
 package day17;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
+import common.CycleDetector;
 import common.FileUtil;
-import common.geometry.XY;
+import common.Log;
+import common.Runner;
+import common.geometry.BitGrid;
+import common.geometry.Hashing;
 
 public class Main {
 	
 	static final char SOLID = '#';
-	static final char EMPTY = '.';
 	
 	/**
 	 * Represents a shape as a 2-dimensional character array.
@@ -24,11 +23,20 @@ public class Main {
 		char [][] shape;
 		int width;
 		int height;
+		//each row as bits, bottom row first, for BitGrid:
+		long [] mask;
 		
 		public Shape(char [][] shape) {
 			this.shape = shape;
 			this.height = shape.length;
 			this.width = shape[0].length;
+			this.mask = new long[height];
+			for (int y=0; y<height; y++) {
+				for (int x=0; x<width; x++) {
+					if (isSolid(x, y))
+						mask[y] |= 1L << x;
+				}
+			}
 		}
 		
 		public boolean isSolid(int x, int y) {
@@ -89,30 +97,32 @@ public class Main {
 		
 	}
 	
-	static class World {
+	static class World implements CycleDetector.Simulation {
 		
-		Map<XY<Integer>, Character> grid = new HashMap<>();
-		
-		List<Piece> pieces = new ArrayList<>();
+		//resting pieces only, one 7-bit row per long:
+		BitGrid grid = new BitGrid(7, 1024);
 		
 		Shape [] ALL_SHAPES = new Shape [] {SHAPE1, SHAPE2, SHAPE3, SHAPE4, SHAPE5};
 		int nextShapeIndex = 0;
 		
-		public void set(int x, int y, char value) {
-			grid.put(new XY<Integer>(x,y), value);
-		}
+		char [] jets;
+		int nextJetIndex = 0;
+		
+		Piece activePiece;
+		int pieceCount = 0;
+		int restingHeight = 0;
+		boolean verbose = false;
 		
-		public Character get(int x, int y) {
-			return grid.get(new XY<Integer>(x, y));
+		public World() {
+		}
+		public World(String jets) {
+			this.jets = jets.toCharArray();
 		}
 		
 		public int getMaxHeight() {
-			int max = 0;
-			for (Piece piece : pieces) {
-				int top = piece.y + piece.shape.height;
-				max = Math.max(max, top);
-			}
-			return max;
+			if (activePiece == null)
+				return restingHeight;
+			return Math.max(restingHeight, activePiece.y + activePiece.shape.height);
 		}
 		
 		public Piece createNextPiece() {
@@ -121,49 +131,55 @@ public class Main {
 			if (nextShapeIndex >= ALL_SHAPES.length)
 				nextShapeIndex=0;
 			
-			Piece piece = new Piece(shape, 2, getMaxHeight() + 3);
-			pieces.add(piece);
-			apply(piece, SOLID);
+			Piece piece = new Piece(shape, 2, restingHeight + 3);
+			activePiece = piece;
+			pieceCount++;
 			return piece;
 		}
 		
-		public void apply(Piece piece, char value) {
-			for (int dx=0; dx<piece.shape.width; dx++) {
-				for (int dy=0; dy<piece.shape.height; dy++) {
-					if (piece.shape.isSolid(dx, dy))
-						set(piece.x + dx, piece.y + dy, value);
-				}
-			}
-		}
-		
 		protected boolean doesPieceFit(Piece piece, int x, int y) {
-			for (int dx=0; dx<piece.shape.width; dx++) {
-				for (int dy=0; dy<piece.shape.height; dy++) {
-					if (piece.shape.isSolid(dx, dy) && isSolid(x + dx, y + dy))
-						return false;
-				}
-			}
-			return true;
+			return !grid.collides(piece.shape.mask, x, y);
 		}
 		
 		public boolean isSolid(int x, int y) {
-			Character ch = get(x, y);
-			return (ch != null) && ch.charValue() == SOLID;
+			return grid.get(x, y);
+		}
+		
+		/**
+		 * Returns true if the cell is solid or part of the falling piece
+		 */
+		public boolean isSolidOrActive(int x, int y) {
+			if (isSolid(x, y))
+				return true;
+			Piece piece = activePiece;
+			if (piece == null)
+				return false;
+			int dx = x - piece.x;
+			int dy = y - piece.y;
+			return dx >= 0 && dx < piece.shape.width && dy >= 0 && dy < piece.shape.height &&
+					piece.shape.isSolid(dx, dy);
 		}
 		
 		public void runProgram(String line, int pieceCount, boolean verbose, boolean part2) {
+			this.jets = line.toCharArray();
+			this.verbose = verbose;
+			while (this.pieceCount < pieceCount)
+				dropPiece();
+			Log.debug("All pieces simulated");
+		}
+		
+		/**
+		 * Drops the next piece until it comes to rest
+		 */
+		public void dropPiece() {
 			Piece activePiece = createNextPiece();
 			if (verbose)
 				System.out.println(printString());
 			
-			char [] chars = line.toCharArray();
-			int nextCharIndex = 0;
-			
-			boolean running = true;
-			while(running) {
-				char ch = chars[nextCharIndex++];
-				if (nextCharIndex >= chars.length)
-					nextCharIndex = 0;
+			while (true) {
+				char ch = jets[nextJetIndex++];
+				if (nextJetIndex >= jets.length)
+					nextJetIndex = 0;
 				
 				if (verbose) {
 					System.out.println();
@@ -185,34 +201,23 @@ public class Main {
 					throw new IllegalArgumentException("Invalid input: " + ch);
 				}
 				
-				if (dx != 0) {
-					apply(activePiece, EMPTY);
-					if (doesPieceFit(activePiece, activePiece.x + dx, activePiece.y))
-						activePiece.x += dx;
-					apply(activePiece, SOLID);
-				}
+				if (dx != 0 && doesPieceFit(activePiece, activePiece.x + dx, activePiece.y))
+					activePiece.x += dx;
 				
 				if (verbose) {
 					System.out.println();
 					System.out.println(printString());
 				}
 				
-				//move down:
-				
-				apply(activePiece, EMPTY);	//turn off, or else piece hits itself
+				//move down (the falling piece isn't in the grid, so it can't hit itself):
 				
+				boolean resting = false;
 				if (activePiece.y > 0 && doesPieceFit(activePiece, activePiece.x, activePiece.y - 1)) {
 					activePiece.y--;
-					apply(activePiece, SOLID);
 				} else {
-					apply(activePiece, SOLID);
-					if (pieces.size() == pieceCount) {
-						System.out.println("All pieces simulated");
-						running = false;
-					}
-					else {
-						activePiece = createNextPiece();
-					}
+					grid.or(activePiece.shape.mask, activePiece.x, activePiece.y);
+					restingHeight = Math.max(restingHeight, activePiece.y + activePiece.shape.height);
+					resting = true;
 				}
 				
 				if (verbose) {
@@ -223,16 +228,43 @@ public class Main {
 					System.out.println(printString());
 				}
 				
+				if (resting)
+					return;
 			}
 		}
 		
+		public void step() {
+			dropPiece();
+		}
+		
+		/**
+		 * The depth of the top block in each column (up to 63), with
+		 * the next shape and jet.  Pieces almost never fall further than
+		 * that, and the cycle is checked once found, so this is enough
+		 * to tell where the tower starts repeating.
+		 */
+		public long getFingerprint() {
+			long profile = 0;
+			for (int x=0; x<7; x++) {
+				int depth = 0;
+				while (depth < 63 && depth < restingHeight && !isSolid(x, restingHeight - 1 - depth))
+					depth++;
+				profile = (profile << 6) | depth;
+			}
+			long next = ((long)nextJetIndex << 3) | nextShapeIndex;
+			return (profile << 22) ^ Hashing.mix64(next);
+		}
+		
+		public long getMetric() {
+			return restingHeight;
+		}
 		
 		public String printString() {
 			StringBuilder s = new StringBuilder();
 			int yMax = getMaxHeight();
 			for (int y=yMax; y>=0; y--) {
 				for (int x=0; x<7; x++) {
-					if (isSolid(x, y))
+					if (isSolidOrActive(x, y))
 						s.append('#');
 					else
 						s.append('.');
@@ -252,32 +284,26 @@ public class Main {
 		System.out.println("Height: " + world.getMaxHeight());
 	}
 	
-	public static void getPart2CycleTime(File file) throws Exception {
-		World world = new World();
-		String line = FileUtil.readLineFromFile(file);
-		world.runProgram(line, Integer.MAX_VALUE, false, true);
+	/**
+	 * Returns the height of the tower after the given number of pieces,
+	 * simulating only until the tower starts repeating
+	 */
+	public static long getHeight(String jets, long pieceCount) {
+		World world = new World(jets);
+		CycleDetector detector = new CycleDetector();
+		long height = detector.extrapolate(world, pieceCount);
+		if (Log.isDebugEnabled())
+			Log.debug("Cycle of " + detector.getPeriod() + " pieces from piece " + detector.getOffset());
+		return height;
 	}
 	
 	public static void solvePart2(File file) throws Exception {
-		World world = new World();
 		String line = FileUtil.readLineFromFile(file);
-		world.runProgram(line, Integer.MAX_VALUE, false, true);
+		System.out.println("Height: " + getHeight(line, 1_000_000_000_000L));
 	}
 	
 	public static void main(String [] args) {
-		try {
-			File testFile = new File("files/day17/test.txt");
-			//solvePart1(testFile, 10, true);
-			//solvePart1(testFile, 2022, false);
-			getPart2CycleTime(testFile);
-			//solvePart2();
-			
-			File inputFile = new File("files/day17/input.txt");
-			//solvePart1(inputFile, 2022, false);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day17", args);
 	}
 	
 }
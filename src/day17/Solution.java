@@ -0,0 +1,26 @@
+package day17;
+
+import java.nio.file.Path;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	String jets;
+	
+	public void parse(Path input) throws Exception {
+		jets = FileUtil.readLineFromFile(input.toFile());
+	}
+	
+	public Object part1() {
+		Main.World world = new Main.World();
+		world.runProgram(jets, 2022, false, false);
+		return world.getMaxHeight();
+	}
+	
+	public Object part2() {
+		return Main.getHeight(jets, 1_000_000_000_000L);
+	}
+	
+}
@@ -0,0 +1,42 @@
+package day18;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Lava cubes ("x,y,z") filling about a quarter of a cube-shaped region,
+ * 20 on a side at scale 1 with the volume growing linearly.  Cubes are
+ * placed as random blobs, so the droplet has air pockets for part 2.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int size = (int)Math.round(20 * Math.cbrt(scale));
+		boolean [] filled = new boolean[size * size * size];
+		long target = filled.length / 4;
+		
+		long count = 0;
+		while (count < target) {
+			//grow a blob around a random centre:
+			int cx = random.nextInt(size);
+			int cy = random.nextInt(size);
+			int cz = random.nextInt(size);
+			int radius = 1 + random.nextInt(3);
+			for (int x=Math.max(0, cx-radius); x<=Math.min(size-1, cx+radius); x++) {
+				for (int y=Math.max(0, cy-radius); y<=Math.min(size-1, cy+radius); y++) {
+					for (int z=Math.max(0, cz-radius); z<=Math.min(size-1, cz+radius); z++) {
+						int idx = (x * size + y) * size + z;
+						if (filled[idx] || random.nextInt(3) == 0)
+							continue;
+						filled[idx] = true;
+						out.println(x + "," + y + "," + z);
+						count++;
+					}
+				}
+			}
+		}
+	}
+	
+}
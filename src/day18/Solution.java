@@ -0,0 +1,23 @@
+package day18;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.CoordinateSet coords;
+	
+	public void parse(Path input) throws Exception {
+		coords = Main.CoordinateSet.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		return coords.getExposedSurfaceCount();
+	}
+	
+	public Object part2() {
+		return coords.getExteriorSurfaceCount();
+	}
+	
+}
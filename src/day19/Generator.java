@@ -0,0 +1,25 @@
+package day19;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Robot blueprints with costs in the same ranges as the real input,
+ * 30 per unit of scale.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long count = 30L * scale;
+		for (long i=1; i<=count; i++) {
+			out.println("Blueprint " + i + ":" +
+					" Each ore robot costs " + (2 + random.nextInt(3)) + " ore." +
+					" Each clay robot costs " + (2 + random.nextInt(3)) + " ore." +
+					" Each obsidian robot costs " + (2 + random.nextInt(3)) + " ore and " + (5 + random.nextInt(16)) + " clay." +
+					" Each geode robot costs " + (2 + random.nextInt(3)) + " ore and " + (7 + random.nextInt(14)) + " obsidian.");
+		}
+	}
+	
+}
@@ -3,6 +3,7 @@ package day19;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,10 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import common.FileUtil;
+import common.Runner;
+import common.search.DepthFirstSearch;
+import common.search.SearchNode;
+import common.search.TranspositionTable;
 
 
 //4:17 - 6:45
@@ -84,85 +89,6 @@ public class Main {
 		
 	}
 	
-	static class BuildRequest {
-		
-		int oreRobots;
-		int clayRobots;
-		int obsidianRobots;
-		int geodeRobots;
-		
-		public static final BuildRequest NONE               = new BuildRequest(0, 0, 0, 0);
-		public static final BuildRequest ONE_ORE_ROBOT      = new BuildRequest(1, 0, 0, 0);
-		public static final BuildRequest ONE_CLAY_ROBOT     = new BuildRequest(0, 1, 0, 0);
-		public static final BuildRequest ONE_OBSIDIAN_ROBOT = new BuildRequest(0, 0, 1, 0);
-		public static final BuildRequest ONE_GEODE_ROBOT    = new BuildRequest(0, 0, 0, 1);
-		
-		public BuildRequest(int ore, int clay, int obsidian, int geode) {
-			this.oreRobots = ore;
-			this.clayRobots = clay;
-			this.obsidianRobots = obsidian;
-			this.geodeRobots = geode;
-		}
-		
-		public boolean isValid(Resources resources, Blueprint bp) {
-			
-			int ore = resources.getValue(ORE);
-			int clay = resources.getValue(CLAY);
-			int obsidian = resources.getValue(OBSIDIAN);
-			
-			return  !(
-					ore < bp.oreForOreRobot * oreRobots ||
-					ore < bp.oreForClayRobot * clayRobots ||
-					ore < bp.oreForObsidianRobot * obsidianRobots ||
-					ore < bp.oreForGeodeRobot * geodeRobots ||
-					clay < bp.clayForObsidianRobot * obsidianRobots ||
-					obsidian < bp.obsidianForGeodeRobot * geodeRobots
-					);
-		}
-		
-		public void apply(Resources resources, Blueprint bp) {
-			
-			//start building:
-			if (geodeRobots > 0) {
-				resources.subtract(OBSIDIAN, bp.obsidianForGeodeRobot * geodeRobots);
-				resources.subtract(ORE, bp.oreForGeodeRobot * geodeRobots);
-			}
-			if (obsidianRobots > 0) {
-				resources.subtract(CLAY, bp.clayForObsidianRobot * obsidianRobots);
-				resources.subtract(ORE, bp.oreForObsidianRobot * obsidianRobots);
-			}
-			if (clayRobots > 0) {
-				resources.subtract(ORE, bp.oreForClayRobot * clayRobots);
-			}
-			if (oreRobots > 0) {
-				resources.subtract(ORE, bp.oreForOreRobot * oreRobots);
-			}
-			
-			//mine resources:
-			resources.add(ORE, resources.getValue(ORE_ROBOT));
-			resources.add(CLAY, resources.getValue(CLAY_ROBOT));
-			resources.add(OBSIDIAN, resources.getValue(OBSIDIAN_ROBOT));
-			resources.add(GEODE, resources.getValue(GEODE_ROBOT));
-			
-			//finish builds:
-			resources.add(ORE_ROBOT, oreRobots);
-			resources.add(CLAY_ROBOT, clayRobots);
-			resources.add(OBSIDIAN_ROBOT, obsidianRobots);
-			resources.add(GEODE_ROBOT, geodeRobots);
-		}
-		
-		public String toString() {
-			return new StringBuilder()
-					.append("(").append(oreRobots)
-					.append(", ").append(clayRobots)
-					.append(", ").append(obsidianRobots)
-					.append(", ").append(geodeRobots)
-					.append(")")
-					.toString();
-		}
-		
-	}
-	
 	static class Blueprint {
 		
 		int number;
@@ -176,174 +102,14 @@ public class Main {
 		int obsidianForGeodeRobot;
 		
 		public int getBestOutcome(Resources resources, int finalT) {
-			Part1Solver solver = new Part1Solver();
-			exploreOutcomes(resources, BuildRequest.NONE, 1, finalT, solver);
-			return solver.best;
+			Factory factory = new Factory(this, resources, finalT);
+			DepthFirstSearch search = new DepthFirstSearch(TranspositionTable.ofMegabytes(2))
+					.setName("day19.blueprint" + number);
+			return search.search(factory);
 		}
 		
-		protected void exploreOutcomes(Resources resources, BuildRequest request, int t, int finalT, Visitor visitor) {
-		
-			//System.out.println("t=" + t + ", request=" + request.toString());
-			
-			resources = resources.copy();
-			request.apply(resources, this);
-			//System.out.println("  resources=" + print(resources));
-			
-			if (!visitor.visit(this, resources, t, finalT))
-				return;
-			
-			List<BuildRequest> newRequests = new ArrayList<>();
-			
-			int ore = resources.getValue(ORE);
-			int clay = resources.getValue(CLAY);
-			int obsidian = resources.getValue(OBSIDIAN);
-			
-			boolean canBuildGeode = obsidian >= obsidianForGeodeRobot && ore >= oreForGeodeRobot;
-			boolean canBuildObsidian = clay >= clayForObsidianRobot && ore >= oreForObsidianRobot;
-			boolean canBuildClay = ore >= oreForClayRobot;
-			boolean canBuildOre = ore >= oreForOreRobot;
-			
-			//close: but i think we're missing cases where we need to
-			//either switch the order build 2 at once.
-			if (canBuildGeode)
-				newRequests.add(BuildRequest.ONE_GEODE_ROBOT);
-			if (canBuildObsidian)
-				newRequests.add(BuildRequest.ONE_OBSIDIAN_ROBOT);
-			if (canBuildClay)
-				newRequests.add(BuildRequest.ONE_CLAY_ROBOT);
-			if (canBuildOre) 
-				newRequests.add(BuildRequest.ONE_ORE_ROBOT);
-			
-			
-			/*
-			if (canBuildGeode)
-				newRequests.add(BuildRequest.ONE_GEODE_ROBOT);
-			else {
-				if (canBuildObsidian)
-					newRequests.add(BuildRequest.ONE_OBSIDIAN_ROBOT);
-				if (canBuildClay)
-					newRequests.add(BuildRequest.ONE_CLAY_ROBOT);
-				if (canBuildOre) 
-					newRequests.add(BuildRequest.ONE_ORE_ROBOT);
-			}
-			*/
-			
-			/*
-			//creates too many options (mostly ore and clay combos)
-			for (int oreRobots=0; oreRobots<=1; oreRobots++) {
-				for (int clayRobots=0; clayRobots<=1; clayRobots++) {
-					for (int obsidianRobots=0; obsidianRobots<=1; obsidianRobots++) {
-						for (int geodeRobots=0; geodeRobots<=1; geodeRobots++) {
-							if (!(oreRobots == 0 && clayRobots == 0 && obsidianRobots == 0 && geodeRobots == 0)) {
-								BuildRequest newRequest = new BuildRequest(oreRobots, clayRobots, obsidianRobots, geodeRobots);
-								if (request.isValid(resources, this))
-									newRequests.add(newRequest);
-							}
-						}
-					}
-				}
-			}
-			*/
-			
-			/*
-			if (canBuildGeode) {
-				newRequests.add(BuildRequest.ONE_GEODE_ROBOT);
-			} 
-			else if (canBuildObsidian) {
-				newRequests.add(BuildRequest.ONE_OBSIDIAN_ROBOT);
-			}
-			else {
-				for (int oreRobots=0; oreRobots<=1; oreRobots++) {
-					for (int clayRobots=0; clayRobots<=1; clayRobots++) {
-						if (!(oreRobots == 0 && clayRobots == 0)) {
-							BuildRequest newRequest = new BuildRequest(oreRobots, clayRobots, 0, 0);
-							if (request.isValid(resources, this))
-								newRequests.add(newRequest);
-						}
-					}
-				}
-			}
-			*/
-			
-			/*
-			int oreRobots = resources.getValue(ORE_ROBOT);
-			int clayRobots = resources.getValue(CLAY_ROBOT);
-			int obsidianRobots = resources.getValue(OBSIDIAN_ROBOT);
-			
-			if (canBuildGeode) {
-				newRequests.add(BuildRequest.ONE_GEODE_ROBOT);
-			}
-			else {
-				double stepsToGeode = Integer.MAX_VALUE;
-				if ()
-			}
-			else if (resources.getValue(CLAY_ROBOT) == 0) {
-				
-				double stepsToClay = oreForClayRobot / (double)oreRobots;
-				double steps2 = (oreForClayRobot - oreForOreRobot + 1) / (double)oreRobots - 1;
-				if (steps2 > stepsToClay) {
-					newRequests.add(BuildRequest.ONE_CLAY_ROBOT);
-				}
-			}
-			else if (resources.getValue(OBSIDIAN_ROBOT) == 0) {
-				double stepsToObsidian = Math.max(
-						oreForObsidianRobot / (double)ore, 
-						clayForObsidianRobot / (double)clay);
-				
-			}
-			else {
-				
-			}
-			*/
-			
-			
-			/*
-			if (canBuildGeode) {
-				newRequests.add(BuildRequest.ONE_GEODE_ROBOT);
-			}
-			else {
-				
-				int timeToGeode = Integer.MAX_VALUE;
-				
-				
-				if (resources.getValue(OBSIDIAN_ROBOT) == 0) {
-					
-					if (resources.getValue(CLAY_ROBOT) == 0) {
-						
-					}
-					
-					int oreDiff = oreForObsidianRobot - ore;
-					int clayDiff = clayForObsidianRobot - clay;
-					
-					
-					
-				}
-				
-				if (canBuildObsidian && resources.getValue(OBSIDIAN_ROBOT) == 0) {
-					
-				}
-			}
-			*/
-			
-			//if (newRequests.isEmpty())
-			//	newRequests.add(BuildRequest.NONE);
-			
-			//if you can build all 4 robots: force them to build 1
-			//if (newRequests.size() < 4)
-			//	newRequests.add(BuildRequest.NONE);
-			
-			int maxOre = Math.max(Math.max(Math.max(oreForOreRobot, oreForClayRobot), oreForObsidianRobot), oreForGeodeRobot);
-			int dt = finalT - t;
-			if (newRequests.isEmpty() || (
-					ore < maxOre * dt &&
-					clay < clayForObsidianRobot * dt &&
-					obsidian < obsidianForGeodeRobot * dt
-					))
-				newRequests.add(BuildRequest.NONE);
-			
-			for (BuildRequest next : newRequests) {
-				exploreOutcomes(resources, next, t+1, finalT, visitor);
-			}
+		public int getMaxOreCost() {
+			return Math.max(Math.max(Math.max(oreForOreRobot, oreForClayRobot), oreForObsidianRobot), oreForGeodeRobot);
 		}
 		
 		public String toString() {
@@ -359,49 +125,237 @@ public class Main {
 		
 	}
 	
-	static interface Visitor {
+	/**
+	 * Search node for one blueprint.  Each move picks the next robot to
+	 * build (geode first) and skips ahead to the minute it is finished,
+	 * rather than stepping one minute at a time.  A geode robot is
+	 * credited with every geode it will crack as soon as it is built, so
+	 * the value is the final geode count if nothing more is built.
+	 */
+	static class Factory implements SearchNode {
 		
-		boolean visit(Blueprint bp, Resources resources, int t, int finalT);
+		static final int ORE_BOT = 0;
+		static final int CLAY_BOT = 1;
+		static final int OBSIDIAN_BOT = 2;
+		static final int GEODE_BOT = 3;
 		
-	}
-	
-	static class Part1Solver implements Visitor {
-		
-		int best = -1;
-		
-		public boolean visit(Blueprint bp, Resources resources, int t, int finalT) {
-			if (t == finalT) {
-				int geodes = resources.getValue(GEODE);
-				//System.out.println("Leaf: " + geodes);
-				this.best = Math.max(best, geodes);
-				//System.out.println("Best: " + best);
-				return false;
-			} else {
-				if (best < 0)
-					return true;
-				
-				//estimate max geodes we can get from this path
-				//we'll use our current geode count + what we will mine from our current geode robot count
-				int tRemaining = finalT - t;
-				int geodeRobots = resources.getValue(GEODE_ROBOT);
-				int maxGeodes = resources.getValue(GEODE) + (tRemaining * geodeRobots);
-
-				//if we don't have a geode robot, estimate how long it will take to get one:
-				/* //no, i don't think code below is right
-				if (geodeRobots == 0) {
-					int timeToRobot = Math.max(Math.max(
-						bp.obsidianForGeodeRobot - resources.getValue(OBSIDIAN),
-						bp.oreForGeodeRobot - resources.getValue(ORE)
-					), 0);
+		//pruning rules: robots past their cap, and robots built too late to pay off
+		static final String [] PRUNE_RULES = {"robotCap", "tooLate"};
+		static final int ROBOT_CAP = 0;
+		static final int TOO_LATE = 1;
+		
+		final Blueprint bp;
+		final int maxOre;
+		
+		int timeLeft;
+		int ore;
+		int clay;
+		int obsidian;
+		int oreRobots;
+		int clayRobots;
+		int obsidianRobots;
+		int geodes;
+		
+		//the fields above, saved before each move:
+		int [] history = new int[8 * 32];
+		int depth;
+		
+		public Factory(Blueprint bp, Resources resources, int finalT) {
+			this.bp = bp;
+			this.maxOre = bp.getMaxOreCost();
+			this.timeLeft = finalT;
+			this.ore = resources.getValue(ORE);
+			this.clay = resources.getValue(CLAY);
+			this.obsidian = resources.getValue(OBSIDIAN);
+			this.oreRobots = resources.getValue(ORE_ROBOT);
+			this.clayRobots = resources.getValue(CLAY_ROBOT);
+			this.obsidianRobots = resources.getValue(OBSIDIAN_ROBOT);
+			this.geodes = resources.getValue(GEODE) + resources.getValue(GEODE_ROBOT) * finalT;
+		}
+		protected Factory(Factory f) {
+			this.bp = f.bp;
+			this.maxOre = f.maxOre;
+			this.timeLeft = f.timeLeft;
+			this.ore = f.ore;
+			this.clay = f.clay;
+			this.obsidian = f.obsidian;
+			this.oreRobots = f.oreRobots;
+			this.clayRobots = f.clayRobots;
+			this.obsidianRobots = f.obsidianRobots;
+			this.geodes = f.geodes;
+			this.history = f.history.clone();
+			this.depth = f.depth;
+		}
+		
+		public long getKey() {
+			if (timeLeft > 63 || oreRobots > 63 || clayRobots > 63 || obsidianRobots > 63 ||
+				ore > 4095 || clay > 4095 || obsidian > 4095)
+				return NO_KEY;
+			return (long)timeLeft << 54 | (long)oreRobots << 48 | (long)clayRobots << 42 |
+					(long)obsidianRobots << 36 | (long)ore << 24 | (long)clay << 12 | obsidian;
+		}
+		
+		public int getValue() {
+			return geodes;
+		}
+		
+		/**
+		 * Assumes an obsidian robot appears for free every minute, and a
+		 * geode robot is built whenever there's obsidian for one
+		 */
+		public int getUpperBound() {
+			int bound = geodes;
+			int obsidian = this.obsidian;
+			int robots = this.obsidianRobots;
+			for (int t=timeLeft-1; t>0; t--) {
+				if (obsidian >= bp.obsidianForGeodeRobot) {
+					obsidian -= bp.obsidianForGeodeRobot;
+					bound += t;
 				}
-				*/
-
-				while (tRemaining > 1) {
-					maxGeodes += tRemaining;
-					tRemaining--;
+				obsidian += robots;
+				robots++;
+			}
+			return bound;
+		}
+		
+		public int getMaxMoves() {
+			return 4;
+		}
+		
+		public int getMoves(int [] moves) {
+			return getMoves(moves, null);
+		}
+		
+		public String [] getPruneRules() {
+			return PRUNE_RULES;
+		}
+		
+		public int getMoves(int [] moves, long [] prunes) {
+			int count = 0;
+			for (int robot=GEODE_BOT; robot>=ORE_BOT; robot--) {
+				if (!canBuild(robot))
+					continue;
+				if (!isUseful(robot)) {
+					if (prunes != null)
+						prunes[ROBOT_CAP]++;
+				} else if (getWaitTime(robot) + 1 >= timeLeft) {
+					if (prunes != null)
+						prunes[TOO_LATE]++;
+				} else {
+					moves[count++] = robot;
 				}
-				return maxGeodes > best;
 			}
+			return count;
+		}
+		
+		/**
+		 * Returns false if nothing produces a resource the robot needs
+		 */
+		boolean canBuild(int robot) {
+			switch (robot) {
+			case OBSIDIAN_BOT: return clayRobots > 0;
+			case GEODE_BOT:    return obsidianRobots > 0;
+			default:           return true;
+			}
+		}
+		
+		/**
+		 * We never need more robots of a kind than the most of that
+		 * resource any robot costs, since only one is built per minute
+		 */
+		boolean isUseful(int robot) {
+			switch (robot) {
+			case ORE_BOT:      return oreRobots < maxOre;
+			case CLAY_BOT:     return clayRobots < bp.clayForObsidianRobot;
+			case OBSIDIAN_BOT: return obsidianRobots < bp.obsidianForGeodeRobot;
+			case GEODE_BOT:    return true;
+			default: throw new IllegalArgumentException("Invalid robot: " + robot);
+			}
+		}
+		
+		/**
+		 * Returns the minutes until there are enough resources to start
+		 * building the robot
+		 */
+		int getWaitTime(int robot) {
+			switch (robot) {
+			case ORE_BOT:      return waitFor(bp.oreForOreRobot, ore, oreRobots);
+			case CLAY_BOT:     return waitFor(bp.oreForClayRobot, ore, oreRobots);
+			case OBSIDIAN_BOT: return Math.max(waitFor(bp.oreForObsidianRobot, ore, oreRobots),
+			                                   waitFor(bp.clayForObsidianRobot, clay, clayRobots));
+			case GEODE_BOT:    return Math.max(waitFor(bp.oreForGeodeRobot, ore, oreRobots),
+			                                   waitFor(bp.obsidianForGeodeRobot, obsidian, obsidianRobots));
+			default: throw new IllegalArgumentException("Invalid robot: " + robot);
+			}
+		}
+		
+		static int waitFor(int cost, int have, int robots) {
+			if (have >= cost)
+				return 0;
+			return (cost - have + robots - 1) / robots;
+		}
+		
+		public void apply(int robot) {
+			if (depth + 8 > history.length)
+				history = Arrays.copyOf(history, history.length * 2);
+			history[depth++] = timeLeft;
+			history[depth++] = ore;
+			history[depth++] = clay;
+			history[depth++] = obsidian;
+			history[depth++] = oreRobots;
+			history[depth++] = clayRobots;
+			history[depth++] = obsidianRobots;
+			history[depth++] = geodes;
+			
+			//mine until the robot is built:
+			int dt = getWaitTime(robot) + 1;
+			timeLeft -= dt;
+			ore += oreRobots * dt;
+			clay += clayRobots * dt;
+			obsidian += obsidianRobots * dt;
+			
+			switch (robot) {
+			case ORE_BOT:
+				ore -= bp.oreForOreRobot;
+				oreRobots++;
+				break;
+			case CLAY_BOT:
+				ore -= bp.oreForClayRobot;
+				clayRobots++;
+				break;
+			case OBSIDIAN_BOT:
+				ore -= bp.oreForObsidianRobot;
+				clay -= bp.clayForObsidianRobot;
+				obsidianRobots++;
+				break;
+			case GEODE_BOT:
+				ore -= bp.oreForGeodeRobot;
+				obsidian -= bp.obsidianForGeodeRobot;
+				geodes += timeLeft;
+				break;
+			default: throw new IllegalArgumentException("Invalid robot: " + robot);
+			}
+			
+			//more than can ever be spent is as good as infinite, and capping
+			//it lets more states share a key:
+			ore = Math.min(ore, maxOre * timeLeft);
+			clay = Math.min(clay, bp.clayForObsidianRobot * timeLeft);
+			obsidian = Math.min(obsidian, bp.obsidianForGeodeRobot * timeLeft);
+		}
+		
+		public void undo(int robot) {
+			geodes = history[--depth];
+			obsidianRobots = history[--depth];
+			clayRobots = history[--depth];
+			oreRobots = history[--depth];
+			obsidian = history[--depth];
+			clay = history[--depth];
+			ore = history[--depth];
+			timeLeft = history[--depth];
+		}
+		
+		public Factory copy() {
+			return new Factory(this);
 		}
 		
 	}
@@ -469,6 +423,26 @@ public class Main {
 		return s.toString();
 	}
 	
+	public static int getBestOutcome(Blueprint bp, int finalT) {
+		Resources resources = new Resources();
+		resources.add(ORE_ROBOT, 1);
+		return bp.getBestOutcome(resources, finalT);
+	}
+	
+	public static long getQualityLevelSum(List<Blueprint> blueprints) {
+		long sum = 0;
+		for (Blueprint bp : blueprints)
+			sum += getBestOutcome(bp, 24) * bp.number;
+		return sum;
+	}
+	
+	public static long getTopGeodeProduct(List<Blueprint> blueprints, int count) {
+		long product = 1;
+		for (int i=0; i<count && i<blueprints.size(); i++)
+			product *= getBestOutcome(blueprints.get(i), 32);
+		return product;
+	}
+	
 	public static void solvePart1(File file) throws Exception {
 		List<Blueprint> blueprints = loadInput(file);
 		
@@ -503,20 +477,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//testInput();
-			
-			File testFile = new File("files/day19/test.txt");
-			//solvePart1(testFile);
-			//solvePart2();
-
-			File inputFile = new File("files/day19/input.txt");
-			//solvePart1(inputFile);
-			solvePart2(inputFile);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day19", args);
 	}
 	
 }
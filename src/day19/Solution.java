@@ -0,0 +1,24 @@
+package day19;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<Main.Blueprint> blueprints;
+	
+	public void parse(Path input) throws Exception {
+		blueprints = Main.loadInput(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.getQualityLevelSum(blueprints);
+	}
+	
+	public Object part2() {
+		return Main.getTopGeodeProduct(blueprints, 3);
+	}
+	
+}
@@ -0,0 +1,25 @@
+package day20;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Encrypted numbers in -10000..10000, 5000 per unit of scale, with
+ * exactly one 0.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long count = 5000L * scale;
+		long zeroAt = (long)(random.nextDouble() * count);
+		for (long i=0; i<count; i++) {
+			int value = 0;
+			while (value == 0 && i != zeroAt)
+				value = random.nextInt(20001) - 10000;
+			out.println(value);
+		}
+	}
+	
+}
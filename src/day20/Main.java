@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 
 public class Main {
 	
@@ -177,7 +178,7 @@ public class Main {
 		
 	}
 	
-	public static LinkedList readInput(File file) throws IOException {
+	public static List<Integer> readValues(File file) throws IOException {
 		List<String> lines = FileUtil.readLinesFromFile(file);
 		List<Integer> values = new ArrayList<>();
 		
@@ -188,7 +189,26 @@ public class Main {
 			values.add(Integer.parseInt(line));
 		}
 		
-		return LinkedList.from(values);
+		return values;
+	}
+	
+	public static LinkedList readInput(File file) throws IOException {
+		return LinkedList.from(readValues(file));
+	}
+	
+	/**
+	 * Mixes the list and returns the sum of the grove coordinates
+	 */
+	public static long getCoordinateSum(LinkedList list, int multiplier, int mixCount) {
+		if (multiplier > 0)
+			list.multiplyNodesBy(multiplier);
+		
+		list.mix(mixCount, false);
+		
+		long sum = 0;
+		for (long coord : list.getCoordinates())
+			sum += coord;
+		return sum;
 	}
 	
 	public static void solve(File file, int multiplier, int mixCount, boolean verbose) throws Exception {
@@ -214,18 +234,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File testFile = new File("files/day20/test.txt");
-			//solve(testFile, 1, 1, true);
-			//solve(testFile, 811589153, 10, false);
-			
-			File inputFile = new File("files/day20/input.txt");
-			//solve(inputFile, 1, 1, false);
-			solve(inputFile, 811589153, 10, false);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day20", args);
 	}
 	
 }
@@ -0,0 +1,24 @@
+package day20;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<Integer> values;
+	
+	public void parse(Path input) throws Exception {
+		values = Main.readValues(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.getCoordinateSum(Main.LinkedList.from(values), 1, 1);
+	}
+	
+	public Object part2() {
+		return Main.getCoordinateSum(Main.LinkedList.from(values), 811589153, 10);
+	}
+	
+}
@@ -0,0 +1,144 @@
+package day21;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * Monkey jobs, about 2000 per unit of scale.  'humn' sits at the bottom
+ * of a chain of 70 operations under one side of 'root', each combining
+ * it with a balanced subtree of other monkeys.  The chain only uses
+ * operations that invert exactly, and the other side of 'root' is built
+ * to equal the humn side for a chosen humn value, so part 2 always has
+ * an integer answer.  Values stay well inside a long.
+ */
+public class Generator implements InputGenerator {
+	
+	static final int CHAIN_LENGTH = 70;
+	static final long LIMIT = 1_000_000_000_000L;
+	
+	Random random;
+	PrintWriter out;
+	int nameLength;
+	int nextName;
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		this.random = random;
+		this.out = out;
+		
+		long count = 2000L * scale;
+		this.nameLength = 4;
+		for (long n=26*26*26*26; n<count; n*=26)
+			nameLength++;
+		
+		int subtreeSize = (int)Math.max(1, (count - 2*CHAIN_LENGTH - 4) / (CHAIN_LENGTH + 1));
+		
+		String humnSide = "humn";
+		long value = 1 + random.nextInt(1000);
+		out.println("humn: " + value);
+		
+		for (int i=0; i<CHAIN_LENGTH; i++) {
+			long [] other = new long[1];
+			String otherName = createSubtree(subtreeSize, other);
+			long w = other[0];
+			String name = createName();
+			
+			int op = random.nextInt(4);
+			if (op == 2 && w != 0 && Math.abs(value) < LIMIT / Math.max(1, Math.abs(w))) {
+				value *= w;
+				out.println(random.nextBoolean() ?
+						name + ": " + humnSide + " * " + otherName :
+						name + ": " + otherName + " * " + humnSide);
+			}
+			else if (op == 3 && w != 0 && value % w == 0) {
+				value /= w;
+				out.println(name + ": " + humnSide + " / " + otherName);
+			}
+			else if (op == 1 || Math.abs(value) > LIMIT) {
+				if (random.nextBoolean()) {
+					value -= w;
+					out.println(name + ": " + humnSide + " - " + otherName);
+				} else {
+					value = w - value;
+					out.println(name + ": " + otherName + " - " + humnSide);
+				}
+			}
+			else {
+				value += w;
+				out.println(random.nextBoolean() ?
+						name + ": " + humnSide + " + " + otherName :
+						name + ": " + otherName + " + " + humnSide);
+			}
+			humnSide = name;
+		}
+		
+		//the other side of root: a subtree plus whatever makes it equal:
+		long [] other = new long[1];
+		String otherName = createSubtree(subtreeSize, other);
+		String balance = createName();
+		out.println(balance + ": " + (value - other[0]));
+		String otherSide = createName();
+		out.println(otherSide + ": " + otherName + " + " + balance);
+		
+		out.println(random.nextBoolean() ?
+				"root: " + humnSide + " + " + otherSide :
+				"root: " + otherSide + " + " + humnSide);
+	}
+	
+	/**
+	 * Writes a balanced subtree of about size monkeys, returning the name
+	 * of its top monkey and storing its value in value[0].
+	 */
+	String createSubtree(int size, long [] value) {
+		String name = createName();
+		if (size < 3) {
+			value[0] = 1 + random.nextInt(20);
+			out.println(name + ": " + value[0]);
+			return name;
+		}
+		
+		int leftSize = (size - 1) / 2;
+		long [] left = new long[1];
+		long [] right = new long[1];
+		String leftName = createSubtree(leftSize, left);
+		String rightName = createSubtree(size - 1 - leftSize, right);
+		long a = left[0];
+		long b = right[0];
+		
+		int op = random.nextInt(4);
+		if (op == 2 && Math.abs(a * b) < 1_000_000) {
+			value[0] = a * b;
+			out.println(name + ": " + leftName + " * " + rightName);
+		}
+		else if (op == 3 && b != 0 && a % b == 0) {
+			value[0] = a / b;
+			out.println(name + ": " + leftName + " / " + rightName);
+		}
+		else if (op == 1 || Math.abs(a + b) > 1_000_000) {
+			value[0] = a - b;
+			out.println(name + ": " + leftName + " - " + rightName);
+		}
+		else {
+			value[0] = a + b;
+			out.println(name + ": " + leftName + " + " + rightName);
+		}
+		return name;
+	}
+	
+	String createName() {
+		String name;
+		do {
+			char [] chars = new char[nameLength];
+			int index = nextName++;
+			for (int i=nameLength-1; i>=0; i--) {
+				chars[i] = (char)('a' + index % 26);
+				index /= 26;
+			}
+			name = new String(chars);
+		}
+		while (name.equals("root") || name.equals("humn"));
+		return name;
+	}
+	
+}
@@ -1,12 +1,17 @@
 package day21;
 
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import common.FileUtil;
+import common.Runner;
+import common.Snapshot;
+import common.TextCursor;
 
 public class Main {
 	
@@ -32,6 +37,7 @@ public class Main {
 			Puzzle puzzle = new Puzzle();
 			
 			List<String> lines = FileUtil.readLinesFromFile(file);
+			TextCursor cursor = new TextCursor();
 			for (String line : lines) {
 				line = line.trim();
 				if (line.isEmpty())
@@ -40,15 +46,17 @@ public class Main {
 				//dbpl: 5
 				//cczh: sllz + lgvd
 				
-				String [] parts = line.split("\\s+");
-				String id = parts[0].substring(0, parts[0].length()-1);
-				if (parts.length == 2) {
-					long value = Long.parseLong(parts[1]);
+				cursor.reset(line);
+				String id = cursor.nextWord();
+				cursor.expect(':').skipWhitespace();
+				char ch = cursor.peek();
+				if (ch == '-' || Character.isDigit(ch)) {
+					long value = cursor.nextLong();
 					puzzle.add(new ValueNode(id, value));
 				} else {
-					String value1 = parts[1];
-					String op = parts[2];
-					String value2 = parts[3];
+					String value1 = cursor.nextWord();
+					String op = toOp(cursor.skipWhitespace().nextChar());
+					String value2 = cursor.nextWord();
 					puzzle.add(new OpNode(id, value1, op, value2));
 				}
 				
@@ -57,6 +65,52 @@ public class Main {
 			return puzzle;
 		}
 		
+		/**
+		 * Writes the nodes for read(): the id, then a value node as 'V'
+		 * and its value, or an operation as its operator and operands
+		 */
+		public void write(DataOutput out) throws IOException {
+			out.writeInt(nodes.size());
+			for (Node node : nodes.values()) {
+				Snapshot.writeString(out, node.id);
+				if (node instanceof ValueNode) {
+					out.writeByte('V');
+					out.writeLong(((ValueNode)node).value);
+				} else {
+					OpNode op = (OpNode)node;
+					out.writeByte(op.op.charAt(0));
+					Snapshot.writeString(out, op.left);
+					Snapshot.writeString(out, op.right);
+				}
+			}
+		}
+		
+		public static Puzzle read(ByteBuffer in) {
+			Puzzle puzzle = new Puzzle();
+			int count = in.getInt();
+			for (int i=0; i<count; i++) {
+				String id = Snapshot.readString(in);
+				char type = (char)in.get();
+				if (type == 'V') {
+					puzzle.add(new ValueNode(id, in.getLong()));
+				} else {
+					String left = Snapshot.readString(in);
+					puzzle.add(new OpNode(id, left, toOp(type), Snapshot.readString(in)));
+				}
+			}
+			return puzzle;
+		}
+		
+		static String toOp(char ch) {
+			switch(ch) {
+			case '+': return "+";
+			case '-': return "-";
+			case '*': return "*";
+			case '/': return "/";
+			default: throw new IllegalArgumentException("Invalid op: " + ch);
+			}
+		}
+		
 	}
 	
 	static abstract class Node {
@@ -184,10 +238,6 @@ public class Main {
 	public static void solvePart2(File file) throws Exception {
 		Puzzle puzzle = Puzzle.loadFrom(file);
 		
-		OpNode root = (OpNode)puzzle.getNode("root");
-		Node left = puzzle.getNode(root.left);
-		Node right = puzzle.getNode(root.right);
-		
 		/*
 		//try all values, starting at 0: too slow!
 		ValueNode me = (ValueNode)puzzle.getNode("humn");
@@ -200,15 +250,25 @@ public class Main {
 		}
 		*/
 		
+		long value = findHumnValue(puzzle);
+		System.out.println("Answer: " + value);
+	}
+	
+	/**
+	 * Finds the value 'humn' must yell for both sides of 'root' to be equal
+	 */
+	public static long findHumnValue(Puzzle puzzle) {
+		OpNode root = (OpNode)puzzle.getNode("root");
+		Node left = puzzle.getNode(root.left);
+		Node right = puzzle.getNode(root.right);
+		
 		//the following solution assumes the 'humn' node will never appear
 		//on both sides of an operation
 		boolean leftChanges = ((OpNode)left).hasAncestor("humn", puzzle);
 		boolean rightChanges = ((OpNode)right).hasAncestor("humn", puzzle);
 		
-		if (leftChanges == rightChanges) {
-			System.out.println("ERROR: Only 1 node can depend on humn");
-			return;
-		}
+		if (leftChanges == rightChanges)
+			throw new IllegalStateException("Only 1 node can depend on humn");
 		
 		OpNode node;
 		long target;
@@ -220,8 +280,7 @@ public class Main {
 			target = left.value(puzzle);
 		}
 		
-		long value = node.findAncestorValueIfEquals(target, "humn", puzzle);
-		System.out.println("Answer: " + value);
+		return node.findAncestorValueIfEquals(target, "humn", puzzle);
 	}
 	
 	static class ValueInfo {
@@ -238,18 +297,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			File testFile = new File("files/day21/test.txt");
-			//solvePart1(testFile);
-			solvePart2(testFile);
-			
-			File inputFile = new File("files/day21/input.txt");
-			//solvePart1(inputFile);
-			solvePart2(inputFile);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day21", args);
 	}
 	
 }
@@ -0,0 +1,39 @@
+package day21;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import common.Snapshot;
+import common.Solver;
+
+public class Solution implements Solver, Snapshot.Model {
+	
+	Main.Puzzle puzzle;
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public int getSnapshotVersion() {
+		return 1;
+	}
+	
+	public void writeSnapshot(DataOutput out) throws IOException {
+		puzzle.write(out);
+	}
+	
+	public void readSnapshot(ByteBuffer in) {
+		puzzle = Main.Puzzle.read(in);
+	}
+	
+	public Object part1() {
+		return puzzle.getValue("root");
+	}
+	
+	public Object part2() {
+		return Main.findHumnValue(puzzle);
+	}
+	
+}
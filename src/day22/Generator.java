@@ -0,0 +1,69 @@
+package day22;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A board folded the same way as the real input (the "part2-mine"
+ * connectivity the Solution uses), with faces 50 wide at scale 1 and
+ * growing with the square root of the scale, followed by a path of
+ * 2000 turns per unit of scale.
+ * 
+ *	    11112222
+ *	    3333
+ *	44445555
+ *	6666
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int side = (int)Math.round(50 * Math.sqrt(scale));
+		
+		for (int row=0; row<side*4; row++) {
+			int from;
+			int to;
+			if (row < side) {
+				from = side;
+				to = side*3;
+			} else if (row < side*2) {
+				from = side;
+				to = side*2;
+			} else if (row < side*3) {
+				from = 0;
+				to = side*2;
+			} else {
+				from = 0;
+				to = side;
+			}
+			
+			char [] line = new char[to];
+			for (int col=0; col<to; col++) {
+				if (col < from)
+					line[col] = ' ';
+				else
+					line[col] = random.nextInt(12) == 0 ? '#' : '.';
+			}
+			//the start must be open:
+			if (row == 0)
+				line[side] = '.';
+			out.println(line);
+		}
+		out.println();
+		
+		long turns = 2000L * scale;
+		StringBuilder path = new StringBuilder();
+		for (long i=0; i<turns; i++) {
+			path.append(1 + random.nextInt(side));
+			path.append(random.nextBoolean() ? 'L' : 'R');
+			if (path.length() > 8192) {
+				out.print(path);
+				path.setLength(0);
+			}
+		}
+		path.append(1 + random.nextInt(side));
+		out.println(path);
+	}
+	
+}
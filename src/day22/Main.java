@@ -1,12 +1,17 @@
 package day22;
 
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import common.FileUtil;
+import common.Log;
+import common.Runner;
+import common.geometry.Grid2D;
 
 public class Main {
 	
@@ -79,17 +84,14 @@ public class Main {
 	
 	static class Board {
 		
-		char [][] grid;
+		//open tiles '.', walls '#', and ' ' off the map and in the border
+		Grid2D grid;
 		int height;
 		int width;
 		LocAndDir [][][] connections;
 		
-		public Board(char [][] grid, String connectivity) {
-			this.grid = grid;
-			this.height = grid.length;
-			this.width = grid[0].length;
-			
-			this.connections = new LocAndDir[height][width][4];
+		public Board(Grid2D grid, String connectivity) {
+			this(grid);
 			if (connectivity.equals("part1"))
 				initPart1Connectivity();
 			else if (connectivity.equals("part2-test"))
@@ -99,6 +101,59 @@ public class Main {
 			else
 				throw new IllegalArgumentException("Unknown connectivity: " + connectivity);
 		}
+		/**
+		 * Creates a board with no connections yet
+		 */
+		protected Board(Grid2D grid) {
+			this.grid = grid;
+			this.height = grid.height;
+			this.width = grid.width;
+			this.connections = new LocAndDir[height][width][4];
+		}
+		
+		/**
+		 * Writes every connection as its row, column and direction, or a
+		 * row of -1 where there is none, for read() to restore.  The fields
+		 * are written separately so a board of any size round-trips.
+		 */
+		public void writeConnections(DataOutput out) throws IOException {
+			for (int i=0; i<height; i++) {
+				for (int j=0; j<width; j++) {
+					for (int dir=0; dir<4; dir++) {
+						LocAndDir next = connections[i][j][dir];
+						if (next == null) {
+							out.writeInt(-1);
+							continue;
+						}
+						out.writeInt(next.loc.row);
+						out.writeInt(next.loc.col);
+						out.writeByte(next.dir);
+					}
+				}
+			}
+		}
+		
+		public static Board read(Grid2D grid, ByteBuffer in) throws IOException {
+			Board board = new Board(grid);
+			Loc [][] locs = new Loc[board.height][board.width];
+			for (int i=0; i<board.height; i++) {
+				for (int j=0; j<board.width; j++) {
+					for (int dir=0; dir<4; dir++) {
+						int row = in.getInt();
+						if (row < 0)
+							continue;
+						int col = in.getInt();
+						int nextDir = in.get();
+						if (row >= board.height || col < 0 || col >= board.width || nextDir < 0 || nextDir > 3)
+							throw new IOException("Connection out of range: " + row + "," + col + "," + nextDir);
+						if (locs[row][col] == null)
+							locs[row][col] = new Loc(row, col);
+						board.connections[i][j][dir] = new LocAndDir(locs[row][col], nextDir);
+					}
+				}
+			}
+			return board;
+		}
 		
 		protected void initPart1Connectivity() {
 			
@@ -145,7 +200,7 @@ public class Main {
 					}
 				}
 			}
-		
+			
 			/*
 			 *          1111       <- row 0
 			 *	        1111
@@ -166,7 +221,7 @@ public class Main {
 			
 			//borders:
 			int sideLen = this.height / 3;
-			System.out.println(height + " x " + width + " sideLen = " + sideLen);
+			Log.debug(height + " x " + width + " sideLen = " + sideLen);
 			for (int i=0; i<sideLen; i++) {
 				
 				//top2 to top1
@@ -226,7 +281,7 @@ public class Main {
 					}
 				}
 			}
-		
+			
 			/*
 			 *      11112222   <- row 0
 			 *	    11112222
@@ -250,7 +305,7 @@ public class Main {
 			
 			//borders:
 			int sideLen = this.width / 3;
-			System.out.println(height + " x " + width + " sideLen = " + sideLen);
+			Log.debug(height + " x " + width + " sideLen = " + sideLen);
 			for (int i=0; i<sideLen; i++) {
 				
 				//left3 to top4
@@ -298,7 +353,7 @@ public class Main {
 		}
 		
 		public char get(int i, int j) {
-			return grid[i][j];
+			return grid.get(i, j);
 		}
 		public char get(Loc loc) {
 			return get(loc.row, loc.col);
@@ -311,10 +366,11 @@ public class Main {
 			return result;
 		}
 		
+		/**
+		 * Rows and columns may be up to one step off the board
+		 */
 		public boolean isValid(int i, int j) {
-			return (i >= 0 && i < height &&
-					j >= 0 && j < width &&
-					grid[i][j] != ' ');
+			return grid.get(i, j) != ' ';
 		}
 		public boolean isValid(Loc loc) {
 			return isValid(loc.row, loc.col);
@@ -322,54 +378,40 @@ public class Main {
 		
 		public int getFirstValidColumn(int i) {
 			for (int j=0; j<width; j++)
-				if (grid[i][j] != ' ')
+				if (grid.get(i, j) != ' ')
 					return j;
 			return -1;
 		}
 		public int getLastValidColumn(int i) {
 			for (int j=width-1; j>=0; j--)
-				if (grid[i][j] != ' ')
+				if (grid.get(i, j) != ' ')
 					return j;
 			return -1;
 		}
 		
 		public int findExtremeRight(int i, int j) {
-			while (j+1 < width && grid[i][j+1] != ' ')
+			while (grid.get(i, j+1) != ' ')
 				j++;
 			return j;
 		}
 		public int findExtremeLeft(int i, int j) {
-			while (j-1 >= 0 && grid[i][j-1] != ' ')
+			while (grid.get(i, j-1) != ' ')
 				j--;
 			return j;
 		}
 		public int findExtremeBottom(int i, int j) {
-			while (i+1 < height && grid[i+1][j] != ' ')
+			while (grid.get(i+1, j) != ' ')
 				i++;
 			return i;
 		}
 		public int findExtremeTop(int i, int j) {
-			while (i-1 >= 0 && grid[i-1][j] != ' ')
+			while (grid.get(i-1, j) != ' ')
 				i--;
 			return i;
 		}
 		
 		public static Board loadFrom(List<String> lines, String connectivity) {
-			int height = lines.size();
-			int width = 0;
-			for (String line : lines)
-				width = Math.max(width, line.length());
-			
-			char [][] grid = new char[height][width];
-			for (int i=0; i<height; i++) {
-				String line = lines.get(i);
-				for (int j=0; j<line.length(); j++)
-					grid[i][j] = line.charAt(j);
-				for (int j=line.length(); j<width; j++)
-					grid[i][j] = ' ';
-			}
-			
-			return new Board(grid, connectivity);
+			return new Board(Grid2D.fromLines(lines, ' '), connectivity);
 		}
 		
 	}
@@ -383,15 +425,30 @@ public class Main {
 		LocAndDir locDir;
 		
 		public static Puzzle loadFrom(File file, String connectivity) throws IOException {
-			List<String> lines = FileUtil.readLinesFromFile(file);
+			return loadFrom(FileUtil.readLinesFromFile(file), connectivity);
+		}
+		
+		public static Puzzle loadFrom(List<String> lines, String connectivity) {
+			lines = new ArrayList<>(lines);
 			
 			while (lines.get(lines.size()-1).trim().isEmpty())
 				lines.remove(lines.size()-1);
 			
-			Puzzle puzzle = new Puzzle();
-			puzzle.input = lines.remove(lines.size()-1);
+			String input = lines.remove(lines.size()-1);
 			lines.remove(lines.size()-1);
-			puzzle.board = Board.loadFrom(lines, connectivity);
+			return create(Grid2D.fromLines(lines, ' '), input, connectivity);
+		}
+		
+		/**
+		 * Creates a puzzle from an already loaded map and path
+		 */
+		public static Puzzle create(Grid2D grid, String input, String connectivity) {
+			return create(new Board(grid, connectivity), input);
+		}
+		public static Puzzle create(Board board, String input) {
+			Puzzle puzzle = new Puzzle();
+			puzzle.input = input;
+			puzzle.board = board;
 			return puzzle;
 		}
 		
@@ -435,9 +492,9 @@ public class Main {
 		
 		public void advance(int steps) {
 			for (int t=0; t<steps; t++) {
-				System.out.print("Moving from " + locDir.toString());
 				LocAndDir next = this.board.getNext(this.locDir);
-				System.out.println(" to " + next.toString());
+				if (Log.isTraceEnabled())
+					Log.trace("Moving from " + locDir.toString() + " to " + next.toString());
 				if (board.get(next.loc) == '#')
 					break;
 				this.locDir = next;
@@ -449,6 +506,16 @@ public class Main {
 			return this.locDir.getPassword();
 		}
 		
+		/**
+		 * Follows the whole path from the start and returns the password
+		 */
+		public long run() {
+			init();
+			for (String part : splitInput())
+				process(part);
+			return getPassword();
+		}
+		
 		public String [] splitInput() {
 			List<String> parts = new ArrayList<>();
 			char [] chars = input.toCharArray();
@@ -478,7 +545,7 @@ public class Main {
 					if (path[i][j] != ' ')
 						s.append(path[i][j]);
 					else
-						s.append(board.grid[i][j]);
+						s.append(board.grid.get(i, j));
 				}
 				s.append('\n');
 			}
@@ -490,40 +557,24 @@ public class Main {
 	public static void solve(File file, String connectivity) throws Exception {
 		Puzzle puzzle = Puzzle.loadFrom(file, connectivity);
 		puzzle.init();
-		System.out.println("Starting at: " + puzzle.locDir.toString());
+		Log.debug("Starting at: " + puzzle.locDir.toString());
 		
 		String [] parts = puzzle.splitInput();
 		for (String part : parts) {
-			System.out.print(part + ": ");
 			puzzle.process(part);
-			System.out.println(puzzle.locDir.toString());
+			if (Log.isDebugEnabled())
+				Log.debug(part + ": " + puzzle.locDir.toString());
 		}
 		
-		System.out.println();
-		System.out.println(puzzle.printPath());
-		System.out.println();
+		if (Log.isDebugEnabled())
+			Log.debug("\n" + puzzle.printPath() + "\n");
 		
-		System.out.println("Ended at: " + puzzle.locDir.toString());
-		System.out.println("Password: " + puzzle.getPassword());
+		Log.info("Ended at: " + puzzle.locDir.toString());
+		Log.info("Password: " + puzzle.getPassword());
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File testFile = new File("files/day22/test.txt");
-			//solve(testFile, "part1");
-			//solve(testFile, "part2-test");
-			
-			File inputFile = new File("files/day22/input.txt");
-			//solve(inputFile, "part1");
-			solve(inputFile, "part2-mine");
-			
-			//File testFile2 = new File("files/day22/test2.txt");
-			//solve(testFile2, "part2-mine");
-			
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day22", args);
 	}
 	
 }
@@ -0,0 +1,74 @@
+package day22;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+import common.FileUtil;
+import common.Snapshot;
+import common.Solver;
+import common.geometry.Grid2D;
+
+public class Solution implements Solver, Snapshot.Model {
+	
+	String part2Connectivity;
+	Main.Puzzle puzzle1;
+	Main.Puzzle puzzle2;
+	
+	/**
+	 * Uses the cube folding of the real puzzle input
+	 */
+	public Solution() {
+		this("part2-mine");
+	}
+	/**
+	 * The test input folds differently and needs "part2-test"
+	 */
+	public Solution(String part2Connectivity) {
+		this.part2Connectivity = part2Connectivity;
+	}
+	
+	public void parse(Path input) throws Exception {
+		List<String> lines = FileUtil.readLinesFromFile(input.toFile());
+		puzzle1 = Main.Puzzle.loadFrom(lines, "part1");
+		puzzle2 = Main.Puzzle.create(puzzle1.board.grid.copy(), puzzle1.input, part2Connectivity);
+	}
+	
+	public int getSnapshotVersion() {
+		return 2;
+	}
+	
+	/**
+	 * The map and path are saved along with both parts' connections, which
+	 * take longer to work out than the text takes to read.  part2Connectivity
+	 * is part of the snapshot, so the test folding needs its own.
+	 */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		puzzle1.board.grid.write(out);
+		Snapshot.writeString(out, puzzle1.input);
+		Snapshot.writeString(out, part2Connectivity);
+		puzzle1.board.writeConnections(out);
+		puzzle2.board.writeConnections(out);
+	}
+	
+	public void readSnapshot(ByteBuffer in) throws IOException {
+		Grid2D grid = Grid2D.read(in);
+		String input = Snapshot.readString(in);
+		String connectivity = Snapshot.readString(in);
+		if (!connectivity.equals(part2Connectivity))
+			throw new IOException("Snapshot is for " + connectivity + ", not " + part2Connectivity);
+		puzzle1 = Main.Puzzle.create(Main.Board.read(grid, in), input);
+		puzzle2 = Main.Puzzle.create(Main.Board.read(grid.copy(), in), input);
+	}
+	
+	public Object part1() {
+		return puzzle1.run();
+	}
+	
+	public Object part2() {
+		return puzzle2.run();
+	}
+	
+}
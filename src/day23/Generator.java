@@ -0,0 +1,25 @@
+package day23;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * A square grid of elves ('#') and empty ground ('.'), 73 on a side at
+ * scale 1 with the side growing with the square root of the scale.
+ * About half the cells hold an elf, as in the real input.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		int size = (int)Math.round(73 * Math.sqrt(scale));
+		char [] row = new char[size];
+		for (int i=0; i<size; i++) {
+			for (int j=0; j<size; j++)
+				row[j] = random.nextBoolean() ? '#' : '.';
+			out.println(row);
+		}
+	}
+	
+}
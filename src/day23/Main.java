@@ -2,97 +2,20 @@ package day23;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import common.FileUtil;
+import common.Runner;
+import common.geometry.BitGrid;
 import common.geometry.XY;
 
 public class Main {
 	
-	static class Elf {
-		
-		XY<Integer> location;
-		
-		public Elf(int x, int y) {
-			this.location = new XY<Integer>(x, y);
-		}
-		
-	}
-	
-	static interface Rule {
-		
-		public XY<Integer> getLocation(Elf elf, Puzzle puzzle);
-		
-	}
-	
-	/**
-	 * If there is no Elf in the N, NE, or NW adjacent positions, the Elf proposes moving north one step.
-	 */
-	static Rule RULE1 = new Rule() {
-		
-		public XY<Integer> getLocation(Elf elf, Puzzle puzzle) {
-			if (puzzle.isEmpty(elf.location.x-1, elf.location.y-1) &&
-				puzzle.isEmpty(elf.location.x, elf.location.y-1) &&
-				puzzle.isEmpty(elf.location.x+1, elf.location.y-1))
-				return new XY<Integer>(elf.location.x, elf.location.y-1);
-			else
-				return null;
-		}
-		
-	};
-	
-	/**
-	 * If there is no Elf in the S, SE, or SW adjacent positions, the Elf proposes moving south one step.
-	 */
-	static Rule RULE2 = new Rule() {
-		
-		public XY<Integer> getLocation(Elf elf, Puzzle puzzle) {
-			if (puzzle.isEmpty(elf.location.x-1, elf.location.y+1) &&
-				puzzle.isEmpty(elf.location.x, elf.location.y+1) &&
-				puzzle.isEmpty(elf.location.x+1, elf.location.y+1))
-				return new XY<Integer>(elf.location.x, elf.location.y+1);
-			else
-				return null;
-		}
-		
-	};
-	
-	/**
-	 * If there is no Elf in the W, NW, or SW adjacent positions, the Elf proposes moving west one step.
-	 */
-	static Rule RULE3 = new Rule() {
-		
-		public XY<Integer> getLocation(Elf elf, Puzzle puzzle) {
-			if (puzzle.isEmpty(elf.location.x-1, elf.location.y-1) &&
-				puzzle.isEmpty(elf.location.x-1, elf.location.y) &&
-				puzzle.isEmpty(elf.location.x-1, elf.location.y+1))
-				return new XY<Integer>(elf.location.x-1, elf.location.y);
-			else
-				return null;
-		}
-		
-	};
-	
-	/**
-	 * If there is no Elf in the E, NE, or SE adjacent positions, the Elf proposes moving east one step.
-	 */
-	static Rule RULE4 = new Rule() {
-		
-		public XY<Integer> getLocation(Elf elf, Puzzle puzzle) {
-			if (puzzle.isEmpty(elf.location.x+1, elf.location.y-1) &&
-				puzzle.isEmpty(elf.location.x+1, elf.location.y) &&
-				puzzle.isEmpty(elf.location.x+1, elf.location.y+1))
-				return new XY<Integer>(elf.location.x+1, elf.location.y);
-			else
-				return null;
-		}
-		
-	};
-	
-	static Rule [] ALL_RULES = new Rule [] {RULE1, RULE2, RULE3, RULE4};
+	//rule directions, in the order they are first tried:
+	static final int NORTH = 0;
+	static final int SOUTH = 1;
+	static final int WEST = 2;
+	static final int EAST = 3;
 	
 	static class Rectangle {
 		
@@ -106,42 +29,39 @@ public class Main {
 		
 	}
 	
+	/**
+	 * The elves as bits in a BitGrid, so each round is worked out for 64
+	 * cells at a time with shifts and masks.  Elf (x, y) is cell
+	 * (x + originX, y + originY), and the grid grows whenever an elf
+	 * reaches its edge.
+	 */
 	static class Puzzle {
 		
-		List<Elf> elves = new ArrayList<>();
-		Map<XY<Integer>, Elf> locations = new HashMap<>();
+		static final int MARGIN = 16;
+		
+		BitGrid grid;
+		BitGrid next;
+		int originX;
+		int originY;
 		int t = 0;
 		int nextRuleOffset = 0;
 		
-		public Elf addElf(int x, int y) {
-			Elf elf = new Elf(x, y);
-			elves.add(elf);
-			locations.put(elf.location, elf);
-			return elf;
-		}
+		//cells proposing to move in each direction, by row:
+		long [][][] proposals;
+		long [] emptyRow;
 		
-		public void moveElf(Elf elf, XY<Integer> location) {
-			locations.remove(elf.location);
-			elf.location = location;
-			locations.put(elf.location, elf);
+		public Puzzle(BitGrid grid, int originX, int originY) {
+			this.grid = grid;
+			this.originX = originX;
+			this.originY = originY;
 		}
 		
-		public boolean isEmpty(int x, int y) {
-			return !locations.containsKey(new XY<Integer>(x, y));
+		public void addElf(int x, int y) {
+			grid.set(x + originX, y + originY);
 		}
 		
-		public boolean isEmptyAround(int x, int y) {
-			return isEmpty(x-1, y-1) &&
-					isEmpty(x-1, y) &&
-					isEmpty(x-1, y+1) &&
-					isEmpty(x, y+1) &&
-					isEmpty(x+1, y+1) &&
-					isEmpty(x+1, y) &&
-					isEmpty(x+1, y-1) &&
-					isEmpty(x, y-1);
-		}
-		public boolean isEmptyAround(XY<Integer> loc) {
-			return isEmptyAround(loc.x, loc.y);
+		public boolean isEmpty(int x, int y) {
+			return !grid.get(x + originX, y + originY);
 		}
 		
 		public int getEmptySpaceCount(Rectangle bounds) {
@@ -155,58 +75,137 @@ public class Main {
 			return count;
 		}
 		
+		/**
+		 * Grows the grid if any elf is on its edge, so no move can leave it
+		 */
+		void ensureMargin() {
+			int height = grid.getHeight();
+			long edges = 0;
+			for (int y=0; y<height; y++)
+				edges |= (grid.getRow(y)[0] & 1L) | grid.getBits(grid.width - 1, y);
+			if (edges != 0 || !grid.isRowEmpty(0) || !grid.isRowEmpty(height - 1)) {
+				grid = grid.grow(MARGIN);
+				originX += MARGIN;
+				originY += MARGIN;
+			}
+			
+			if (next == null || next.width != grid.width || next.getHeight() != grid.getHeight()) {
+				next = new BitGrid(grid.width, grid.getHeight());
+				proposals = new long[4][grid.getHeight()][grid.words];
+				emptyRow = new long[grid.words];
+			}
+		}
+		
+		long [] getProposals(int direction, int y) {
+			long [][] rows = proposals[direction];
+			return y < 0 || y >= rows.length ? emptyRow : rows[y];
+		}
+		
+		/**
+		 * Returns the word with bit x set if cell x - n of the row is
+		 * (n is 1 or 2)
+		 */
+		static long fromWest(long [] row, int word, int n) {
+			return (row[word] << n) | (word > 0 ? row[word - 1] >>> (64 - n) : 0);
+		}
+		/**
+		 * Returns the word with bit x set if cell x + n of the row is
+		 */
+		static long fromEast(long [] row, int word, int n) {
+			return (row[word] >>> n) | (word + 1 < row.length ? row[word + 1] << (64 - n) : 0);
+		}
+		
+		/**
+		 * Runs one round, returning how many elves moved
+		 */
 		public int step() {
-			Map<XY<Integer>, List<Elf>> proposedMoves = new HashMap<>();
-			for (Elf elf : elves) {
-				XY<Integer> nextLoc = getProposedMove(elf);
-				if (nextLoc != null) {
-					List<Elf> list = proposedMoves.get(nextLoc);
-					if (list == null) {
-						list = new ArrayList<>();
-						proposedMoves.put(nextLoc, list);
+			ensureMargin();
+			int height = grid.getHeight();
+			int words = grid.words;
+			
+			//first half: each elf with a neighbor proposes the first direction that is free
+			for (int y=0; y<height; y++) {
+				long [] north = grid.getRow(y - 1);
+				long [] row = grid.getRow(y);
+				long [] south = grid.getRow(y + 1);
+				
+				for (int w=0; w<words; w++) {
+					long nw = fromWest(north, w, 1);
+					long ne = fromEast(north, w, 1);
+					long sw = fromWest(south, w, 1);
+					long se = fromEast(south, w, 1);
+					long freeNorth = ~(nw | north[w] | ne);
+					long freeSouth = ~(sw | south[w] | se);
+					long freeWest = ~(nw | fromWest(row, w, 1) | sw);
+					long freeEast = ~(ne | fromEast(row, w, 1) | se);
+					
+					long remaining = row[w] & ~(freeNorth & freeSouth & freeWest & freeEast);
+					for (int i=0; i<4; i++) {
+						int direction = (nextRuleOffset + i) % 4;
+						long free = direction == NORTH ? freeNorth : direction == SOUTH ? freeSouth :
+								direction == WEST ? freeWest : freeEast;
+						long proposed = remaining & free;
+						proposals[direction][y][w] = proposed;
+						remaining &= ~proposed;
 					}
-					list.add(elf);
 				}
 			}
 			
 			this.nextRuleOffset++;
-			if (this.nextRuleOffset == ALL_RULES.length)
+			if (this.nextRuleOffset == 4)
 				this.nextRuleOffset = 0;
 			
+			//second half: only elves proposing a cell no one else does move.  Two
+			//elves can only propose the same cell from opposite sides of it.
 			int moves = 0;
-			
-			for (Map.Entry<XY<Integer>, List<Elf>> entry : proposedMoves.entrySet()) {
-				XY<Integer> loc = entry.getKey();
-				List<Elf> toMove = entry.getValue();
-				if (toMove.size() == 1) {
-					Elf elf = toMove.get(0);
-					moveElf(elf, loc);
-					moves++;
+			for (int y=0; y<height; y++) {
+				long [] row = grid.getRow(y);
+				long [] north = getProposals(NORTH, y);
+				long [] south = getProposals(SOUTH, y);
+				long [] west = getProposals(WEST, y);
+				long [] east = getProposals(EAST, y);
+				long [] southFromAbove = getProposals(SOUTH, y - 1);
+				long [] northFromBelow = getProposals(NORTH, y + 1);
+				long [] southTwoAbove = getProposals(SOUTH, y - 2);
+				long [] northTwoBelow = getProposals(NORTH, y + 2);
+				long [] nextRow = next.getRow(y);
+				
+				for (int w=0; w<words; w++) {
+					long moved = (north[w] & ~southTwoAbove[w]) |
+							(south[w] & ~northTwoBelow[w]) |
+							(west[w] & ~fromWest(east, w, 2)) |
+							(east[w] & ~fromEast(west, w, 2));
+					//an arrival from both sides of a cell means neither moves:
+					long arrived = (northFromBelow[w] ^ southFromAbove[w]) |
+							(fromEast(west, w, 1) ^ fromWest(east, w, 1));
+					nextRow[w] = (row[w] & ~moved) | arrived;
+					moves += Long.bitCount(moved);
 				}
 			}
 			
+			BitGrid swap = grid;
+			grid = next;
+			next = swap;
+			
 			this.t++;
 			return moves;
 		}
 		
-	
-		public XY<Integer> getProposedMove(Elf elf) {
-			if (isEmptyAround(elf.location))
-				return null;
-			
-			for (int i=0; i<ALL_RULES.length; i++) {
-				Rule rule = ALL_RULES[(nextRuleOffset + i) % ALL_RULES.length];
-				XY<Integer> loc = rule.getLocation(elf, this);
-				if (loc != null)
-					return loc;
-			}
-			return null;
+		public Puzzle copy() {
+			Puzzle copy = new Puzzle(grid.copy(), originX, originY);
+			copy.t = this.t;
+			copy.nextRuleOffset = this.nextRuleOffset;
+			return copy;
 		}
 		
 		public static Puzzle loadFrom(File file) throws IOException {
-			Puzzle puzzle = new Puzzle();
-			
 			List<String> lines = FileUtil.readLinesFromFile(file);
+			int width = 1;
+			for (String line : lines)
+				width = Math.max(width, line.trim().length());
+			BitGrid grid = new BitGrid(width + 2*MARGIN, lines.size() + 2*MARGIN);
+			Puzzle puzzle = new Puzzle(grid, MARGIN, MARGIN);
+			
 			for (int y=0; y<lines.size(); y++) {
 				String line = lines.get(y).trim();
 				if (line.isEmpty())
@@ -222,23 +221,32 @@ public class Main {
 		}
 		
 		public Rectangle getBounds() {
-			Elf elf = elves.get(0);
-			int xMin = elf.location.x.intValue();
-			int yMin = elf.location.y.intValue();
-			int xMax = xMin;
-			int yMax = yMin;
+			int height = grid.getHeight();
+			int yMin = 0;
+			while (grid.isRowEmpty(yMin))
+				yMin++;
+			int yMax = height - 1;
+			while (grid.isRowEmpty(yMax))
+				yMax--;
 			
-			for (int i=1; i<elves.size(); i++) {
-				elf = elves.get(i);
-				xMin = Math.min(xMin, elf.location.x.intValue());
-				yMin = Math.min(yMin, elf.location.y.intValue());
-				xMax = Math.max(xMax, elf.location.x.intValue());
-				yMax = Math.max(yMax, elf.location.y.intValue());
+			long [] columns = new long[grid.words];
+			for (int y=yMin; y<=yMax; y++) {
+				long [] row = grid.getRow(y);
+				for (int w=0; w<columns.length; w++)
+					columns[w] |= row[w];
 			}
+			int w = 0;
+			while (columns[w] == 0)
+				w++;
+			int xMin = w*64 + Long.numberOfTrailingZeros(columns[w]);
+			w = columns.length - 1;
+			while (columns[w] == 0)
+				w--;
+			int xMax = w*64 + 63 - Long.numberOfLeadingZeros(columns[w]);
 			
 			return new Rectangle(
-					new XY<Integer>(xMin, yMin), 
-					new XY<Integer>(xMax, yMax)
+					new XY<Integer>(xMin - originX, yMin - originY), 
+					new XY<Integer>(xMax - originX, yMax - originY)
 				);
 		}
 		
@@ -274,6 +282,20 @@ public class Main {
 		}
 	}
 	
+	public static int getEmptySpaceAfter(Puzzle puzzle, int rounds) {
+		for (int i=0; i<rounds; i++)
+			puzzle.step();
+		return puzzle.getEmptySpaceCount(puzzle.getBounds());
+	}
+	
+	/**
+	 * Runs until no elf moves, returning the number of that round
+	 */
+	public static int getFirstIdleRound(Puzzle puzzle) {
+		while (puzzle.step() > 0) {};
+		return puzzle.t;
+	}
+	
 	public static void solvePart1(File file) throws Exception {
 		Puzzle puzzle = Puzzle.loadFrom(file);
 		for (int i=0; i<10; i++) {
@@ -289,21 +311,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File testFile = new File("files/day23/test.txt");
-			//runTest(testFile);
-			
-			//File testFile2 = new File("files/day23/test2.txt");
-			//solvePart1(testFile2);
-			//solvePart2(testFile2);
-			
-			File inputFile = new File("files/day23/input.txt");
-			//solvePart1(inputFile);
-			solvePart2(inputFile);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day23", args);
 	}
 	
 }
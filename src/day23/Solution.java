@@ -0,0 +1,23 @@
+package day23;
+
+import java.nio.file.Path;
+
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	Main.Puzzle puzzle;
+	
+	public void parse(Path input) throws Exception {
+		puzzle = Main.Puzzle.loadFrom(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.getEmptySpaceAfter(puzzle.copy(), 10);
+	}
+	
+	public Object part2() {
+		return Main.getFirstIdleRound(puzzle.copy());
+	}
+	
+}
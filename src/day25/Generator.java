@@ -0,0 +1,24 @@
+package day25;
+
+import java.io.PrintWriter;
+import java.util.Random;
+
+import common.InputGenerator;
+
+/**
+ * SNAFU numbers, 125 per unit of scale.  Values are kept below 5^17 so
+ * the sum still fits in a long at 10,000x.
+ */
+public class Generator implements InputGenerator {
+	
+	public void generate(int scale, Random random, PrintWriter out) {
+		long max = 762_939_453_125L;	//5^17
+		long count = 125L * scale;
+		for (long i=0; i<count; i++) {
+			//spread the magnitudes, like the real input:
+			long value = 1 + (long)(Math.pow(max, random.nextDouble()));
+			out.println(Main.decimalToSnafu(value));
+		}
+	}
+	
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.util.List;
 
 import common.FileUtil;
+import common.Runner;
 
 public class Main {
 	
@@ -82,6 +83,16 @@ public class Main {
 		return s.toString();
 	}
 	
+	public static long sumSnafu(List<String> lines) {
+		long sum = 0;
+		for (String line : lines) {
+			line = line.trim();
+			if (!line.isEmpty())
+				sum += snafuToDecimal(line);
+		}
+		return sum;
+	}
+	
 	public static void solve(File file) throws Exception {
 		List<String> lines = FileUtil.readLinesFromFile(file);
 		
@@ -101,16 +112,7 @@ public class Main {
 	}
 	
 	public static void main(String [] args) {
-		try {
-			//File testFile = new File("files/day25/test.txt");
-			//solve(testFile);
-			
-			File inputFile = new File("files/day25/input.txt");
-			solve(inputFile);
-		}
-		catch(Exception e) {
-			e.printStackTrace();
-		}
+		Runner.runDay("day25", args);
 	}
 	
 }
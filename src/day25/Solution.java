@@ -0,0 +1,25 @@
+package day25;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import common.FileUtil;
+import common.Solver;
+
+public class Solution implements Solver {
+	
+	List<String> lines;
+	
+	public void parse(Path input) throws Exception {
+		lines = FileUtil.readLinesFromFile(input.toFile());
+	}
+	
+	public Object part1() {
+		return Main.decimalToSnafu(Main.sumSnafu(lines));
+	}
+	
+	public Object part2() {
+		throw new UnsupportedOperationException("Day 25 has no part 2");
+	}
+	
+}